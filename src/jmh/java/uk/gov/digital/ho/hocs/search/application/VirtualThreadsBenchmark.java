@@ -0,0 +1,95 @@
+package uk.gov.digital.ho.hocs.search.application;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of {@code REQUESTS} concurrent requests, each blocked on a call to OpenSearch of {@code latency}
+ * milliseconds, handled by a pool the size of Undertow's default worker pool or by virtual threads. Blocking by
+ * {@code sleep} parks a virtual thread, while blocking on a {@code monitor}, as the client's blocking calls do while
+ * waiting for their response, pins it to its carrier thread on Java 21.
+ * <p>
+ * The virtual thread benchmarks need Java 21; run them with a Java 21 runtime and the {@code gc} profiler for the
+ * memory allocated per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class VirtualThreadsBenchmark {
+
+    private static final int REQUESTS = 2_000;
+
+    @Param({ "platform", "virtual" })
+    private String threads;
+
+    @Param({ "sleep", "monitor" })
+    private String blocking;
+
+    @Param({ "20" })
+    private int latency;
+
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        executor = threads.equals("virtual")
+            ? VirtualThreads.newExecutor("request-")
+            : Executors.newFixedThreadPool(Math.max(Runtime.getRuntime().availableProcessors(), 2) * 8);
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REQUESTS)
+    public void requests() throws InterruptedException {
+        var completed = new CountDownLatch(REQUESTS);
+        boolean monitor = blocking.equals("monitor");
+        for (int i = 0; i < REQUESTS; i++) {
+            executor.execute(() -> {
+                try {
+                    block(monitor);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                completed.countDown();
+            });
+        }
+        completed.await();
+    }
+
+    private void block(boolean monitor) throws InterruptedException {
+        if (!monitor) {
+            Thread.sleep(latency);
+            return;
+        }
+
+        var response = new Object();
+        synchronized (response) {
+            response.wait(latency);
+        }
+    }
+
+}
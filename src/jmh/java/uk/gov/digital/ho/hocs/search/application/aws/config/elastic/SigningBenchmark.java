@@ -0,0 +1,110 @@
+package uk.gov.digital.ho.hocs.search.application.aws.config.elastic;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.message.BasicHttpEntityEnclosingRequest;
+import org.apache.http.nio.entity.NByteArrayEntity;
+import org.apache.http.protocol.BasicHttpContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.auth.signer.Aws4Signer;
+import software.amazon.awssdk.regions.Region;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.http.protocol.HttpCoreContext.HTTP_TARGET_HOST;
+
+/**
+ * Compares signing a {@code _msearch} request of {@code bodySize} bytes through the SDK's {@link Aws4Signer}, which
+ * reads the body into a new buffered entity, against the {@link StreamingAws4Signer}, which hashes the entity in place.
+ * With {@code compression} the body is compressed once first, as {@link RequestCompressingClient} does before the
+ * signing interceptor runs, so the cost of compressing is measured with the signing. Needs no cluster.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SigningBenchmark {
+
+    @Param({ "1024", "102400", "5242880" })
+    private int bodySize;
+
+    @Param({ "false", "true" })
+    private boolean compression;
+
+    private byte[] body;
+
+    private BasicHttpContext context;
+
+    private AwsRequestSigningApacheInterceptor sdkSigning;
+
+    private StreamingSigningInterceptor streamingSigning;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // repeated search lines, which compress as a real _msearch body does
+        body = new byte[bodySize];
+        byte[] line = ("{\"index\":\"test-min-read\"}\n{\"query\":{\"term\":{\"caseUUID\":\"%s\"}}}\n"
+            .formatted(new UUID(bodySize, 0))).getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < bodySize; i++) {
+            body[i] = line[i % line.length];
+        }
+        context = new BasicHttpContext();
+        context.setAttribute(HTTP_TARGET_HOST, new HttpHost("search-hocs.eu-west-2.es.amazonaws.com", -1, "https"));
+
+        AwsCredentialsProvider credentials = StaticCredentialsProvider.create(
+            AwsBasicCredentials.create("AKIDEXAMPLE", "wJalrXUtnFEMI/K7MDENG+bPxRfiCYEXAMPLEKEY"));
+        sdkSigning = new AwsRequestSigningApacheInterceptor("es", Aws4Signer.create(), credentials,
+            Region.EU_WEST_2);
+        streamingSigning = new StreamingSigningInterceptor(
+            new StreamingAws4Signer("es", credentials, Region.EU_WEST_2));
+    }
+
+    @Benchmark
+    public BasicHttpEntityEnclosingRequest sdk() throws HttpException, IOException {
+        var request = request();
+        sdkSigning.process(request, context);
+        return request;
+    }
+
+    @Benchmark
+    public BasicHttpEntityEnclosingRequest streaming() throws HttpException, IOException {
+        var request = request();
+        streamingSigning.process(request, context);
+        return request;
+    }
+
+    private BasicHttpEntityEnclosingRequest request() throws IOException {
+        var request = new BasicHttpEntityEnclosingRequest("POST", "/test-min-read/_msearch?typed_keys=true");
+        HttpEntity entity = new NByteArrayEntity(body, ContentType.APPLICATION_JSON);
+        if (compression) {
+            entity = RequestCompressingClient.CompressedEntity.compress(entity);
+            request.addHeader("Content-Encoding", "gzip");
+        }
+        request.setEntity(entity);
+        request.addHeader("Content-Type", "application/json");
+        request.addHeader("Content-Length", String.valueOf(entity.getContentLength()));
+        return request;
+    }
+
+}
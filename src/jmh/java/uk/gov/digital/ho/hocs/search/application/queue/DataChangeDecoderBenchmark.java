@@ -0,0 +1,88 @@
+package uk.gov.digital.ho.hocs.search.application.queue;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.digital.ho.hocs.search.api.dto.AddressDto;
+import uk.gov.digital.ho.hocs.search.api.dto.CorrespondentDetailsDto;
+import uk.gov.digital.ho.hocs.search.api.dto.UpdateCaseRequest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares decoding a search queue message in a single pass against reading the envelope and then its data string.
+ * Run with {@code ./gradlew jmh}; the gc profiler reports the bytes allocated per message as gc.alloc.rate.norm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataChangeDecoderBenchmark {
+
+    @Param({ "CASE_UPDATED", "CORRESPONDENT_CREATED" })
+    private DataChangeType type;
+
+    private ObjectMapper objectMapper;
+
+    private DataChangeDecoder dataChangeDecoder;
+
+    private String message;
+
+    @Setup
+    public void setup() throws JsonProcessingException {
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        dataChangeDecoder = new DataChangeDecoder(objectMapper);
+
+        Object data = switch (type) {
+            case CASE_UPDATED -> new UpdateCaseRequest(UUID.randomUUID(), LocalDateTime.now(), "MIN", "MIN/0123456/23",
+                UUID.randomUUID(), UUID.randomUUID(), LocalDate.now(), LocalDate.now(), caseData(), null);
+            case CORRESPONDENT_CREATED -> new CorrespondentDetailsDto(UUID.randomUUID(), LocalDateTime.now(),
+                "MEMBER", "Full Name", new AddressDto("AB1 2CD", "1 Street", "Town", "County", "Country"),
+                "01234567890", "name@example.com", "REF", "ExternalKey");
+            default -> throw new IllegalArgumentException(type.value);
+        };
+        message = objectMapper.writeValueAsString(
+            new IndexDataChangeRequest(UUID.randomUUID(), objectMapper.writeValueAsString(data), type.value));
+    }
+
+    @Benchmark
+    public Object twoPass() throws JsonProcessingException {
+        IndexDataChangeRequest request = objectMapper.readValue(message, IndexDataChangeRequest.class);
+        DataChangeType dataChangeType = DataChangeType.fromString(request.getType());
+        return objectMapper.readValue(request.getData(), dataChangeType.payloadType);
+    }
+
+    @Benchmark
+    public Object singlePass() throws JsonProcessingException {
+        return dataChangeDecoder.decode(message).getData();
+    }
+
+    private static Map<String, Object> caseData() {
+        Map<String, Object> data = new HashMap<>();
+        for (int i = 0; i < 20; i++) {
+            data.put("Field" + i, "Value " + i);
+        }
+        return data;
+    }
+
+}
@@ -0,0 +1,84 @@
+package uk.gov.digital.ho.hocs.search.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.opensearch.common.Strings;
+import org.opensearch.search.builder.SearchSourceBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.digital.ho.hocs.search.api.dto.DateRangeDto;
+import uk.gov.digital.ho.hocs.search.api.dto.SearchRequest;
+import uk.gov.digital.ho.hocs.search.domain.repositories.FieldQueryTypeMappingRepository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares building and serialising the search source of a typical search through the {@link CaseQueryFactory} against
+ * rendering it from a cached {@link CaseQueryTemplates} template. Needs no cluster.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CaseQueryTemplatesBenchmark {
+
+    private static final int SEARCHES = 1_000;
+
+    private CaseQueryTemplates built;
+
+    private CaseQueryTemplates templated;
+
+    private SearchRequest[] requests;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        CaseQueryFactory caseQueryFactory = new CaseQueryFactory(
+            new FieldQueryTypeMappingRepository(new ObjectMapper()), true, true, true);
+        built = new CaseQueryTemplates(caseQueryFactory, null, 0, false);
+        templated = new CaseQueryTemplates(caseQueryFactory, null, 100, false);
+
+        requests = new SearchRequest[SEARCHES];
+        for (int i = 0; i < SEARCHES; i++) {
+            requests[i] = new SearchRequest(String.format("MIN/%07d", i), List.of("MIN", "DTEN", "TRO"),
+                new DateRangeDto("2020-01-01", "2023-12-31"), null, null, "Correspondent " + i, null, null, null,
+                null, "Topic " + i, "d6f8bd4c-0e5d-4a92-9f43-8b0b6c3d0a1" + i % 10, Map.of("Field", "value " + i),
+                true);
+        }
+    }
+
+    @Benchmark
+    public String build() {
+        return source(built, requests[next()]);
+    }
+
+    @Benchmark
+    public String template() {
+        return source(templated, requests[next()]);
+    }
+
+    private static String source(CaseQueryTemplates templates, SearchRequest request) {
+        return Strings.toString(
+            new SearchSourceBuilder().query(templates.query(request, "MIN").toQueryBuilder()).fetchSource(false)
+                .size(500));
+    }
+
+    private int next() {
+        next = (next + 1) % SEARCHES;
+        return next;
+    }
+
+}
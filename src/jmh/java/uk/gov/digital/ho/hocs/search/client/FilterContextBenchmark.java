@@ -0,0 +1,112 @@
+package uk.gov.digital.ho.hocs.search.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.opensearch.action.admin.indices.cache.clear.ClearIndicesCacheRequest;
+import org.opensearch.action.search.SearchRequest;
+import org.opensearch.client.RequestOptions;
+import org.opensearch.client.RestHighLevelClient;
+import org.opensearch.index.query.QueryBuilder;
+import org.opensearch.search.builder.SearchSourceBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.digital.ho.hocs.search.api.dto.DateRangeDto;
+import uk.gov.digital.ho.hocs.search.domain.repositories.FieldQueryTypeMappingRepository;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares repeating the same searches with every clause scored against putting the exact match clauses in filter
+ * context, where their matches are reused from the node query cache, on a {@link SyntheticCaseIndex} of
+ * {@code cases} documents. The query cache is cleared before each run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class FilterContextBenchmark {
+
+    private static final int SEARCHES = 20;
+
+    @Param({ "3000000" })
+    private int cases;
+
+    private RestHighLevelClient client;
+
+    private String index;
+
+    private CaseQueryFactory mustQueries;
+
+    private CaseQueryFactory filterQueries;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        client = SyntheticCaseIndex.client();
+        index = SyntheticCaseIndex.ensure(client, cases);
+        client.indices().clearCache(new ClearIndicesCacheRequest(index).queryCache(true), RequestOptions.DEFAULT);
+
+        var fieldQueryTypeMappingRepository = new FieldQueryTypeMappingRepository(new ObjectMapper());
+        mustQueries = new CaseQueryFactory(fieldQueryTypeMappingRepository, false, false, false);
+        filterQueries = new CaseQueryFactory(fieldQueryTypeMappingRepository, false, false, true);
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws IOException {
+        client.close();
+    }
+
+    @Benchmark
+    public long mustContext() throws IOException {
+        return search(query(mustQueries, next()));
+    }
+
+    @Benchmark
+    public long filterContext() throws IOException {
+        return search(query(filterQueries, next()));
+    }
+
+    /**
+     * A search for the cases of a team and business area received in a year, as the same few searches are repeated
+     * through the day.
+     */
+    private static QueryBuilder query(CaseQueryFactory caseQueryFactory, int search) {
+        String from = SyntheticCaseIndex.FIRST_RECEIVED.plusYears(search % 8).toString();
+        String to = SyntheticCaseIndex.FIRST_RECEIVED.plusYears(search % 8 + 1).toString();
+        return caseQueryFactory.createCaseQuery()
+            .caseTypes(List.of(SyntheticCaseIndex.CASE_TYPES.get(search % SyntheticCaseIndex.CASE_TYPES.size())))
+            .dateRange(new DateRangeDto(from, to))
+            .privateOfficeTeam(SyntheticCaseIndex.team(search))
+            .dataFields(Map.of("BusinessArea", SyntheticCaseIndex.businessArea(search)))
+            .activeOnlyFlag(true)
+            .build();
+    }
+
+    private long search(QueryBuilder query) throws IOException {
+        SearchRequest request = new SearchRequest(index).source(
+            new SearchSourceBuilder().query(query).fetchSource(false).size(500));
+        return client.search(request, RequestOptions.DEFAULT).getHits().getHits().length;
+    }
+
+    private int next() {
+        next = (next + 1) % SEARCHES;
+        return next;
+    }
+
+}
@@ -0,0 +1,113 @@
+package uk.gov.digital.ho.hocs.search.client;
+
+import org.opensearch.action.search.SearchRequest;
+import org.opensearch.client.RequestOptions;
+import org.opensearch.client.RestHighLevelClient;
+import org.opensearch.index.query.QueryBuilder;
+import org.opensearch.search.builder.SearchSourceBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares searching case and correspondent references with leading wildcard queries against phrase queries over the
+ * reference n-grams, on a {@link SyntheticCaseIndex} of {@code cases} documents created with the mapping in
+ * {@code docs/reference-ngram.json}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class ReferenceQueryBenchmark {
+
+    private static final int SEARCH_TERMS = 1_000;
+
+    @Param({ "3000000" })
+    private int cases;
+
+    private RestHighLevelClient client;
+
+    private String index;
+
+    private String[] references;
+
+    private String[] correspondentReferences;
+
+    private CaseQueryFactory wildcardQueries;
+
+    private CaseQueryFactory ngramQueries;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        client = SyntheticCaseIndex.client();
+        index = SyntheticCaseIndex.ensure(client, cases);
+        wildcardQueries = new CaseQueryFactory(null, false, false, false);
+        ngramQueries = new CaseQueryFactory(null, true, false, false);
+
+        // search for part of references that were indexed, as users usually do
+        Random terms = new Random(cases);
+        references = new String[SEARCH_TERMS];
+        correspondentReferences = new String[SEARCH_TERMS];
+        for (int i = 0; i < SEARCH_TERMS; i++) {
+            references[i] = String.format("%07d", terms.nextInt(cases)).substring(1);
+            correspondentReferences[i] =
+                SyntheticCaseIndex.correspondentReference(terms.nextInt(cases)).substring(2, 8);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws IOException {
+        client.close();
+    }
+
+    @Benchmark
+    public long referenceWildcard() throws IOException {
+        return search(wildcardQueries.createCaseQuery().reference(references[next()], "MIN").build());
+    }
+
+    @Benchmark
+    public long referenceNgram() throws IOException {
+        return search(ngramQueries.createCaseQuery().reference(references[next()], "MIN").build());
+    }
+
+    @Benchmark
+    public long correspondentReferenceWildcard() throws IOException {
+        return search(
+            wildcardQueries.createCaseQuery().correspondentReference(correspondentReferences[next()]).build());
+    }
+
+    @Benchmark
+    public long correspondentReferenceNgram() throws IOException {
+        return search(ngramQueries.createCaseQuery().correspondentReference(correspondentReferences[next()]).build());
+    }
+
+    private long search(QueryBuilder query) throws IOException {
+        SearchRequest request = new SearchRequest(index).source(
+            new SearchSourceBuilder().query(query).fetchSource(false).size(500));
+        return client.search(request, RequestOptions.DEFAULT).getHits().getHits().length;
+    }
+
+    private int next() {
+        next = (next + 1) % SEARCH_TERMS;
+        return next;
+    }
+
+}
@@ -0,0 +1,132 @@
+package uk.gov.digital.ho.hocs.search.client;
+
+import org.apache.http.HttpHost;
+import org.opensearch.action.admin.indices.refresh.RefreshRequest;
+import org.opensearch.action.bulk.BulkRequest;
+import org.opensearch.action.index.IndexRequest;
+import org.opensearch.client.RequestOptions;
+import org.opensearch.client.RestClient;
+import org.opensearch.client.RestHighLevelClient;
+import org.opensearch.client.indices.CreateIndexRequest;
+import org.opensearch.client.indices.GetIndexRequest;
+import org.opensearch.client.indices.PutMappingRequest;
+import org.opensearch.common.xcontent.XContentType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A synthetic index of cases for benchmarks that need an OpenSearch cluster, given by {@code -Dopensearch.url}
+ * (default {@code http://localhost:9200}). The index is kept between runs so it is only loaded once for each size.
+ */
+final class SyntheticCaseIndex {
+
+    static final List<String> CASE_TYPES = List.of("MIN", "DTEN", "TRO", "COMP", "BF", "POGR", "IEDET");
+
+    static final int TEAMS = 50;
+
+    static final int BUSINESS_AREAS = 10;
+
+    static final LocalDate FIRST_RECEIVED = LocalDate.of(2015, 1, 1);
+
+    static final int DAYS_RECEIVED = 3_000;
+
+    private static final int BULK_SIZE = 5_000;
+
+    private static final String MAPPING = """
+        {
+          "properties": {
+            "type": { "type": "keyword" },
+            "dateReceived": { "type": "date" },
+            "deleted": { "type": "boolean" },
+            "completed": { "type": "boolean" },
+            "effectivePOTeamUUID": { "type": "keyword" },
+            "data": {
+              "properties": {
+                "POTeamUUID": { "type": "keyword" },
+                "BusinessArea": { "type": "keyword" }
+              }
+            }
+          }
+        }""";
+
+    private SyntheticCaseIndex() {
+    }
+
+    static RestHighLevelClient client() {
+        return new RestHighLevelClient(
+            RestClient.builder(HttpHost.create(System.getProperty("opensearch.url", "http://localhost:9200"))));
+    }
+
+    /**
+     * @return the name of the index of {@code cases} synthetic cases, which is created and loaded if it does not exist
+     */
+    static String ensure(RestHighLevelClient client, int cases) throws IOException {
+        String index = "benchmark-cases-" + cases;
+        if (client.indices().exists(new GetIndexRequest(index), RequestOptions.DEFAULT)) {
+            return index;
+        }
+
+        client.indices().create(new CreateIndexRequest(index).source(readReferenceMapping(), XContentType.JSON),
+            RequestOptions.DEFAULT);
+        client.indices().putMapping(new PutMappingRequest(index).source(MAPPING, XContentType.JSON),
+            RequestOptions.DEFAULT);
+
+        BulkRequest bulk = new BulkRequest();
+        for (int i = 0; i < cases; i++) {
+            bulk.add(new IndexRequest(index).id(UUID.randomUUID().toString()).source(document(i)));
+            if (bulk.numberOfActions() == BULK_SIZE) {
+                client.bulk(bulk, RequestOptions.DEFAULT);
+                bulk = new BulkRequest();
+            }
+        }
+        if (bulk.numberOfActions() > 0) {
+            client.bulk(bulk, RequestOptions.DEFAULT);
+        }
+        client.indices().refresh(new RefreshRequest(index), RequestOptions.DEFAULT);
+        return index;
+    }
+
+    static String reference(int i) {
+        return String.format("%s/%07d/%02d", CASE_TYPES.get(i % CASE_TYPES.size()), i, 15 + i % 9);
+    }
+
+    static String correspondentReference(int i) {
+        return String.format("CR%08X", i * 2654435761L & 0xFFFFFFFFL);
+    }
+
+    static String team(int i) {
+        return new UUID(0, i % TEAMS).toString();
+    }
+
+    static String businessArea(int i) {
+        return "AREA" + i % BUSINESS_AREAS;
+    }
+
+    private static Map<String, Object> document(int i) {
+        return Map.of(
+            "type", CASE_TYPES.get(i % CASE_TYPES.size()),
+            "reference", reference(i),
+            "dateReceived", FIRST_RECEIVED.plusDays(i % DAYS_RECEIVED).toString(),
+            "deleted", i % 50 == 0,
+            "completed", i % 3 == 0,
+            "effectivePOTeamUUID", team(i),
+            "data", Map.of("POTeamUUID", team(i), "BusinessArea", businessArea(i)),
+            "currentCorrespondents", List.of(Map.of("reference", correspondentReference(i))));
+    }
+
+    private static String readReferenceMapping() throws IOException {
+        try (InputStream in = SyntheticCaseIndex.class.getClassLoader().getResourceAsStream("reference-ngram.json")) {
+            if (in == null) {
+                throw new IOException("Mapping not found");
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+}
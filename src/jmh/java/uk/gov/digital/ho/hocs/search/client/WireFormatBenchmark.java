@@ -0,0 +1,175 @@
+package uk.gov.digital.ho.hocs.search.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sun.management.OperatingSystemMXBean;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.opensearch.action.admin.indices.alias.Alias;
+import org.opensearch.action.admin.indices.refresh.RefreshRequest;
+import org.opensearch.client.Request;
+import org.opensearch.client.RequestOptions;
+import org.opensearch.client.RestHighLevelClient;
+import org.opensearch.client.indices.CreateIndexRequest;
+import org.opensearch.client.indices.GetIndexRequest;
+import org.opensearch.client.json.jackson.JacksonJsonpMapper;
+import org.opensearch.client.opensearch.OpenSearchAsyncClient;
+import org.opensearch.client.transport.rest_client.RestClientTransport;
+import org.opensearch.common.xcontent.XContentHelper;
+import org.opensearch.common.xcontent.XContentType;
+import org.opensearch.index.query.QueryBuilders;
+import uk.gov.digital.ho.hocs.search.api.dto.UpdateCaseRequest;
+import uk.gov.digital.ho.hocs.search.api.helpers.DocumentWriter;
+import uk.gov.digital.ho.hocs.search.domain.model.CaseData;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares bulk writing {@code batchSize} typical case documents, and searching for them with their source, in each
+ * wire format against the cluster given by {@code -Dopensearch.url}. After each iteration the CPU time spent per
+ * operation by this process and by the cluster, from the nodes stats, is printed, so the cluster should be otherwise
+ * idle.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    private static final String ALIAS_PREFIX = "benchmark";
+
+    private static final String INDEX = "benchmark-wire-format";
+
+    @Param({ "json", "smile", "cbor" })
+    private String format;
+
+    @Param({ "100" })
+    private int batchSize;
+
+    private RestHighLevelClient client;
+
+    private OpenSearchClient openSearchClient;
+
+    private List<DocumentUpdate> updates;
+
+    private Map<String, SearchQuery> queries;
+
+    private final OperatingSystemMXBean operatingSystem =
+        (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+    private long clientCpuNanos;
+
+    private long clusterCpuMillis;
+
+    private long operations;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        client = SyntheticCaseIndex.client();
+        if (!client.indices().exists(new GetIndexRequest(INDEX), RequestOptions.DEFAULT)) {
+            client.indices().create(new CreateIndexRequest(INDEX)
+                .alias(new Alias(ALIAS_PREFIX + "-min-write"))
+                .alias(new Alias(ALIAS_PREFIX + "-min-read")), RequestOptions.DEFAULT);
+        }
+
+        var wireFormat = new WireFormat(format);
+        var asyncClient = new OpenSearchAsyncClient(
+            new RestClientTransport(client.getLowLevelClient(), new JacksonJsonpMapper()));
+        openSearchClient = new OpenSearchClient(client, asyncClient, new MultiSearchBatcher(client, wireFormat, 0, 0),
+            wireFormat, ALIAS_PREFIX, batchSize, 3);
+
+        var documentWriter = new DocumentWriter(new ObjectMapper().registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS));
+        updates = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            var caseData = new CaseData(new UpdateCaseRequest(UUID.randomUUID(), LocalDateTime.now(), "MIN",
+                SyntheticCaseIndex.reference(i), UUID.randomUUID(), UUID.randomUUID(), LocalDate.now(),
+                LocalDate.now(), caseData(i), null));
+            updates.add(new DocumentUpdate("MIN", caseData.getCaseUUID(), documentWriter.write(caseData)));
+        }
+        openSearchClient.bulkUpdate(updates);
+        client.indices().refresh(new RefreshRequest(INDEX), RequestOptions.DEFAULT);
+        queries = Map.of("MIN", SearchQuery.of(QueryBuilders.termQuery("type", "MIN")));
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration() throws IOException {
+        clientCpuNanos = operatingSystem.getProcessCpuTime();
+        clusterCpuMillis = clusterCpuMillis();
+        operations = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportIteration() throws IOException {
+        double clientCpu = (operatingSystem.getProcessCpuTime() - clientCpuNanos) / 1_000_000.0 / operations;
+        double clusterCpu = (double) (clusterCpuMillis() - clusterCpuMillis) / operations;
+        System.out.printf("%n%s: client CPU %.3f ms/op, cluster CPU %.3f ms/op%n", format, clientCpu, clusterCpu);
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws IOException {
+        client.close();
+    }
+
+    @Benchmark
+    public List<Boolean> bulkWrite() {
+        operations++;
+        return openSearchClient.bulkUpdate(updates);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> search() {
+        operations++;
+        return openSearchClient.search(queries);
+    }
+
+    private long clusterCpuMillis() throws IOException {
+        var response = client.getLowLevelClient().performRequest(new Request("GET", "/_nodes/stats/process"));
+        Map<String, Object> stats;
+        try (InputStream in = response.getEntity().getContent()) {
+            stats = XContentHelper.convertToMap(XContentType.JSON.xContent(), in, false);
+        }
+
+        long total = 0;
+        for (Object node : ((Map<?, ?>) stats.get("nodes")).values()) {
+            var cpu = (Map<?, ?>) ((Map<?, ?>) ((Map<?, ?>) node).get("process")).get("cpu");
+            total += ((Number) cpu.get("total_in_millis")).longValue();
+        }
+        return total;
+    }
+
+    private static Map<String, Object> caseData(int i) {
+        Map<String, Object> data = new HashMap<>();
+        for (int field = 0; field < 20; field++) {
+            data.put("Field" + field, "Value " + field);
+        }
+        data.put("POTeamUUID", SyntheticCaseIndex.team(i));
+        data.put("BusinessArea", SyntheticCaseIndex.businessArea(i));
+        return data;
+    }
+
+}
@@ -0,0 +1,52 @@
+package uk.gov.digital.ho.hocs.search.api;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import uk.gov.digital.ho.hocs.search.api.dto.SearchRequest;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Handles searches in place of {@link CaseDataResource} when async search is on. The worker thread is released while
+ * OpenSearch runs the search, and the response is written once it completes.
+ */
+@Slf4j
+@RestController
+@ConditionalOnProperty(prefix = "aws.es", name = "async-search", havingValue = "true")
+class AsyncCaseDataResource {
+
+    private final CaseDataService caseDataService;
+
+    private final int batchSearchMaxRequests;
+
+    @Autowired
+    public AsyncCaseDataResource(CaseDataService caseDataService,
+                                 @Value("${aws.es.batch-search.max-requests:100}") int batchSearchMaxRequests) {
+        this.caseDataService = caseDataService;
+        this.batchSearchMaxRequests = batchSearchMaxRequests;
+    }
+
+    @PostMapping(value = "/case")
+    CompletableFuture<ResponseEntity<Set<UUID>>> search(@RequestBody SearchRequest request) {
+        return caseDataService.searchAsync(request).thenApply(ResponseEntity::ok);
+    }
+
+    @PostMapping(value = "/case/batch")
+    CompletableFuture<ResponseEntity<List<Set<UUID>>>> searchBatch(@RequestBody List<SearchRequest> requests) {
+        if (requests.size() > batchSearchMaxRequests) {
+            log.warn("Rejected batch of {} searches, more than {}", requests.size(), batchSearchMaxRequests);
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        return caseDataService.searchBatchAsync(requests).thenApply(ResponseEntity::ok);
+    }
+
+}
@@ -2,24 +2,32 @@ package uk.gov.digital.ho.hocs.search.api;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 import uk.gov.digital.ho.hocs.search.api.dto.SearchRequest;
 
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 
 @Slf4j
 @RestController
+@ConditionalOnProperty(prefix = "aws.es", name = "async-search", havingValue = "false", matchIfMissing = true)
 class CaseDataResource {
 
     private final CaseDataService caseDataService;
 
+    private final int batchSearchMaxRequests;
+
     @Autowired
-    public CaseDataResource(CaseDataService caseDataService) {
+    public CaseDataResource(CaseDataService caseDataService,
+                            @Value("${aws.es.batch-search.max-requests:100}") int batchSearchMaxRequests) {
         this.caseDataService = caseDataService;
+        this.batchSearchMaxRequests = batchSearchMaxRequests;
     }
 
     @PostMapping(value = "/case")
@@ -28,4 +36,18 @@ class CaseDataResource {
         return ResponseEntity.ok(results);
     }
 
+    /**
+     * Runs up to {@code max-requests} searches in a single round trip to OpenSearch, returning the results of each
+     * search in the order of the requests.
+     */
+    @PostMapping(value = "/case/batch")
+    ResponseEntity<List<Set<UUID>>> searchBatch(@RequestBody List<SearchRequest> requests) {
+        if (requests.size() > batchSearchMaxRequests) {
+            log.warn("Rejected batch of {} searches, more than {}", requests.size(), batchSearchMaxRequests);
+            return ResponseEntity.badRequest().build();
+        }
+        List<Set<UUID>> results = caseDataService.searchBatch(requests);
+        return ResponseEntity.ok(results);
+    }
+
 }
\ No newline at end of file
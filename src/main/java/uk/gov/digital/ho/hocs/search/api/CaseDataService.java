@@ -2,8 +2,11 @@ package uk.gov.digital.ho.hocs.search.api;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
-import org.opensearch.index.query.BoolQueryBuilder;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import uk.gov.digital.ho.hocs.search.api.dto.CorrespondentDetailsDto;
 import uk.gov.digital.ho.hocs.search.api.dto.CreateCaseRequest;
@@ -13,10 +16,17 @@ import uk.gov.digital.ho.hocs.search.api.dto.DeleteTopicRequest;
 import uk.gov.digital.ho.hocs.search.api.dto.SearchRequest;
 import uk.gov.digital.ho.hocs.search.api.dto.SomuItemDto;
 import uk.gov.digital.ho.hocs.search.api.dto.UpdateCaseRequest;
-import uk.gov.digital.ho.hocs.search.api.helpers.ObjectMapperConverterHelper;
+import uk.gov.digital.ho.hocs.search.api.helpers.DocumentWriter;
+import uk.gov.digital.ho.hocs.search.application.queue.DataChangeType;
+import uk.gov.digital.ho.hocs.search.client.CaseQueryTemplates;
+import uk.gov.digital.ho.hocs.search.client.CollectionUpdate;
+import uk.gov.digital.ho.hocs.search.client.ConflictRetrier;
+import uk.gov.digital.ho.hocs.search.client.DocumentUpdate;
+import uk.gov.digital.ho.hocs.search.client.IndexedDocument;
 import uk.gov.digital.ho.hocs.search.client.OpenSearchClient;
-import uk.gov.digital.ho.hocs.search.client.CaseQueryFactory;
+import uk.gov.digital.ho.hocs.search.client.SearchQuery;
 import uk.gov.digital.ho.hocs.search.domain.model.CaseData;
+import uk.gov.digital.ho.hocs.search.domain.model.Correspondent;
 import uk.gov.digital.ho.hocs.search.domain.model.CorrespondentCaseData;
 import uk.gov.digital.ho.hocs.search.domain.model.SomuCaseData;
 import uk.gov.digital.ho.hocs.search.domain.model.SomuItem;
@@ -24,16 +34,22 @@ import uk.gov.digital.ho.hocs.search.domain.model.Topic;
 import uk.gov.digital.ho.hocs.search.domain.model.TopicCaseData;
 import uk.gov.digital.ho.hocs.search.domain.repositories.CaseTypeMappingRepository;
 
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 
 import static net.logstash.logback.argument.StructuredArguments.value;
+import static uk.gov.digital.ho.hocs.search.application.LogEvent.CASE_UPDATE_STALE;
 import static uk.gov.digital.ho.hocs.search.application.LogEvent.EVENT;
+import static uk.gov.digital.ho.hocs.search.application.LogEvent.SEARCH_BULK_UPDATED;
 import static uk.gov.digital.ho.hocs.search.application.LogEvent.SEARCH_CASE_COMPLETED;
 import static uk.gov.digital.ho.hocs.search.application.LogEvent.SEARCH_CASE_CREATED;
 import static uk.gov.digital.ho.hocs.search.application.LogEvent.SEARCH_CASE_DELETED;
@@ -53,58 +69,88 @@ import static uk.gov.digital.ho.hocs.search.application.LogEvent.SOMU_ITEM_UPDAT
 @Slf4j
 public class CaseDataService {
 
+    private static final String CURRENT_CORRESPONDENTS = "currentCorrespondents";
+
+    private static final String ALL_CORRESPONDENTS = "allCorrespondents";
+
+    private static final String CURRENT_TOPICS = "currentTopics";
+
+    private static final String ALL_TOPICS = "allTopics";
+
+    private static final String ALL_SOMU_ITEMS = "allSomuItems";
+
+    private static final String EVENT_TIME = "eventTime";
+
+    private static final String DELETED_EVENT_TIME = "deletedEventTime";
+
+    private static final Set<DataChangeType> COLLECTION_EVENTS = EnumSet.of(DataChangeType.CORRESPONDENT_CREATED,
+        DataChangeType.CORRESPONDENT_UPDATED, DataChangeType.CORRESPONDENT_DELETED, DataChangeType.CASE_TOPIC_CREATED,
+        DataChangeType.CASE_TOPIC_DELETED, DataChangeType.SOMU_ITEM_CREATED, DataChangeType.SOMU_ITEM_UPDATED,
+        DataChangeType.SOMU_ITEM_DELETED);
+
     private final ObjectMapper objectMapper;
 
+    private final DocumentWriter documentWriter;
+
     private final OpenSearchClient openSearchClient;
 
     private final CaseTypeMappingRepository caseTypeMappingRepository;
 
-    private final CaseQueryFactory caseQueryFactory;
+    private final CaseQueryTemplates caseQueryTemplates;
+
+    private final ConflictRetrier conflictRetrier;
+
+    private final SearchResultCache searchResultCache;
+
+    private final SearchCoalescer searchCoalescer;
+
+    private final Counter staleUpdateCounter;
+
+    private final boolean scriptedUpdates;
 
     public CaseDataService(ObjectMapper objectMapper,
                            OpenSearchClient openSearchClient,
                            CaseTypeMappingRepository caseTypeMappingRepository,
-                           CaseQueryFactory caseQueryFactory) {
+                           CaseQueryTemplates caseQueryTemplates,
+                           ConflictRetrier conflictRetrier,
+                           SearchResultCache searchResultCache,
+                           SearchCoalescer searchCoalescer,
+                           MeterRegistry meterRegistry,
+                           @Value("${aws.es.scripted-updates}") boolean scriptedUpdates) {
         this.objectMapper = objectMapper;
+        this.documentWriter = new DocumentWriter(objectMapper);
         this.openSearchClient = openSearchClient;
         this.caseTypeMappingRepository = caseTypeMappingRepository;
-        this.caseQueryFactory = caseQueryFactory;
+        this.caseQueryTemplates = caseQueryTemplates;
+        this.conflictRetrier = conflictRetrier;
+        this.searchResultCache = searchResultCache;
+        this.searchCoalescer = searchCoalescer;
+        this.staleUpdateCounter = Counter.builder("search.consumer.update.stale")
+            .description("Updates skipped because the case was already indexed from a later event")
+            .register(meterRegistry);
+        this.scriptedUpdates = scriptedUpdates;
     }
 
-    public void createCase(UUID caseUUID, CreateCaseRequest createCaseRequest) {
+    public void createCase(UUID caseUUID, CreateCaseRequest createCaseRequest, Instant eventTime) {
         log.debug("Creating case {}", caseUUID);
 
-        var caseData = new CaseData(createCaseRequest);
-        var caseDataMap = ObjectMapperConverterHelper.convertObjectToMap(objectMapper, caseData);
-        openSearchClient.update(
-            createCaseRequest.getType(),
-            caseUUID,
-            caseDataMap);
+        conflictRetrier.run(() -> write(createCaseDocument(caseUUID, createCaseRequest, eventTime)));
 
         log.info("Created case {}", caseUUID, value(EVENT, SEARCH_CASE_CREATED));
     }
 
-    public void updateCase(UUID caseUUID, UpdateCaseRequest updateCaseRequest) {
+    public void updateCase(UUID caseUUID, UpdateCaseRequest updateCaseRequest, Instant eventTime) {
         log.debug("Updating case {}", caseUUID);
 
-        var caseData = new CaseData(updateCaseRequest);
-        var caseDataMap = ObjectMapperConverterHelper.convertObjectToMap(objectMapper, caseData);
-        openSearchClient.update(
-            updateCaseRequest.getType(),
-            caseUUID,
-            caseDataMap);
+        conflictRetrier.run(() -> write(updateCaseDocument(caseUUID, updateCaseRequest, eventTime)));
 
         log.info("Updated case {}", caseUUID, value(EVENT, SEARCH_CASE_UPDATED));
     }
 
-    public void deleteCase(UUID caseUUID, DeleteCaseRequest deleteCaseRequest) {
+    public void deleteCase(UUID caseUUID, DeleteCaseRequest deleteCaseRequest, Instant eventTime) {
         log.debug("Deleting ({}) case {}", deleteCaseRequest.getDeleted(), caseUUID);
 
-        Map<String, Object> objectMap = Map.of("deleted", deleteCaseRequest.getDeleted());
-        openSearchClient.update(
-            caseTypeMappingRepository.getCaseTypeByShortCode(caseUUID),
-            caseUUID,
-            objectMap);
+        conflictRetrier.run(() -> write(deleteCaseDocument(caseUUID, deleteCaseRequest, eventTime)));
 
         log.info("Deleted ({}) case {}", deleteCaseRequest.getDeleted(), caseUUID, value(EVENT, SEARCH_CASE_DELETED));
     }
@@ -112,136 +158,134 @@ public class CaseDataService {
     public void completeCase(UUID caseUUID) {
         log.debug("Complete case {}", caseUUID);
 
-        Map<String, Object> objectMap = Map.of("completed", true);
-        openSearchClient.update(
-            caseTypeMappingRepository.getCaseTypeByShortCode(caseUUID),
-            caseUUID,
-            objectMap);
+        conflictRetrier.run(() -> write(completeCaseDocument(caseUUID)));
 
         log.info("Completed case {}", caseUUID, value(EVENT, SEARCH_CASE_COMPLETED));
     }
 
-    public void createCorrespondent(UUID caseUUID, CorrespondentDetailsDto correspondentDetailsDto) {
+    public void createCorrespondent(UUID caseUUID, CorrespondentDetailsDto correspondentDetailsDto,
+                                    Instant eventTime) {
         log.debug("Adding correspondent {} to case {}", correspondentDetailsDto.getUuid(), caseUUID);
 
-        CorrespondentCaseData correspondentCaseData =
-            objectMapper.convertValue(getCaseData(caseUUID), CorrespondentCaseData.class);
-        correspondentCaseData.addCorrespondent(correspondentDetailsDto);
-
-        openSearchClient.update(
-            caseTypeMappingRepository.getCaseTypeByShortCode(caseUUID),
-            caseUUID,
-            ObjectMapperConverterHelper.convertObjectToMap(objectMapper, correspondentCaseData));
+        conflictRetrier.run(() -> write(createCorrespondentDocument(caseUUID, correspondentDetailsDto, eventTime)));
 
         log.info("Added correspondent {} to case {}", correspondentDetailsDto.getUuid(), caseUUID,
             value(EVENT, SEARCH_CORRESPONDENT_CREATED));
     }
 
-    public void deleteCorrespondent(UUID caseUUID, CorrespondentDetailsDto correspondentDetailsDto) {
+    public void deleteCorrespondent(UUID caseUUID, CorrespondentDetailsDto correspondentDetailsDto,
+                                    Instant eventTime) {
         log.debug("Deleting correspondent {} from case {}", correspondentDetailsDto.getUuid(), caseUUID);
 
-        CorrespondentCaseData correspondentCaseData =
-            objectMapper.convertValue(getCaseData(caseUUID), CorrespondentCaseData.class);
-        correspondentCaseData.removeCorrespondent(correspondentDetailsDto.getUuid());
-
-        openSearchClient.update(caseTypeMappingRepository.getCaseTypeByShortCode(caseUUID),
-            caseUUID,
-            ObjectMapperConverterHelper.convertObjectToMap(objectMapper, correspondentCaseData));
+        conflictRetrier.run(() -> write(deleteCorrespondentDocument(caseUUID, correspondentDetailsDto, eventTime)));
 
         log.info("Deleted correspondent {} from case {}", correspondentDetailsDto.getUuid(), caseUUID,
             value(EVENT, SEARCH_CORRESPONDENT_DELETED));
     }
 
-    public void updateCorrespondent(UUID caseUUID, CorrespondentDetailsDto correspondentDetailsDto) {
+    public void updateCorrespondent(UUID caseUUID, CorrespondentDetailsDto correspondentDetailsDto,
+                                    Instant eventTime) {
         log.debug("Updating correspondent {} from case {}", correspondentDetailsDto.getUuid(), caseUUID);
 
-        CorrespondentCaseData correspondentCaseData =
-            objectMapper.convertValue(getCaseData(caseUUID), CorrespondentCaseData.class);
-        correspondentCaseData.updateCorrespondent(correspondentDetailsDto);
-
-        openSearchClient.update(caseTypeMappingRepository.getCaseTypeByShortCode(caseUUID),
-            caseUUID,
-            ObjectMapperConverterHelper.convertObjectToMap(objectMapper, correspondentCaseData));
+        conflictRetrier.run(() -> write(updateCorrespondentDocument(caseUUID, correspondentDetailsDto, eventTime)));
 
         log.info("Updating correspondent {} for case {}", correspondentDetailsDto.getUuid(), caseUUID,
             value(EVENT, SEARCH_CORRESPONDENT_UPDATED));
     }
 
-    public void createTopic(UUID caseUUID, CreateTopicRequest createTopicRequest) {
+    public void createTopic(UUID caseUUID, CreateTopicRequest createTopicRequest, Instant eventTime) {
         log.debug("Adding topic {} to case {}", createTopicRequest.getUuid(), caseUUID);
 
-        TopicCaseData topicCaseData =
-            objectMapper.convertValue(getCaseData(caseUUID), TopicCaseData.class);
-        topicCaseData.addTopic(Topic.from(createTopicRequest));
-
-        openSearchClient.update(caseTypeMappingRepository.getCaseTypeByShortCode(caseUUID),
-            caseUUID,
-            ObjectMapperConverterHelper.convertObjectToMap(objectMapper, topicCaseData));
+        conflictRetrier.run(() -> write(createTopicDocument(caseUUID, createTopicRequest, eventTime)));
 
         log.info("Added topic {} to case {}", createTopicRequest.getUuid(), caseUUID,
             value(EVENT, SEARCH_TOPIC_CREATED));
     }
 
-    public void deleteTopic(UUID caseUUID, DeleteTopicRequest deleteTopicRequest) {
+    public void deleteTopic(UUID caseUUID, DeleteTopicRequest deleteTopicRequest, Instant eventTime) {
         log.debug("Deleting topic {} from case {}", deleteTopicRequest.getUuid(), caseUUID);
-        TopicCaseData topicCaseData =
-            objectMapper.convertValue(getCaseData(caseUUID), TopicCaseData.class);
-        topicCaseData.removeTopic(deleteTopicRequest.getUuid());
 
-        openSearchClient.update(caseTypeMappingRepository.getCaseTypeByShortCode(caseUUID),
-            caseUUID,
-            ObjectMapperConverterHelper.convertObjectToMap(objectMapper, topicCaseData));
+        conflictRetrier.run(() -> write(deleteTopicDocument(caseUUID, deleteTopicRequest, eventTime)));
 
         log.info("Deleted topic {} from case {}. Event {}", deleteTopicRequest.getUuid(), caseUUID,
             value(EVENT, SEARCH_TOPIC_DELETED));
     }
 
-    public void createSomuItem(UUID caseUUID, SomuItemDto somuItemDto) {
+    public void createSomuItem(UUID caseUUID, SomuItemDto somuItemDto, Instant eventTime) {
         log.debug("Adding somu item {} to case {}", somuItemDto.getUuid(), caseUUID);
 
-        SomuCaseData somuCaseData =
-            objectMapper.convertValue(getCaseData(caseUUID), SomuCaseData.class);
-        somuCaseData.addSomuItem(SomuItem.from(somuItemDto));
-
-        openSearchClient.update(caseTypeMappingRepository.getCaseTypeByShortCode(caseUUID),
-            caseUUID,
-            ObjectMapperConverterHelper.convertObjectToMap(objectMapper, somuCaseData));
+        conflictRetrier.run(() -> write(createSomuItemDocument(caseUUID, somuItemDto, eventTime)));
 
         log.info("Added somu item {} to case {}. Event {}", somuItemDto.getUuid(), caseUUID,
             value(EVENT, SOMU_ITEM_CREATED));
     }
 
-    public void deleteSomuItem(UUID caseUUID, SomuItemDto somuItem) {
+    public void deleteSomuItem(UUID caseUUID, SomuItemDto somuItem, Instant eventTime) {
         log.debug("Deleting somu item {} from case {}", somuItem.getUuid(), caseUUID);
 
-        SomuCaseData somuCaseData =
-            objectMapper.convertValue(getCaseData(caseUUID), SomuCaseData.class);
-        somuCaseData.removeSomuItem(somuItem.getSomuTypeUuid());
-
-        openSearchClient.update(
-            caseTypeMappingRepository.getCaseTypeByShortCode(caseUUID),
-            caseUUID,
-            ObjectMapperConverterHelper.convertObjectToMap(objectMapper, somuCaseData));
+        conflictRetrier.run(() -> write(deleteSomuItemDocument(caseUUID, somuItem, eventTime)));
 
         log.info("Deleted somu item {} from case {}. Event {}", somuItem.getUuid(), caseUUID,
             value(EVENT, SOMU_ITEM_DELETED));
     }
 
-    public void updateSomuItem(UUID caseUUID, SomuItemDto somuItemDto) {
+    public void updateSomuItem(UUID caseUUID, SomuItemDto somuItemDto, Instant eventTime) {
         log.debug("Updating somu item {} from case {}", somuItemDto.getUuid(), caseUUID);
 
-        SomuCaseData somuCaseData =
-            objectMapper.convertValue(getCaseData(caseUUID), SomuCaseData.class);
-        somuCaseData.updateSomuItem(SomuItem.from(somuItemDto));
-
-        openSearchClient.update(caseTypeMappingRepository.getCaseTypeByShortCode(caseUUID),
-            caseUUID,
-            ObjectMapperConverterHelper.convertObjectToMap(objectMapper, somuCaseData));
+        conflictRetrier.run(() -> write(updateSomuItemDocument(caseUUID, somuItemDto, eventTime)));
 
         log.info("Updated somu item {} from case {}. Event {}", somuItemDto.getUuid(), caseUUID,
             value(EVENT, SOMU_ITEM_UPDATED));
     }
 
+    /**
+     * Builds the document update for an event without writing it, so that it can be sent as part of a bulk request.
+     * Unless scripted updates are enabled, events that modify the correspondents, topics or somu items of a case read
+     * the current document first, and the update is only written if the document is unchanged. Updates with an event
+     * time are skipped if the case, or the collection item, was already indexed from a later event.
+     */
+    public DocumentUpdate prepareUpdate(DataChangeType type, UUID caseUUID, Object data, Instant eventTime) {
+        return switch (type) {
+            case CASE_CREATED -> createCaseDocument(caseUUID, (CreateCaseRequest) data, eventTime);
+            case CASE_UPDATED -> updateCaseDocument(caseUUID, (UpdateCaseRequest) data, eventTime);
+            case CASE_DELETED -> deleteCaseDocument(caseUUID, (DeleteCaseRequest) data, eventTime);
+            case CASE_COMPLETED -> completeCaseDocument(caseUUID);
+            case CORRESPONDENT_CREATED ->
+                createCorrespondentDocument(caseUUID, (CorrespondentDetailsDto) data, eventTime);
+            case CORRESPONDENT_UPDATED ->
+                updateCorrespondentDocument(caseUUID, (CorrespondentDetailsDto) data, eventTime);
+            case CORRESPONDENT_DELETED ->
+                deleteCorrespondentDocument(caseUUID, (CorrespondentDetailsDto) data, eventTime);
+            case CASE_TOPIC_CREATED -> createTopicDocument(caseUUID, (CreateTopicRequest) data, eventTime);
+            case CASE_TOPIC_DELETED -> deleteTopicDocument(caseUUID, (DeleteTopicRequest) data, eventTime);
+            case SOMU_ITEM_CREATED -> createSomuItemDocument(caseUUID, (SomuItemDto) data, eventTime);
+            case SOMU_ITEM_UPDATED -> updateSomuItemDocument(caseUUID, (SomuItemDto) data, eventTime);
+            case SOMU_ITEM_DELETED -> deleteSomuItemDocument(caseUUID, (SomuItemDto) data, eventTime);
+        };
+    }
+
+    /**
+     * @return whether the update for this event is built from the currently indexed document
+     */
+    public boolean requiresCurrentDocument(DataChangeType type) {
+        return !scriptedUpdates && COLLECTION_EVENTS.contains(type);
+    }
+
+    public List<Boolean> bulkUpdate(List<DocumentUpdate> updates) {
+        log.debug("Bulk updating {} documents", updates.size());
+
+        var results = openSearchClient.bulkUpdate(updates);
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i)) {
+                searchResultCache.invalidate(updates.get(i).getIndexType());
+            }
+        }
+
+        log.info("Bulk updated {} of {} documents", results.stream().filter(Boolean::booleanValue).count(),
+            updates.size(), value(EVENT, SEARCH_BULK_UPDATED));
+        return results;
+    }
+
     public Set<UUID> search(SearchRequest request) {
         log.debug("Searching for case {}", request.toString(), value(EVENT, SEARCH_REQUEST));
 
@@ -250,57 +294,329 @@ public class CaseDataService {
             return new HashSet<>();
         }
 
-        Map<String, BoolQueryBuilder> caseTypeQueryBuilders = new HashMap<>();
-        for (String caseType : request.getCaseTypes()) {
-            CaseQueryFactory.CaseQuery query =
-                caseQueryFactory.createCaseQuery()
-                    .reference(request.getReference(), caseType)
-                    .caseTypes(request.getCaseTypes())
-                    .dateRange(request.getDateReceived())
-                    .correspondentAddress1(request.getCorrespondentAddress1())
-                    .correspondentEmail(request.getCorrespondentEmail())
-                    .correspondentName(request.getCorrespondentName())
-                    .correspondentNameNotMember(request.getCorrespondentNameNotMember())
-                    .correspondentPostcode(request.getCorrespondentPostcode())
-                    .correspondentReference(request.getCorrespondentReference())
-                    .correspondentExternalKey(request.getCorrespondentExternalKey())
-                    .topic(request.getTopic())
-                    .privateOfficeTeam(request.getPrivateOfficeTeamUuid())
-                    .dataFields(request.getData())
-                    .activeOnlyFlag(request.getActiveOnly());
-
-            if (!query.hasClauses()) {
+        var casesUuids = searchResultCache.get(request,
+            () -> searchCoalescer.search(request, () -> searchCases(request)));
+
+        log.info("Results {}", casesUuids.size(), value(EVENT, SEARCH_RESPONSE));
+        return casesUuids;
+    }
+
+    /**
+     * Searches without blocking the calling thread while OpenSearch runs the search. The result is completed on the
+     * client's I/O threads, with the logging context of the caller.
+     */
+    public CompletableFuture<Set<UUID>> searchAsync(SearchRequest request) {
+        log.debug("Searching for case {}", request.toString(), value(EVENT, SEARCH_REQUEST));
+
+        if (request.getCaseTypes() == null || request.getCaseTypes().isEmpty()) {
+            log.error("No case types provided in search request");
+            return CompletableFuture.completedFuture(new HashSet<>());
+        }
+
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        return searchResultCache.getAsync(request,
+            () -> searchCoalescer.searchAsync(request, () -> searchCasesAsync(request))).thenApply(casesUuids -> {
+            logResults(context, () -> log.info("Results {}", casesUuids.size(), value(EVENT, SEARCH_RESPONSE)));
+            return casesUuids;
+        });
+    }
+
+    /**
+     * Runs the searches as a single multi search, returning the result of each in the same order. Requests without
+     * case types have no results. The searches are neither cached nor coalesced with other searches.
+     */
+    public List<Set<UUID>> searchBatch(List<SearchRequest> requests) {
+        log.debug("Searching for {} batched cases", requests.size(), value(EVENT, SEARCH_REQUEST));
+
+        var results = toSets(openSearchClient.batchSearchIds(batchQueries(requests)));
+
+        log.info("Results {} for {} batched searches", countResults(results), requests.size(),
+            value(EVENT, SEARCH_RESPONSE));
+        return results;
+    }
+
+    public CompletableFuture<List<Set<UUID>>> searchBatchAsync(List<SearchRequest> requests) {
+        log.debug("Searching for {} batched cases", requests.size(), value(EVENT, SEARCH_REQUEST));
+
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        return openSearchClient.batchSearchIdsAsync(batchQueries(requests)).thenApply(found -> {
+            var results = toSets(found);
+            logResults(context, () -> log.info("Results {} for {} batched searches", countResults(results),
+                requests.size(), value(EVENT, SEARCH_RESPONSE)));
+            return results;
+        });
+    }
+
+    private List<Map<String, SearchQuery>> batchQueries(List<SearchRequest> requests) {
+        List<Map<String, SearchQuery>> queries = new ArrayList<>(requests.size());
+        for (SearchRequest request : requests) {
+            if (request == null || request.getCaseTypes() == null || request.getCaseTypes().isEmpty()) {
+                log.error("No case types provided in batched search request");
+                queries.add(Collections.emptyMap());
                 continue;
             }
+            queries.add(caseTypeQueries(request));
+        }
+        return queries;
+    }
+
+    private static List<Set<UUID>> toSets(List<List<UUID>> found) {
+        return found.stream().<Set<UUID>>map(HashSet::new).toList();
+    }
+
+    private static int countResults(List<Set<UUID>> results) {
+        return results.stream().mapToInt(Set::size).sum();
+    }
 
-            caseTypeQueryBuilders.put(caseType, query.build());
+    private static void logResults(Map<String, String> context, Runnable logging) {
+        // the client's I/O threads have no logging context of their own
+        MDC.setContextMap(context == null ? Collections.emptyMap() : context);
+        try {
+            logging.run();
+        } finally {
+            MDC.clear();
         }
+    }
 
+    private Set<UUID> searchCases(SearchRequest request) {
+        var caseTypeQueryBuilders = caseTypeQueries(request);
         if (caseTypeQueryBuilders.isEmpty()) {
             return Collections.emptySet();
         }
 
-        var cases = openSearchClient.search(caseTypeQueryBuilders);
-        var casesUuids =
-            cases.stream()
-                .map(caseMap -> {
-                    var caseData = convertMapToCaseData(caseMap);
-                    return caseData.getCaseUUID();
-                })
-                .collect(Collectors.toSet());
+        return new HashSet<>(openSearchClient.searchIds(caseTypeQueryBuilders));
+    }
 
-        log.info("Results {}", casesUuids.size(), value(EVENT, SEARCH_RESPONSE));
-        return casesUuids;
+    private CompletableFuture<Set<UUID>> searchCasesAsync(SearchRequest request) {
+        var caseTypeQueryBuilders = caseTypeQueries(request);
+        if (caseTypeQueryBuilders.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptySet());
+        }
+
+        return openSearchClient.searchIdsAsync(caseTypeQueryBuilders).thenApply(HashSet::new);
     }
 
-    private Map<String, Object> getCaseData(UUID caseUuid) {
-        log.debug("Fetching Case {}", caseUuid);
-        return openSearchClient.findById(caseTypeMappingRepository.getCaseTypeByShortCode(caseUuid),
-            caseUuid);
+    private Map<String, SearchQuery> caseTypeQueries(SearchRequest request) {
+        Map<String, SearchQuery> caseTypeQueryBuilders = new HashMap<>();
+        for (String caseType : request.getCaseTypes()) {
+            SearchQuery query = caseQueryTemplates.query(request, caseType);
+            if (query == null) {
+                continue;
+            }
+
+            caseTypeQueryBuilders.put(caseType, query);
+        }
+        return caseTypeQueryBuilders;
+    }
+
+    private DocumentUpdate createCaseDocument(UUID caseUUID, CreateCaseRequest createCaseRequest, Instant eventTime) {
+        var caseData = new CaseData(createCaseRequest);
+        caseData.setEventTime(toEpochMilli(eventTime));
+        return versioned(derivingEffectivePOTeam(new DocumentUpdate(createCaseRequest.getType(), caseUUID,
+            documentWriter.write(caseData)), createCaseRequest.getData()), EVENT_TIME, eventTime);
+    }
+
+    private DocumentUpdate updateCaseDocument(UUID caseUUID, UpdateCaseRequest updateCaseRequest, Instant eventTime) {
+        var caseData = new CaseData(updateCaseRequest);
+        caseData.setEventTime(toEpochMilli(eventTime));
+        return versioned(derivingEffectivePOTeam(new DocumentUpdate(updateCaseRequest.getType(), caseUUID,
+            documentWriter.write(caseData)), updateCaseRequest.getData()), EVENT_TIME, eventTime);
+    }
+
+    private DocumentUpdate deleteCaseDocument(UUID caseUUID, DeleteCaseRequest deleteCaseRequest, Instant eventTime) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("deleted", deleteCaseRequest.getDeleted());
+        if (eventTime != null) {
+            data.put(DELETED_EVENT_TIME, eventTime.toEpochMilli());
+        }
+        return versioned(new DocumentUpdate(caseTypeMappingRepository.getCaseTypeByShortCode(caseUUID), caseUUID,
+            data), DELETED_EVENT_TIME, eventTime);
+    }
+
+    private DocumentUpdate completeCaseDocument(UUID caseUUID) {
+        return new DocumentUpdate(caseTypeMappingRepository.getCaseTypeByShortCode(caseUUID), caseUUID,
+            Map.of("completed", true));
+    }
+
+    private DocumentUpdate createCorrespondentDocument(UUID caseUUID,
+                                                       CorrespondentDetailsDto correspondentDetailsDto,
+                                                       Instant eventTime) {
+        if (scriptedUpdates) {
+            return collectionDocument(caseUUID, new CollectionUpdate()
+                .add(item(Correspondent.from(correspondentDetailsDto), eventTime), CURRENT_CORRESPONDENTS,
+                    ALL_CORRESPONDENTS)
+                .keepingVersions(ALL_CORRESPONDENTS)
+                .at(toEpochMilli(eventTime)));
+        }
+
+        IndexedDocument<CorrespondentCaseData> document = getCaseDocument(caseUUID, CorrespondentCaseData.class);
+        CorrespondentCaseData correspondentCaseData = document.getSource();
+        correspondentCaseData.addCorrespondent(correspondentDetailsDto);
+
+        return caseDocument(caseUUID, document, correspondentCaseData);
+    }
+
+    private DocumentUpdate deleteCorrespondentDocument(UUID caseUUID,
+                                                       CorrespondentDetailsDto correspondentDetailsDto,
+                                                       Instant eventTime) {
+        if (scriptedUpdates) {
+            return collectionDocument(caseUUID, new CollectionUpdate()
+                .remove(correspondentDetailsDto.getUuid(), CURRENT_CORRESPONDENTS)
+                .at(toEpochMilli(eventTime)));
+        }
+
+        IndexedDocument<CorrespondentCaseData> document = getCaseDocument(caseUUID, CorrespondentCaseData.class);
+        CorrespondentCaseData correspondentCaseData = document.getSource();
+        correspondentCaseData.removeCorrespondent(correspondentDetailsDto.getUuid());
+
+        return caseDocument(caseUUID, document, correspondentCaseData);
+    }
+
+    private DocumentUpdate updateCorrespondentDocument(UUID caseUUID,
+                                                       CorrespondentDetailsDto correspondentDetailsDto,
+                                                       Instant eventTime) {
+        if (scriptedUpdates) {
+            return collectionDocument(caseUUID, new CollectionUpdate()
+                .remove(correspondentDetailsDto.getUuid(), CURRENT_CORRESPONDENTS)
+                .add(item(Correspondent.from(correspondentDetailsDto), eventTime), CURRENT_CORRESPONDENTS,
+                    ALL_CORRESPONDENTS)
+                .keepingVersions(ALL_CORRESPONDENTS)
+                .at(toEpochMilli(eventTime)));
+        }
+
+        IndexedDocument<CorrespondentCaseData> document = getCaseDocument(caseUUID, CorrespondentCaseData.class);
+        CorrespondentCaseData correspondentCaseData = document.getSource();
+        correspondentCaseData.updateCorrespondent(correspondentDetailsDto);
+
+        return caseDocument(caseUUID, document, correspondentCaseData);
+    }
+
+    private DocumentUpdate createTopicDocument(UUID caseUUID,
+                                               CreateTopicRequest createTopicRequest,
+                                               Instant eventTime) {
+        if (scriptedUpdates) {
+            return collectionDocument(caseUUID, new CollectionUpdate()
+                .add(item(Topic.from(createTopicRequest), eventTime), CURRENT_TOPICS, ALL_TOPICS)
+                .at(toEpochMilli(eventTime)));
+        }
+
+        IndexedDocument<TopicCaseData> document = getCaseDocument(caseUUID, TopicCaseData.class);
+        TopicCaseData topicCaseData = document.getSource();
+        topicCaseData.addTopic(Topic.from(createTopicRequest));
+
+        return caseDocument(caseUUID, document, topicCaseData);
     }
 
-    private CaseData convertMapToCaseData(Map<String, Object> caseData) {
-        return objectMapper.convertValue(caseData, new TypeReference<>() {});
+    private DocumentUpdate deleteTopicDocument(UUID caseUUID,
+                                               DeleteTopicRequest deleteTopicRequest,
+                                               Instant eventTime) {
+        if (scriptedUpdates) {
+            return collectionDocument(caseUUID, new CollectionUpdate()
+                .remove(deleteTopicRequest.getUuid(), CURRENT_TOPICS)
+                .at(toEpochMilli(eventTime)));
+        }
+
+        IndexedDocument<TopicCaseData> document = getCaseDocument(caseUUID, TopicCaseData.class);
+        TopicCaseData topicCaseData = document.getSource();
+        topicCaseData.removeTopic(deleteTopicRequest.getUuid());
+
+        return caseDocument(caseUUID, document, topicCaseData);
+    }
+
+    private DocumentUpdate createSomuItemDocument(UUID caseUUID, SomuItemDto somuItemDto, Instant eventTime) {
+        if (scriptedUpdates) {
+            return collectionDocument(caseUUID, new CollectionUpdate()
+                .add(item(SomuItem.from(somuItemDto), eventTime), ALL_SOMU_ITEMS)
+                .at(toEpochMilli(eventTime)));
+        }
+
+        IndexedDocument<SomuCaseData> document = getCaseDocument(caseUUID, SomuCaseData.class);
+        SomuCaseData somuCaseData = document.getSource();
+        somuCaseData.addSomuItem(SomuItem.from(somuItemDto));
+
+        return caseDocument(caseUUID, document, somuCaseData);
+    }
+
+    private DocumentUpdate deleteSomuItemDocument(UUID caseUUID, SomuItemDto somuItem, Instant eventTime) {
+        if (scriptedUpdates) {
+            return collectionDocument(caseUUID, new CollectionUpdate()
+                .remove(somuItem.getSomuTypeUuid(), ALL_SOMU_ITEMS)
+                .at(toEpochMilli(eventTime)));
+        }
+
+        IndexedDocument<SomuCaseData> document = getCaseDocument(caseUUID, SomuCaseData.class);
+        SomuCaseData somuCaseData = document.getSource();
+        somuCaseData.removeSomuItem(somuItem.getSomuTypeUuid());
+
+        return caseDocument(caseUUID, document, somuCaseData);
+    }
+
+    private DocumentUpdate updateSomuItemDocument(UUID caseUUID, SomuItemDto somuItemDto, Instant eventTime) {
+        if (scriptedUpdates) {
+            return collectionDocument(caseUUID, new CollectionUpdate()
+                .remove(somuItemDto.getUuid(), ALL_SOMU_ITEMS)
+                .add(item(SomuItem.from(somuItemDto), eventTime), ALL_SOMU_ITEMS)
+                .at(toEpochMilli(eventTime)));
+        }
+
+        IndexedDocument<SomuCaseData> document = getCaseDocument(caseUUID, SomuCaseData.class);
+        SomuCaseData somuCaseData = document.getSource();
+        somuCaseData.updateSomuItem(SomuItem.from(somuItemDto));
+
+        return caseDocument(caseUUID, document, somuCaseData);
+    }
+
+    private DocumentUpdate collectionDocument(UUID caseUUID, CollectionUpdate collectionUpdate) {
+        return new DocumentUpdate(caseTypeMappingRepository.getCaseTypeByShortCode(caseUUID), caseUUID,
+            collectionUpdate);
+    }
+
+    private DocumentUpdate caseDocument(UUID caseUUID, IndexedDocument<?> document, Object caseData) {
+        return new DocumentUpdate(caseTypeMappingRepository.getCaseTypeByShortCode(caseUUID), caseUUID,
+            documentWriter.write(caseData), document.getSeqNo(), document.getPrimaryTerm());
+    }
+
+    private void write(DocumentUpdate update) {
+        if (!openSearchClient.update(update)) {
+            staleUpdateCounter.increment();
+            log.info("Skipped update of case {} from an earlier event", update.getDocumentId(),
+                value(EVENT, CASE_UPDATE_STALE));
+            return;
+        }
+        searchResultCache.invalidate(update.getIndexType());
+    }
+
+    private Map<String, Object> item(Object item, Instant eventTime) {
+        Map<String, Object> itemMap = objectMapper.convertValue(item, new TypeReference<>() {});
+        if (eventTime != null) {
+            itemMap.put(EVENT_TIME, eventTime.toEpochMilli());
+        }
+        return itemMap;
+    }
+
+    /**
+     * The effective private office team of a case is taken from the merged document whenever an event changes any of
+     * the fields it comes from, as the event alone may clear the team that took precedence or set one that does not.
+     */
+    private static DocumentUpdate derivingEffectivePOTeam(DocumentUpdate update, Map<String, Object> data) {
+        if (data == null || CaseData.PO_TEAM_FIELDS.stream().noneMatch(data::containsKey)) {
+            return update;
+        }
+        return update.derivingEffectivePOTeam();
+    }
+
+    private static DocumentUpdate versioned(DocumentUpdate update, String versionField, Instant eventTime) {
+        return eventTime == null ? update : update.versionedBy(versionField);
+    }
+
+    private static Long toEpochMilli(Instant eventTime) {
+        return eventTime == null ? null : eventTime.toEpochMilli();
+    }
+
+    private <T> IndexedDocument<T> getCaseDocument(UUID caseUuid, Class<T> type) {
+        log.debug("Fetching Case {}", caseUuid);
+        return openSearchClient.findDocument(caseTypeMappingRepository.getCaseTypeByShortCode(caseUuid),
+            caseUuid, type);
     }
 
 }
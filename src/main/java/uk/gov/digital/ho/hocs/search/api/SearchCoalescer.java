@@ -0,0 +1,128 @@
+package uk.gov.digital.ho.hocs.search.api;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.digital.ho.hocs.search.api.dto.SearchRequest;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Runs identical concurrent searches once. A search arriving while the same normalised search is already running
+ * waits for that search's result instead of sending its own to OpenSearch. Searches are only joined while in flight,
+ * so no result is reused once it has been returned.
+ * <p>
+ * The share of searches answered this way is {@code search.coalesce.joined} over the sum of it and
+ * {@code search.coalesce.executed}.
+ */
+@Slf4j
+@Component
+public class SearchCoalescer {
+
+    private final boolean enabled;
+
+    private final Map<Map<String, Object>, CompletableFuture<Set<UUID>>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter executedCounter;
+
+    private final Counter joinedCounter;
+
+    public SearchCoalescer(MeterRegistry meterRegistry,
+                           @Value("${aws.es.search-coalescing.enabled:false}") boolean enabled) {
+        this.enabled = enabled;
+        this.executedCounter = Counter.builder("search.coalesce.executed")
+            .description("Searches sent to OpenSearch while coalescing identical searches")
+            .register(meterRegistry);
+        this.joinedCounter = Counter.builder("search.coalesce.joined")
+            .description("Searches answered by an identical search already in flight")
+            .register(meterRegistry);
+        if (enabled) {
+            log.info("Coalescing identical concurrent searches");
+        }
+    }
+
+    /**
+     * @return the result of the identical search in flight, or the result of running the search
+     */
+    public Set<UUID> search(SearchRequest request, Supplier<Set<UUID>> search) {
+        if (!enabled) {
+            return search.get();
+        }
+
+        var flight = new CompletableFuture<Set<UUID>>();
+        var key = SearchResultCache.key(request);
+        var running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            joinedCounter.increment();
+            return join(running);
+        }
+
+        executedCounter.increment();
+        try {
+            Set<UUID> result = Collections.unmodifiableSet(search.get());
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * @return the future result of the identical search in flight, or of running the search
+     */
+    public CompletableFuture<Set<UUID>> searchAsync(SearchRequest request,
+                                                    Supplier<CompletableFuture<Set<UUID>>> search) {
+        if (!enabled) {
+            return search.get();
+        }
+
+        var flight = new CompletableFuture<Set<UUID>>();
+        var key = SearchResultCache.key(request);
+        var running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            joinedCounter.increment();
+            return running;
+        }
+
+        executedCounter.increment();
+        CompletableFuture<Set<UUID>> result;
+        try {
+            result = search.get();
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        result.whenComplete((found, e) -> {
+            inFlight.remove(key, flight);
+            if (e != null) {
+                flight.completeExceptionally(e);
+            } else {
+                flight.complete(Collections.unmodifiableSet(found));
+            }
+        });
+        return flight;
+    }
+
+    private static Set<UUID> join(CompletableFuture<Set<UUID>> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+}
@@ -0,0 +1,237 @@
+package uk.gov.digital.ho.hocs.search.api;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import uk.gov.digital.ho.hocs.search.api.dto.SearchRequest;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Caches search results by the normalised search request, up to {@code size} results for {@code ttl} milliseconds.
+ * Results for a case type are invalidated whenever a change to a case of that type is written from this process.
+ * Changes written by a consumer running in another process are not seen, so without the {@code consumer} profile
+ * results are only kept for the shorter {@code remote-ttl}.
+ * <p>
+ * Writes take up to the index refresh interval to become searchable, so results are not cached for searches started
+ * within {@code refresh-interval} milliseconds of an invalidation of any of their case types.
+ */
+@Slf4j
+@Component
+public class SearchResultCache {
+
+    private final int size;
+
+    private final long ttl;
+
+    private final long refreshInterval;
+
+    private final LongSupplier nanoTime;
+
+    private final Map<Map<String, Object>, Entry> entries;
+
+    private final Map<String, Long> invalidatedAt = new HashMap<>();
+
+    private final Counter hitCounter;
+
+    private final Counter missCounter;
+
+    private final Counter invalidationCounter;
+
+    @Autowired
+    public SearchResultCache(MeterRegistry meterRegistry,
+                             Environment environment,
+                             @Value("${aws.es.search-cache.size:0}") int size,
+                             @Value("${aws.es.search-cache.ttl:60000}") long ttl,
+                             @Value("${aws.es.search-cache.remote-ttl:5000}") long remoteTtl,
+                             @Value("${aws.es.search-cache.refresh-interval:1000}") long refreshInterval) {
+        this(meterRegistry, size,
+            environment.acceptsProfiles(Profiles.of("consumer")) ? ttl : Math.min(ttl, remoteTtl), refreshInterval,
+            System::nanoTime);
+    }
+
+    SearchResultCache(MeterRegistry meterRegistry, int size, long ttl, long refreshInterval, LongSupplier nanoTime) {
+        this.size = size;
+        this.ttl = TimeUnit.MILLISECONDS.toNanos(ttl);
+        this.refreshInterval = TimeUnit.MILLISECONDS.toNanos(refreshInterval);
+        this.nanoTime = nanoTime;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Map<String, Object>, Entry> eldest) {
+                return size() > size;
+            }
+        };
+        this.hitCounter = Counter.builder("search.cache.hits")
+            .description("Searches answered from the result cache")
+            .register(meterRegistry);
+        this.missCounter = Counter.builder("search.cache.misses")
+            .description("Searches not found in the result cache")
+            .register(meterRegistry);
+        this.invalidationCounter = Counter.builder("search.cache.invalidations")
+            .description("Case type invalidations of the result cache")
+            .register(meterRegistry);
+        Gauge.builder("search.cache.size", this, SearchResultCache::getSize)
+            .description("Search results held in the result cache")
+            .register(meterRegistry);
+        if (isEnabled()) {
+            log.info("Caching up to {} search results for {}ms", size, ttl);
+        }
+    }
+
+    /**
+     * @return the cached result of the search, or the result of running it
+     */
+    public Set<UUID> get(SearchRequest request, Supplier<Set<UUID>> search) {
+        if (!isEnabled()) {
+            return search.get();
+        }
+
+        Map<String, Object> key = key(request);
+        long started = nanoTime.getAsLong();
+        Set<UUID> cached = lookup(key, started);
+        if (cached != null) {
+            return cached;
+        }
+        return store(key, request, started, search.get());
+    }
+
+    /**
+     * @return the cached result of the search, or a future result of running it
+     */
+    public CompletableFuture<Set<UUID>> getAsync(SearchRequest request,
+                                                 Supplier<CompletableFuture<Set<UUID>>> search) {
+        if (!isEnabled()) {
+            return search.get();
+        }
+
+        Map<String, Object> key = key(request);
+        long started = nanoTime.getAsLong();
+        Set<UUID> cached = lookup(key, started);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return search.get().thenApply(result -> store(key, request, started, result));
+    }
+
+    private Set<UUID> lookup(Map<String, Object> key, long started) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && started - entry.expiresAt < 0) {
+                hitCounter.increment();
+                return entry.result;
+            }
+            if (entry != null) {
+                entries.remove(key);
+            }
+        }
+
+        missCounter.increment();
+        return null;
+    }
+
+    private Set<UUID> store(Map<String, Object> key, SearchRequest request, long started, Set<UUID> found) {
+        Set<UUID> result = Collections.unmodifiableSet(found);
+
+        List<String> caseTypes = request.getCaseTypes().stream()
+            .map(caseType -> caseType.toUpperCase(Locale.ROOT))
+            .toList();
+        synchronized (entries) {
+            if (caseTypes.stream().noneMatch(caseType -> isRecentlyInvalidated(caseType, started))) {
+                entries.put(key, new Entry(result, caseTypes, started + ttl));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Drops the results of searches for the case type, for when a case of that type has been written.
+     */
+    public void invalidate(String caseType) {
+        if (!isEnabled() || caseType == null) {
+            return;
+        }
+
+        String normalised = caseType.toUpperCase(Locale.ROOT);
+        synchronized (entries) {
+            invalidatedAt.put(normalised, nanoTime.getAsLong());
+            entries.values().removeIf(entry -> entry.caseTypes.contains(normalised));
+        }
+        invalidationCounter.increment();
+    }
+
+    public int getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private boolean isEnabled() {
+        return size > 0 && ttl > 0;
+    }
+
+    private boolean isRecentlyInvalidated(String caseType, long started) {
+        Long invalidated = invalidatedAt.get(caseType);
+        return invalidated != null && started - invalidated < refreshInterval;
+    }
+
+    /**
+     * Normalises the request to the fields that change its result: empty fields are ignored and the order of the case
+     * types, which are searched separately and joined, does not matter.
+     */
+    static Map<String, Object> key(SearchRequest request) {
+        Map<String, Object> key = new TreeMap<>();
+        key.put("caseTypes", request.getCaseTypes().stream()
+            .distinct()
+            .sorted()
+            .toList());
+        putText(key, "reference", request.getReference());
+        if (request.getDateReceived() != null) {
+            putText(key, "dateReceivedFrom", request.getDateReceived().getFrom());
+            putText(key, "dateReceivedTo", request.getDateReceived().getTo());
+        }
+        putText(key, "correspondentAddress1", request.getCorrespondentAddress1());
+        putText(key, "correspondentEmail", request.getCorrespondentEmail());
+        putText(key, "correspondentName", request.getCorrespondentName());
+        putText(key, "correspondentNameNotMember", request.getCorrespondentNameNotMember());
+        putText(key, "correspondentPostcode", request.getCorrespondentPostcode());
+        putText(key, "correspondentReference", request.getCorrespondentReference());
+        putText(key, "correspondentExternalKey", request.getCorrespondentExternalKey());
+        putText(key, "topic", request.getTopic());
+        putText(key, "privateOfficeTeamUuid", request.getPrivateOfficeTeamUuid());
+        if (request.getData() != null) {
+            request.getData().forEach((field, value) -> putText(key, "data." + field, value));
+        }
+        if (Boolean.TRUE.equals(request.getActiveOnly())) {
+            key.put("activeOnly", true);
+        }
+        return key;
+    }
+
+    private static void putText(Map<String, Object> key, String field, String value) {
+        if (StringUtils.hasLength(value)) {
+            key.put(field, value);
+        }
+    }
+
+    private record Entry(Set<UUID> result, List<String> caseTypes, long expiresAt) {}
+
+}
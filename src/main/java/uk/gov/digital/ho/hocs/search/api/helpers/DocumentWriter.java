@@ -0,0 +1,70 @@
+package uk.gov.digital.ho.hocs.search.api.helpers;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import uk.gov.digital.ho.hocs.search.client.JsonDocument;
+import uk.gov.digital.ho.hocs.search.domain.model.CaseData;
+import uk.gov.digital.ho.hocs.search.domain.model.CorrespondentCaseData;
+import uk.gov.digital.ho.hocs.search.domain.model.SomuCaseData;
+import uk.gov.digital.ho.hocs.search.domain.model.TopicCaseData;
+
+/**
+ * Serialises case documents straight to JSON bytes, leaving out the same top level fields as
+ * {@link ObjectMapperConverterHelper#convertObjectToMap}: nulls, empty strings and {@code completed} when false.
+ */
+public class DocumentWriter {
+
+    private static final String FILTER = "document";
+
+    private final ObjectWriter writer;
+
+    public DocumentWriter(ObjectMapper objectMapper) {
+        this.writer = objectMapper.copy()
+            .addMixIn(CaseData.class, Filtered.class)
+            .addMixIn(CorrespondentCaseData.class, Filtered.class)
+            .addMixIn(TopicCaseData.class, Filtered.class)
+            .addMixIn(SomuCaseData.class, Filtered.class)
+            .writer(new SimpleFilterProvider().addFilter(FILTER, new RedundantFieldFilter()))
+            .without(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    public JsonDocument write(Object document) {
+        try {
+            return new JsonDocument(writer.writeValueAsBytes(document));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(String.format("Unable to serialise %s", document.getClass()), e);
+        }
+    }
+
+    @JsonFilter(FILTER)
+    private abstract static class Filtered {}
+
+    private static class RedundantFieldFilter extends SimpleBeanPropertyFilter {
+
+        @Override
+        public void serializeAsField(Object pojo,
+                                     JsonGenerator generator,
+                                     SerializerProvider provider,
+                                     PropertyWriter writer) throws Exception {
+            if (writer instanceof BeanPropertyWriter beanWriter) {
+                Object value = beanWriter.get(pojo);
+                if (value == null || "".equals(value)
+                    || ("completed".equals(writer.getName()) && Boolean.FALSE.equals(value))) {
+                    return;
+                }
+            }
+            writer.serializeAsField(pojo, generator, provider);
+        }
+
+    }
+
+}
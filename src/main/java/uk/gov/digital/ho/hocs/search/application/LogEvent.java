@@ -4,9 +4,16 @@ public enum LogEvent {
     CASE_NOT_FOUND,
     CASE_SAVE_FAILED,
     CASE_TYPE_MAPPING_NOT_FOUND,
+    CASE_UPDATE_CONFLICT,
     CASE_UPDATE_FAILED,
+    CASE_UPDATE_STALE,
     CONFIG_PARSE_FAILURE,
+    MAPPING_UPDATE_FAILED,
     NULL_SEARCH_MESSAGE_TYPE,
+    SCRIPT_STORE_FAILED,
+    SEARCH_BACKFILL_FAILED,
+    SEARCH_BACKFILL_STARTED,
+    SEARCH_BULK_UPDATED,
     SEARCH_CASE_CREATED,
     SEARCH_CASE_COMPLETED,
     SEARCH_CASE_DELETED,
@@ -14,6 +21,8 @@ public enum LogEvent {
     SEARCH_CORRESPONDENT_CREATED,
     SEARCH_CORRESPONDENT_DELETED,
     SEARCH_CORRESPONDENT_UPDATED,
+    SEARCH_MESSAGE_DECODE_FAILED,
+    SEARCH_MESSAGE_PROCESSING_FAILED,
     SEARCH_TOPIC_CREATED,
     SEARCH_TOPIC_DELETED,
     SEARCH_REQUEST,
@@ -2,15 +2,16 @@ package uk.gov.digital.ho.hocs.search.application;
 
 import org.slf4j.MDC;
 import org.springframework.stereotype.Component;
-import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
 import org.springframework.web.servlet.ModelAndView;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import java.util.Map;
 import java.util.UUID;
 
 @Component
-public class RequestData implements HandlerInterceptor {
+public class RequestData implements AsyncHandlerInterceptor {
 
     public static final String CORRELATION_ID_HEADER = "X-Correlation-Id";
 
@@ -22,13 +23,22 @@ public class RequestData implements HandlerInterceptor {
 
     private static final String ANONYMOUS = "anonymous";
 
+    private static final String CONTEXT_ATTRIBUTE = RequestData.class.getName() + ".context";
+
     private static boolean isNullOrEmpty(String value) {
         return value == null || value.equals("");
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
         MDC.clear();
+        // an asynchronous request is handled again once its result is ready, with the data it started with
+        if (request.getAttribute(CONTEXT_ATTRIBUTE) instanceof Map<?, ?> context) {
+            MDC.setContextMap((Map<String, String>) context);
+            return true;
+        }
+
         MDC.put(CORRELATION_ID_HEADER, initialiseCorrelationId(request));
         MDC.put(USER_ID_HEADER, initialiseUserId(request));
         MDC.put(USERNAME_HEADER, initialiseUserName(request));
@@ -45,6 +55,14 @@ public class RequestData implements HandlerInterceptor {
         MDC.clear();
     }
 
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request,
+                                               HttpServletResponse response,
+                                               Object handler) {
+        request.setAttribute(CONTEXT_ATTRIBUTE, MDC.getCopyOfContextMap());
+        MDC.clear();
+    }
+
     @Override
     public void afterCompletion(HttpServletRequest request,
                                 HttpServletResponse response,
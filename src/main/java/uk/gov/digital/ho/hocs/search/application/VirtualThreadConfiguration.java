@@ -0,0 +1,35 @@
+package uk.gov.digital.ho.hocs.search.application;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.undertow.UndertowServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+/**
+ * Runs HTTP requests and SQS messages on virtual threads, so that requests blocked on OpenSearch do not hold a platform
+ * thread each. Needs Java 21 or later; startup fails on earlier versions rather than silently using platform threads.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "spring.threads.virtual", name = "enabled", havingValue = "true")
+public class VirtualThreadConfiguration {
+
+    public static final String SQS_LISTENER_EXECUTOR = "sqsListenerExecutor";
+
+    @Bean
+    public WebServerFactoryCustomizer<UndertowServletWebServerFactory> virtualThreadUndertowCustomizer() {
+        var executor = VirtualThreads.newExecutor("undertow-");
+        log.info("Handling requests on virtual threads");
+        return factory -> factory.addDeploymentInfoCustomizers(deploymentInfo -> deploymentInfo.setExecutor(executor));
+    }
+
+    @Bean(SQS_LISTENER_EXECUTOR)
+    public AsyncTaskExecutor sqsListenerExecutor() {
+        return new TaskExecutorAdapter(VirtualThreads.newExecutor("sqs-listener-"));
+    }
+
+}
@@ -0,0 +1,305 @@
+package uk.gov.digital.ho.hocs.search.application.aws;
+
+import com.amazonaws.services.sqs.AmazonSQSAsync;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.Message;
+import com.amazonaws.services.sqs.model.ReceiveMessageRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import uk.gov.digital.ho.hocs.search.api.CaseDataService;
+import uk.gov.digital.ho.hocs.search.application.queue.DataChange;
+import uk.gov.digital.ho.hocs.search.application.queue.DataChangeDecoder;
+import uk.gov.digital.ho.hocs.search.application.queue.DataChangeType;
+import uk.gov.digital.ho.hocs.search.client.DocumentUpdate;
+import uk.gov.digital.ho.hocs.search.domain.exceptions.ApplicationExceptions;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static net.logstash.logback.argument.StructuredArguments.value;
+import static uk.gov.digital.ho.hocs.search.application.LogEvent.EVENT;
+import static uk.gov.digital.ho.hocs.search.application.LogEvent.NULL_SEARCH_MESSAGE_TYPE;
+import static uk.gov.digital.ho.hocs.search.application.LogEvent.SEARCH_MESSAGE_DECODE_FAILED;
+import static uk.gov.digital.ho.hocs.search.application.LogEvent.SEARCH_MESSAGE_PROCESSING_FAILED;
+
+/**
+ * Receives messages from the search queue in batches and writes each batch to OpenSearch as a single bulk request.
+ * Messages are only deleted from the queue once their own bulk item has succeeded, anything else is left to be
+ * redelivered. Once a message for a case fails, the rest of the batch's messages for that case are left unprocessed,
+ * so that they are redelivered in order rather than applied ahead of it.
+ */
+@Slf4j
+@Service
+@Profile("consumer")
+@ConditionalOnProperty(prefix = "aws.sqs.search.batch", name = "enabled", havingValue = "true")
+public class BatchSearchListener implements SmartLifecycle {
+
+    private final AmazonSQSAsync amazonSqs;
+
+    private final DataChangeDecoder dataChangeDecoder;
+
+    private final CaseDataService caseDataService;
+
+    private final String queueUrl;
+
+    private final int batchSize;
+
+    private final int waitTime;
+
+    private final long backoff;
+
+    private final long maxBackoff;
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+        runnable -> new Thread(runnable, "search-batch-listener"));
+
+    private final Object pause = new Object();
+
+    private volatile boolean running;
+
+    public BatchSearchListener(AmazonSQSAsync amazonSqs,
+                               DataChangeDecoder dataChangeDecoder,
+                               CaseDataService caseDataService,
+                               @Value("${aws.sqs.search.url}") String queueUrl,
+                               @Value("${aws.sqs.search.batch.size}") int batchSize,
+                               @Value("${aws.sqs.search.batch.wait-time}") int waitTime,
+                               @Value("${aws.sqs.search.batch.backoff:1000}") long backoff,
+                               @Value("${aws.sqs.search.batch.max-backoff:30000}") long maxBackoff) {
+        this.amazonSqs = amazonSqs;
+        this.dataChangeDecoder = dataChangeDecoder;
+        this.caseDataService = caseDataService;
+        this.queueUrl = queueUrl;
+        this.batchSize = batchSize;
+        this.waitTime = waitTime;
+        this.backoff = backoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        executor.execute(this::poll);
+    }
+
+    /**
+     * Stops polling, and waits for the batch being written before the clients it uses are closed.
+     */
+    @Override
+    public void stop() {
+        halt();
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("Stopped waiting for the batch in flight from {}", queueUrl);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stops polling, calling back once the batch being written has finished rather than blocking the shutdown of other
+     * beans in the meantime.
+     */
+    @Override
+    public void stop(Runnable callback) {
+        halt();
+        if (executor.isShutdown()) {
+            callback.run();
+            return;
+        }
+        // the single thread only runs the callback once the poll loop has returned
+        executor.execute(callback);
+        executor.shutdown();
+    }
+
+    private void halt() {
+        running = false;
+        synchronized (pause) {
+            pause.notifyAll();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Receives until stopped. After a failure to reach the queue the next poll waits for {@code backoff} milliseconds,
+     * doubling with each further failure up to {@code max-backoff}, so an unreachable queue is not polled in a loop.
+     */
+    private void poll() {
+        long delay = 0;
+        while (running) {
+            try {
+                var receiveRequest = new ReceiveMessageRequest(queueUrl)
+                    .withMaxNumberOfMessages(batchSize)
+                    .withAttributeNames(SentTimestamps.SENT_TIMESTAMP)
+                    .withWaitTimeSeconds(waitTime);
+                var messages = amazonSqs.receiveMessage(receiveRequest).getMessages();
+
+                if (!messages.isEmpty()) {
+                    onDataChange(messages);
+                }
+                delay = 0;
+            } catch (RuntimeException e) {
+                delay = delay == 0 ? backoff : Math.min(delay * 2, maxBackoff);
+                log.error("Failed to receive messages from {}, retrying in {}ms. {}", queueUrl, delay, e.toString(),
+                    value(EVENT, SEARCH_MESSAGE_PROCESSING_FAILED));
+                pause(delay);
+            }
+        }
+    }
+
+    private void pause(long delay) {
+        synchronized (pause) {
+            if (!running) {
+                return;
+            }
+            try {
+                pause.wait(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+        }
+    }
+
+    public void onDataChange(List<Message> messages) {
+        var batch = new PendingBatch();
+        List<Message> processed = new ArrayList<>();
+
+        for (Message message : messages) {
+            DataChange change;
+            try {
+                change = dataChangeDecoder.decode(message.getBody());
+            } catch (JsonProcessingException | IllegalArgumentException e) {
+                log.warn("Unable to read message {}. {}", message.getMessageId(), e.toString(),
+                    value(EVENT, SEARCH_MESSAGE_DECODE_FAILED));
+                continue;
+            }
+
+            DataChangeType type = change.getDataChangeType();
+            if (type == null) {
+                log.debug("Skipping message, message Type: {}", change.getType(),
+                    value(EVENT, NULL_SEARCH_MESSAGE_TYPE));
+                processed.add(message);
+                continue;
+            }
+
+            if (batch.hasFailed(change.getCaseUUID())) {
+                log.debug("Leaving message {} for redelivery after an earlier failure for case {}",
+                    message.getMessageId(), change.getCaseUUID());
+                continue;
+            }
+
+            // events built from the indexed document must see any earlier write for the same case
+            if (caseDataService.requiresCurrentDocument(type) && batch.containsCase(change.getCaseUUID())) {
+                processed.addAll(batch.flush());
+            }
+
+            try {
+                Instant eventTime = SentTimestamps.toInstant(
+                    message.getAttributes().get(SentTimestamps.SENT_TIMESTAMP));
+                batch.add(message, caseDataService.prepareUpdate(type, change.getCaseUUID(), change.getData(),
+                    eventTime));
+            } catch (RuntimeException e) {
+                log.warn("Unable to process message {}. {}", message.getMessageId(), e.toString(),
+                    value(EVENT, SEARCH_MESSAGE_PROCESSING_FAILED));
+                batch.fail(change.getCaseUUID());
+            }
+        }
+
+        processed.addAll(batch.flush());
+        acknowledge(processed);
+    }
+
+    private void acknowledge(List<Message> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        List<DeleteMessageBatchRequestEntry> entries = new ArrayList<>();
+        for (int i = 0; i < messages.size(); i++) {
+            entries.add(new DeleteMessageBatchRequestEntry(String.valueOf(i), messages.get(i).getReceiptHandle()));
+        }
+
+        var deleteResult = amazonSqs.deleteMessageBatch(queueUrl, entries);
+        deleteResult.getFailed().forEach(failure -> log.warn("Unable to delete message {}. {}",
+            messages.get(Integer.parseInt(failure.getId())).getMessageId(), failure.getMessage()));
+    }
+
+    private class PendingBatch {
+
+        private final List<Message> messages = new ArrayList<>();
+
+        private final List<DocumentUpdate> updates = new ArrayList<>();
+
+        private final Set<UUID> failedCases = new HashSet<>();
+
+        void add(Message message, DocumentUpdate update) {
+            messages.add(message);
+            updates.add(update);
+        }
+
+        boolean containsCase(UUID caseUUID) {
+            return updates.stream().anyMatch(update -> update.getDocumentId().equals(caseUUID));
+        }
+
+        void fail(UUID caseUUID) {
+            failedCases.add(caseUUID);
+        }
+
+        boolean hasFailed(UUID caseUUID) {
+            return failedCases.contains(caseUUID);
+        }
+
+        /**
+         * @return the messages whose updates were written, leaving out any written after an earlier failure for the
+         * same case
+         */
+        List<Message> flush() {
+            List<Message> written = new ArrayList<>();
+            if (updates.isEmpty()) {
+                return written;
+            }
+
+            try {
+                var results = caseDataService.bulkUpdate(updates);
+                for (int i = 0; i < results.size(); i++) {
+                    UUID caseUUID = updates.get(i).getDocumentId();
+                    if (!results.get(i)) {
+                        fail(caseUUID);
+                    } else if (!hasFailed(caseUUID)) {
+                        written.add(messages.get(i));
+                    }
+                }
+            } catch (ApplicationExceptions.ResourceServerException e) {
+                log.warn("Unable to write batch of {} messages. {}", messages.size(), e.getMessage(),
+                    value(EVENT, SEARCH_MESSAGE_PROCESSING_FAILED));
+                updates.forEach(update -> fail(update.getDocumentId()));
+            }
+
+            messages.clear();
+            updates.clear();
+            return written;
+        }
+
+    }
+
+}
@@ -1,10 +1,12 @@
 package uk.gov.digital.ho.hocs.search.application.aws;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.aws.messaging.listener.Acknowledgment;
 import org.springframework.cloud.aws.messaging.listener.SqsMessageDeletionPolicy;
 import org.springframework.cloud.aws.messaging.listener.annotation.SqsListener;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Service;
 import uk.gov.digital.ho.hocs.search.api.CaseDataService;
 import uk.gov.digital.ho.hocs.search.api.dto.CorrespondentDetailsDto;
@@ -15,93 +17,114 @@ import uk.gov.digital.ho.hocs.search.api.dto.DeleteTopicRequest;
 import uk.gov.digital.ho.hocs.search.api.dto.SomuItemDto;
 import uk.gov.digital.ho.hocs.search.api.dto.UpdateCaseRequest;
 import uk.gov.digital.ho.hocs.search.application.LogEvent;
-import uk.gov.digital.ho.hocs.search.application.queue.IndexDataChangeRequest;
+import uk.gov.digital.ho.hocs.search.application.queue.CaseUpdateCoalescer;
+import uk.gov.digital.ho.hocs.search.application.queue.DataChange;
+import uk.gov.digital.ho.hocs.search.application.queue.DataChangeDecoder;
 import uk.gov.digital.ho.hocs.search.application.queue.DataChangeType;
 import uk.gov.digital.ho.hocs.search.domain.exceptions.ApplicationExceptions;
 
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static net.logstash.logback.argument.StructuredArguments.value;
+import static uk.gov.digital.ho.hocs.search.application.LogEvent.EVENT;
+import static uk.gov.digital.ho.hocs.search.application.LogEvent.SEARCH_MESSAGE_PROCESSING_FAILED;
+
 @Slf4j
 @Service
+@ConditionalOnProperty(prefix = "aws.sqs.search.batch", name = "enabled", havingValue = "false", matchIfMissing = true)
 public class SearchListener {
 
-    private final ObjectMapper objectMapper;
+    private final DataChangeDecoder dataChangeDecoder;
 
     private final CaseDataService caseDataService;
 
-    public SearchListener(ObjectMapper objectMapper, CaseDataService caseDataService) {
-        this.objectMapper = objectMapper;
+    private final CaseUpdateCoalescer caseUpdateCoalescer;
+
+    public SearchListener(DataChangeDecoder dataChangeDecoder,
+                          CaseDataService caseDataService,
+                          CaseUpdateCoalescer caseUpdateCoalescer) {
+        this.dataChangeDecoder = dataChangeDecoder;
         this.caseDataService = caseDataService;
+        this.caseUpdateCoalescer = caseUpdateCoalescer;
     }
 
-    @SqsListener(value = "${aws.sqs.search.url}", deletionPolicy = SqsMessageDeletionPolicy.ON_SUCCESS)
-    public void onDataChange(String message) throws JsonProcessingException {
-        IndexDataChangeRequest request = objectMapper.readValue(message, IndexDataChangeRequest.class);
+    /**
+     * Acknowledges, and so deletes, the message once its event has been processed on its case's lane, or once the
+     * update it was merged into has been written. While the coalescer is holding updates, or events run on more than
+     * one lane, the next message is taken without waiting, so that updates to the same case in later messages can be
+     * merged and other cases processed in parallel.
+     */
+    @SqsListener(value = "${aws.sqs.search.url}", deletionPolicy = SqsMessageDeletionPolicy.NEVER)
+    public void onDataChange(String message,
+                             @Header(value = SentTimestamps.SENT_TIMESTAMP, required = false) String sentTimestamp,
+                             Acknowledgment acknowledgment) throws JsonProcessingException {
+        DataChange change = dataChangeDecoder.decode(message);
+        Instant eventTime = SentTimestamps.toInstant(sentTimestamp);
 
-        DataChangeType type = DataChangeType.fromString(request.getType());
+        DataChangeType type = change.getDataChangeType();
 
-        if (type != null) {
-            switch (type) {
-                case CASE_CREATED:
-                    CreateCaseRequest createCaseRequest = objectMapper.readValue(request.getData(),
-                        CreateCaseRequest.class);
-                    caseDataService.createCase(request.getCaseUUID(), createCaseRequest);
-                    break;
-                case CASE_UPDATED:
-                    UpdateCaseRequest updateCaseRequest = objectMapper.readValue(request.getData(),
-                        UpdateCaseRequest.class);
-                    caseDataService.updateCase(request.getCaseUUID(), updateCaseRequest);
-                    break;
-                case CASE_DELETED:
-                    DeleteCaseRequest deleteCaseRequest = objectMapper.readValue(request.getData(),
-                        DeleteCaseRequest.class);
-                    caseDataService.deleteCase(request.getCaseUUID(), deleteCaseRequest);
-                    break;
-                case CASE_COMPLETED:
-                    caseDataService.completeCase(request.getCaseUUID());
-                    break;
-                case CORRESPONDENT_CREATED:
-                    CorrespondentDetailsDto correspondentCreated = objectMapper.readValue(request.getData(),
-                        CorrespondentDetailsDto.class);
-                    caseDataService.createCorrespondent(request.getCaseUUID(), correspondentCreated);
-                    break;
-                case CORRESPONDENT_UPDATED:
-                    CorrespondentDetailsDto correspondentUpdated = objectMapper.readValue(request.getData(),
-                        CorrespondentDetailsDto.class);
-                    caseDataService.updateCorrespondent(request.getCaseUUID(), correspondentUpdated);
-                    break;
-                case CORRESPONDENT_DELETED:
-                    CorrespondentDetailsDto correspondentDeleted = objectMapper.readValue(request.getData(),
-                        CorrespondentDetailsDto.class);
-                    caseDataService.deleteCorrespondent(request.getCaseUUID(), correspondentDeleted);
-                    break;
-                case CASE_TOPIC_CREATED:
-                    CreateTopicRequest createTopicRequest = objectMapper.readValue(request.getData(),
-                        CreateTopicRequest.class);
-                    caseDataService.createTopic(request.getCaseUUID(), createTopicRequest);
-                    break;
-                case CASE_TOPIC_DELETED:
-                    DeleteTopicRequest deleteTopicRequest = objectMapper.readValue(request.getData(),
-                        DeleteTopicRequest.class);
-                    caseDataService.deleteTopic(request.getCaseUUID(), deleteTopicRequest);
-                    break;
-                case SOMU_ITEM_CREATED:
-                    SomuItemDto createSomuItem = objectMapper.readValue(request.getData(), SomuItemDto.class);
-                    caseDataService.createSomuItem(request.getCaseUUID(), createSomuItem);
-                    break;
-                case SOMU_ITEM_UPDATED:
-                    SomuItemDto updateSomuItem = objectMapper.readValue(request.getData(), SomuItemDto.class);
-                    caseDataService.updateSomuItem(request.getCaseUUID(), updateSomuItem);
-                    break;
-                case SOMU_ITEM_DELETED:
-                    SomuItemDto deleteSomuItem = objectMapper.readValue(request.getData(), SomuItemDto.class);
-                    caseDataService.deleteSomuItem(request.getCaseUUID(), deleteSomuItem);
-                    break;
-                default:
-                    throw new ApplicationExceptions.InvalidEventTypeException(
-                        String.format("Missing Case statement: %s", request.getType()),
-                        LogEvent.UNKNOWN_SEARCH_MESSAGE_TYPE);
-            }
+        CompletableFuture<?> result;
+        if (type == DataChangeType.CASE_UPDATED) {
+            result = caseUpdateCoalescer.updateCase(change.getCaseUUID(), (UpdateCaseRequest) change.getData(),
+                eventTime);
+        } else if (type != null) {
+            result = caseUpdateCoalescer.dispatch(change.getCaseUUID(), () -> {
+                onDataChange(type, change.getCaseUUID(), change.getData(), eventTime);
+                return null;
+            });
+        } else {
+            log.debug("Skipping message, message Type: {}", change.getType(), LogEvent.NULL_SEARCH_MESSAGE_TYPE);
+            acknowledgment.acknowledge();
+            return;
+        }
+
+        if (caseUpdateCoalescer.isPipelined()) {
+            result.whenComplete((ignored, e) -> {
+                if (e == null) {
+                    acknowledgment.acknowledge();
+                } else {
+                    log.warn("Unable to process {} for case {}, leaving it to be redelivered. {}", type,
+                        change.getCaseUUID(), e.toString(), value(EVENT, SEARCH_MESSAGE_PROCESSING_FAILED));
+                }
+            });
         } else {
-            log.debug("Skipping message, message Type: {}", request.getType(), LogEvent.NULL_SEARCH_MESSAGE_TYPE);
+            await(result);
+            acknowledgment.acknowledge();
+        }
+    }
+
+    private void onDataChange(DataChangeType type, UUID caseUUID, Object data, Instant eventTime) {
+        switch (type) {
+            case CASE_CREATED -> caseDataService.createCase(caseUUID, (CreateCaseRequest) data, eventTime);
+            case CASE_DELETED -> caseDataService.deleteCase(caseUUID, (DeleteCaseRequest) data, eventTime);
+            case CASE_COMPLETED -> caseDataService.completeCase(caseUUID);
+            case CORRESPONDENT_CREATED ->
+                caseDataService.createCorrespondent(caseUUID, (CorrespondentDetailsDto) data, eventTime);
+            case CORRESPONDENT_UPDATED ->
+                caseDataService.updateCorrespondent(caseUUID, (CorrespondentDetailsDto) data, eventTime);
+            case CORRESPONDENT_DELETED ->
+                caseDataService.deleteCorrespondent(caseUUID, (CorrespondentDetailsDto) data, eventTime);
+            case CASE_TOPIC_CREATED -> caseDataService.createTopic(caseUUID, (CreateTopicRequest) data, eventTime);
+            case CASE_TOPIC_DELETED -> caseDataService.deleteTopic(caseUUID, (DeleteTopicRequest) data, eventTime);
+            case SOMU_ITEM_CREATED -> caseDataService.createSomuItem(caseUUID, (SomuItemDto) data, eventTime);
+            case SOMU_ITEM_UPDATED -> caseDataService.updateSomuItem(caseUUID, (SomuItemDto) data, eventTime);
+            case SOMU_ITEM_DELETED -> caseDataService.deleteSomuItem(caseUUID, (SomuItemDto) data, eventTime);
+            default -> throw new ApplicationExceptions.InvalidEventTypeException(
+                String.format("Missing Case statement: %s", type), LogEvent.UNKNOWN_SEARCH_MESSAGE_TYPE);
+        }
+    }
+
+    private static void await(CompletableFuture<?> future) {
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
         }
     }
 
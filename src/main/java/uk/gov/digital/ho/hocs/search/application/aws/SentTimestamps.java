@@ -0,0 +1,29 @@
+package uk.gov.digital.ho.hocs.search.application.aws;
+
+import java.time.Instant;
+
+/**
+ * Reads the time a message was sent to the queue, which is used as the time of the event it carries.
+ */
+final class SentTimestamps {
+
+    static final String SENT_TIMESTAMP = "SentTimestamp";
+
+    private SentTimestamps() {}
+
+    /**
+     * @return the time from the SentTimestamp attribute, or null if it is missing or unreadable
+     */
+    static Instant toInstant(String sentTimestamp) {
+        if (sentTimestamp == null) {
+            return null;
+        }
+
+        try {
+            return Instant.ofEpochMilli(Long.parseLong(sentTimestamp));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+}
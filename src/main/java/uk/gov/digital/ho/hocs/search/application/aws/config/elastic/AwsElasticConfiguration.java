@@ -1,9 +1,11 @@
 package uk.gov.digital.ho.hocs.search.application.aws.config.elastic;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.http.HttpHost;
 import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
 import org.opensearch.client.RestClient;
-import org.opensearch.client.RestClientBuilder;
 import org.opensearch.client.RestHighLevelClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -13,6 +15,7 @@ import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.auth.signer.Aws4Signer;
+import software.amazon.awssdk.regions.Region;
 
 @Configuration
 @Profile("aws")
@@ -23,17 +26,30 @@ public class AwsElasticConfiguration {
                                       @Value("${aws.es.serviceName}") String serviceName,
                                       @Value("${aws.region}") String region,
                                       @Value("${aws.es.access-key}") String accessKey,
-                                      @Value("${aws.es.secret-key}") String secretKey) {
-        Aws4Signer signer = Aws4Signer.create();
+                                      @Value("${aws.es.secret-key}") String secretKey,
+                                      @Value("${aws.es.streaming-signing:false}") boolean streamingSigning,
+                                      @Value("${aws.es.compression:false}") boolean compression,
+                                      MeterRegistry meterRegistry,
+                                      OpenSearchConnectionPool connectionPool) {
         AwsCredentialsProvider credentialsProvider = StaticCredentialsProvider.create(
             AwsBasicCredentials.create(accessKey, secretKey));
 
-        HttpRequestInterceptor interceptor = new AwsRequestSigningApacheInterceptor(serviceName, signer,
-            credentialsProvider, region);
-        RestClientBuilder builder = RestClient.builder(new HttpHost(host, -1, "https")).setHttpClientConfigCallback(
-            httpClientBuilder -> httpClientBuilder.useSystemProperties().addInterceptorLast(interceptor));
-
-        return new RestHighLevelClient(builder);
+        HttpRequestInterceptor interceptor = streamingSigning
+            ? new StreamingSigningInterceptor(
+                new StreamingAws4Signer(serviceName, credentialsProvider, Region.of(region)))
+            : new AwsRequestSigningApacheInterceptor(serviceName, Aws4Signer.create(), credentialsProvider, region);
+        WireBytesMetrics wireBytesMetrics = new WireBytesMetrics(meterRegistry, compression);
+        return new RestHighLevelClient(RestClient.builder(new HttpHost(host, -1, "https"))
+            .setRequestConfigCallback(connectionPool::configure)
+            .setHttpClientConfigCallback(httpClientBuilder -> {
+                HttpAsyncClientBuilder configured = connectionPool.configure(
+                        httpClientBuilder.useSystemProperties(), SSLIOSessionStrategy.getSystemDefaultStrategy())
+                    .setConnectionReuseStrategy(wireBytesMetrics)
+                    .addInterceptorFirst(wireBytesMetrics)
+                    .addInterceptorLast(interceptor);
+                // the body is compressed once before it is signed, and sent with its length rather than chunked
+                return compression ? RequestCompressingClient.wrap(configured) : configured;
+            }));
     }
 
 }
@@ -1,6 +1,9 @@
 package uk.gov.digital.ho.hocs.search.application.aws.config.elastic;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.http.HttpHost;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
 import org.opensearch.client.RestClient;
 import org.opensearch.client.RestHighLevelClient;
 import org.springframework.beans.factory.annotation.Value;
@@ -13,9 +16,22 @@ import org.springframework.context.annotation.Profile;
 public class LocalElasticConfiguration {
 
     @Bean(destroyMethod = "close")
-    public RestHighLevelClient client(@Value("${aws.es.host}") String host, @Value("${aws.es.port}") int port) {
-        return new RestHighLevelClient(
-            RestClient.builder(new HttpHost(host, port)).setPathPrefix("/opensearch/eu-west-2/decs"));
+    public RestHighLevelClient client(@Value("${aws.es.host}") String host,
+                                      @Value("${aws.es.port}") int port,
+                                      @Value("${aws.es.compression:false}") boolean compression,
+                                      MeterRegistry meterRegistry,
+                                      OpenSearchConnectionPool connectionPool) {
+        WireBytesMetrics wireBytesMetrics = new WireBytesMetrics(meterRegistry, compression);
+        return new RestHighLevelClient(RestClient.builder(new HttpHost(host, port))
+            .setPathPrefix("/opensearch/eu-west-2/decs")
+            .setRequestConfigCallback(connectionPool::configure)
+            .setHttpClientConfigCallback(httpClientBuilder -> {
+                HttpAsyncClientBuilder configured = connectionPool.configure(httpClientBuilder,
+                        SSLIOSessionStrategy.getDefaultStrategy())
+                    .setConnectionReuseStrategy(wireBytesMetrics)
+                    .addInterceptorFirst(wireBytesMetrics);
+                return compression ? RequestCompressingClient.wrap(configured) : configured;
+            }));
     }
 
 }
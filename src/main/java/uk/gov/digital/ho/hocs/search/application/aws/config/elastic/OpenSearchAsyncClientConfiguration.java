@@ -0,0 +1,26 @@
+package uk.gov.digital.ho.hocs.search.application.aws.config.elastic;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.opensearch.client.RestHighLevelClient;
+import org.opensearch.client.json.jackson.JacksonJsonpMapper;
+import org.opensearch.client.opensearch.OpenSearchAsyncClient;
+import org.opensearch.client.transport.rest_client.RestClientTransport;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The typed OpenSearch client, sending its requests through the low level client of the high level one, so they share
+ * its connection pool, signing and compression. Documents are read with the application's object mapper.
+ */
+@Configuration
+public class OpenSearchAsyncClientConfiguration {
+
+    // the low level client is closed along with the high level client that owns it
+    @Bean(destroyMethod = "")
+    public OpenSearchAsyncClient openSearchAsyncClient(RestHighLevelClient client, ObjectMapper objectMapper) {
+        return new OpenSearchAsyncClient(new RestClientTransport(client.getLowLevelClient(),
+            new JacksonJsonpMapper(objectMapper.copy().disable(SerializationFeature.INDENT_OUTPUT))));
+    }
+
+}
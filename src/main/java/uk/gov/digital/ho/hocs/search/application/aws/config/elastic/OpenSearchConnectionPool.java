@@ -0,0 +1,147 @@
+package uk.gov.digital.ho.hocs.search.application.aws.config.elastic;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToIntFunction;
+
+/**
+ * Builds the connection pool of the OpenSearch client with {@code max-total} connections, {@code max-per-route} to
+ * each node, on {@code io-threads} I/O reactor threads ({@code 0} for one per processor). Idle connections are kept
+ * for the time the server allows, up to {@code keep-alive} milliseconds when set.
+ * <p>
+ * The leased, pending, available and maximum connections of each route are published as gauges, registered when the
+ * first request is sent on the route.
+ */
+@Slf4j
+@Component
+public class OpenSearchConnectionPool {
+
+    private final MeterRegistry meterRegistry;
+
+    private final int maxTotal;
+
+    private final int maxPerRoute;
+
+    private final long keepAlive;
+
+    private final int ioThreads;
+
+    private final int connectTimeout;
+
+    private final int socketTimeout;
+
+    private final Set<HttpRoute> routes = ConcurrentHashMap.newKeySet();
+
+    public OpenSearchConnectionPool(MeterRegistry meterRegistry,
+                                    @Value("${aws.es.pool.max-total:30}") int maxTotal,
+                                    @Value("${aws.es.pool.max-per-route:10}") int maxPerRoute,
+                                    @Value("${aws.es.pool.keep-alive:0}") long keepAlive,
+                                    @Value("${aws.es.pool.io-threads:0}") int ioThreads,
+                                    @Value("${aws.es.pool.connect-timeout:1000}") int connectTimeout,
+                                    @Value("${aws.es.pool.socket-timeout:30000}") int socketTimeout) {
+        this.meterRegistry = meterRegistry;
+        this.maxTotal = maxTotal;
+        this.maxPerRoute = maxPerRoute;
+        this.keepAlive = keepAlive;
+        this.ioThreads = ioThreads;
+        this.connectTimeout = connectTimeout;
+        this.socketTimeout = socketTimeout;
+    }
+
+    /**
+     * Gives the client a new pool, connecting to https routes with the session strategy.
+     */
+    public HttpAsyncClientBuilder configure(HttpAsyncClientBuilder httpClientBuilder,
+                                            SchemeIOSessionStrategy httpsStrategy) {
+        var reactorConfig = IOReactorConfig.custom()
+            .setConnectTimeout(connectTimeout)
+            .setSoTimeout(socketTimeout);
+        if (ioThreads > 0) {
+            reactorConfig.setIoThreadCount(ioThreads);
+        }
+
+        PoolingNHttpClientConnectionManager connectionManager;
+        try {
+            connectionManager = new PoolingNHttpClientConnectionManager(
+                new DefaultConnectingIOReactor(reactorConfig.build()),
+                RegistryBuilder.<SchemeIOSessionStrategy>create()
+                    .register("http", NoopIOSessionStrategy.INSTANCE)
+                    .register("https", httpsStrategy)
+                    .build());
+        } catch (IOReactorException e) {
+            throw new UncheckedIOException(e);
+        }
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        log.info("Pooling up to {} OpenSearch connections, {} per route", maxTotal, maxPerRoute);
+
+        return httpClientBuilder
+            .setConnectionManager(connectionManager)
+            .setKeepAliveStrategy(this::keepAliveDuration)
+            .addInterceptorFirst(routeMetrics(connectionManager));
+    }
+
+    public RequestConfig.Builder configure(RequestConfig.Builder requestConfigBuilder) {
+        return requestConfigBuilder.setConnectTimeout(connectTimeout).setSocketTimeout(socketTimeout);
+    }
+
+    private long keepAliveDuration(HttpResponse response, HttpContext context) {
+        long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+        if (keepAlive <= 0) {
+            return duration;
+        }
+        return duration > 0 ? Math.min(duration, keepAlive) : keepAlive;
+    }
+
+    private HttpRequestInterceptor routeMetrics(PoolingNHttpClientConnectionManager connectionManager) {
+        return (HttpRequest request, HttpContext context) -> {
+            if (HttpClientContext.adapt(context).getHttpRoute() instanceof HttpRoute route && routes.add(route)) {
+                registerGauges(connectionManager, route);
+            }
+        };
+    }
+
+    private void registerGauges(PoolingNHttpClientConnectionManager connectionManager, HttpRoute route) {
+        registerGauge(connectionManager, route, "leased", PoolStats::getLeased);
+        registerGauge(connectionManager, route, "pending", PoolStats::getPending);
+        registerGauge(connectionManager, route, "available", PoolStats::getAvailable);
+        registerGauge(connectionManager, route, "max", PoolStats::getMax);
+    }
+
+    private void registerGauge(PoolingNHttpClientConnectionManager connectionManager,
+                               HttpRoute route,
+                               String state,
+                               ToIntFunction<PoolStats> stat) {
+        Gauge.builder("opensearch.client.pool.connections", connectionManager,
+                manager -> stat.applyAsInt(manager.getStats(route)))
+            .description("Connections to OpenSearch leased, pending a lease, available and allowed for each route")
+            .tag("route", route.getTargetHost().toURI())
+            .tag("state", state)
+            .register(meterRegistry);
+    }
+
+}
@@ -0,0 +1,156 @@
+package uk.gov.digital.ho.hocs.search.application.aws.config.elastic;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.nio.client.methods.HttpAsyncMethods;
+import org.apache.http.nio.protocol.HttpAsyncRequestProducer;
+import org.apache.http.nio.protocol.HttpAsyncResponseConsumer;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Wraps the HTTP client of the low level OpenSearch client to compress each request body once, into a repeatable gzip
+ * entity of known length, before the request reaches the interceptors. Signing then reads the same bytes that are
+ * sent, where the low level client's own compression compresses the body again each time it is read. Responses are
+ * asked to be compressed too, and the low level client decompresses them.
+ */
+public class RequestCompressingClient extends CloseableHttpAsyncClient {
+
+    private static final String GZIP = "gzip";
+
+    private final CloseableHttpAsyncClient client;
+
+    RequestCompressingClient(CloseableHttpAsyncClient client) {
+        this.client = client;
+    }
+
+    /**
+     * @return a builder of the client the given builder is configured for, compressing its requests. The low level
+     * client only calls {@code build} on the builder its HTTP client callback returns, so nothing else is configured
+     * through it.
+     */
+    public static HttpAsyncClientBuilder wrap(HttpAsyncClientBuilder configured) {
+        return new HttpAsyncClientBuilder() {
+            @Override
+            public CloseableHttpAsyncClient build() {
+                return new RequestCompressingClient(configured.build());
+            }
+        };
+    }
+
+    @Override
+    public <T> Future<T> execute(HttpAsyncRequestProducer requestProducer,
+                                 HttpAsyncResponseConsumer<T> responseConsumer,
+                                 HttpContext context,
+                                 FutureCallback<T> callback) {
+        return client.execute(compressed(requestProducer), responseConsumer, context, callback);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return client.isRunning();
+    }
+
+    @Override
+    public void start() {
+        client.start();
+    }
+
+    @Override
+    public void close() throws IOException {
+        client.close();
+    }
+
+    private static HttpAsyncRequestProducer compressed(HttpAsyncRequestProducer requestProducer) {
+        HttpRequest request;
+        try {
+            request = requestProducer.generateRequest();
+        } catch (IOException | HttpException e) {
+            // the client fails the request when it generates it in turn
+            return requestProducer;
+        }
+        if (!request.containsHeader(HttpHeaders.ACCEPT_ENCODING)) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, GZIP);
+        }
+
+        // a request retried on another node already holds its compressed body
+        if (!(request instanceof HttpEntityEnclosingRequest enclosingRequest) || enclosingRequest.getEntity() == null
+            || enclosingRequest.getEntity().getContentEncoding() != null) {
+            return requestProducer;
+        }
+        try {
+            enclosingRequest.setEntity(CompressedEntity.compress(enclosingRequest.getEntity()));
+        } catch (IOException e) {
+            return requestProducer;
+        }
+        // the producer sends the entity the request held when it was created
+        return HttpAsyncMethods.create(requestProducer.getTarget(), request);
+    }
+
+    /**
+     * A request body compressed with gzip, which keeps the length of the body before compression.
+     */
+    static final class CompressedEntity extends ByteArrayEntity {
+
+        private final long uncompressedLength;
+
+        private CompressedEntity(byte[] compressed, long uncompressedLength) {
+            super(compressed);
+            this.uncompressedLength = uncompressedLength;
+        }
+
+        static CompressedEntity compress(HttpEntity entity) throws IOException {
+            var compressed = new ByteArrayOutputStream();
+            var counting = new CountingOutputStream(new GZIPOutputStream(compressed));
+            try (counting) {
+                entity.writeTo(counting);
+            }
+
+            var compressedEntity = new CompressedEntity(compressed.toByteArray(), counting.count);
+            compressedEntity.setContentType(entity.getContentType());
+            compressedEntity.setContentEncoding(GZIP);
+            return compressedEntity;
+        }
+
+        long getUncompressedLength() {
+            return uncompressedLength;
+        }
+
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+    }
+
+}
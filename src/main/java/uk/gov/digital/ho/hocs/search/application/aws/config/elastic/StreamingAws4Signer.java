@@ -0,0 +1,256 @@
+package uk.gov.digital.ho.hocs.search.application.aws.config.elastic;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.utils.URLEncodedUtils;
+import org.apache.http.entity.BufferedHttpEntity;
+import software.amazon.awssdk.auth.credentials.AwsCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.AwsSessionCredentials;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.utils.http.SdkHttpUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Signs Apache HTTP requests with AWS Signature Version 4, producing the same signature as the SDK's
+ * {@link software.amazon.awssdk.auth.signer.Aws4Signer} without copying the request. The payload is hashed by writing
+ * the entity straight into the digest, so a repeatable entity, such as the byte array entities of the OpenSearch
+ * client, is neither read into memory nor replaced. Only an entity that cannot be written twice is buffered, once.
+ * <p>
+ * The signing key derived from the secret key, date, region and service is cached until the date or the credentials
+ * change.
+ */
+public class StreamingAws4Signer {
+
+    private static final String ALGORITHM = "AWS4-HMAC-SHA256";
+
+    private static final String TERMINATOR = "aws4_request";
+
+    private static final String HMAC_SHA256 = "HmacSHA256";
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'")
+        .withZone(ZoneOffset.UTC);
+
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyyMMdd").withZone(ZoneOffset.UTC);
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    /**
+     * Headers the SDK signer leaves unsigned, and headers replaced by signing.
+     */
+    private static final Set<String> UNSIGNED_HEADERS = Set.of("connection", "x-amzn-trace-id", "user-agent",
+        "expect", "host", "x-amz-date", "x-amz-security-token", "authorization");
+
+    private static final String EMPTY_PAYLOAD_HASH = HEX.formatHex(sha256().digest());
+
+    private final String service;
+
+    private final String region;
+
+    private final AwsCredentialsProvider awsCredentialsProvider;
+
+    private final Clock clock;
+
+    private volatile SigningKey signingKey;
+
+    public StreamingAws4Signer(String service, AwsCredentialsProvider awsCredentialsProvider, Region region) {
+        this(service, awsCredentialsProvider, region, Clock.systemUTC());
+    }
+
+    StreamingAws4Signer(String service, AwsCredentialsProvider awsCredentialsProvider, Region region, Clock clock) {
+        this.service = service;
+        this.region = region.id();
+        this.awsCredentialsProvider = awsCredentialsProvider;
+        this.clock = clock;
+    }
+
+    /**
+     * Adds the date, security token and authorization headers signing the request to the host.
+     */
+    public void sign(HttpRequest request, HttpHost host) throws IOException {
+        URI uri;
+        try {
+            uri = URI.create(request.getRequestLine().getUri());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid URI", e);
+        }
+
+        AwsCredentials credentials = awsCredentialsProvider.resolveCredentials();
+        Instant now = clock.instant();
+        String dateTime = DATE_TIME.format(now);
+        String date = DATE.format(now);
+        String hostHeader = hostHeader(host, uri);
+        String sessionToken = credentials instanceof AwsSessionCredentials session ? session.sessionToken() : null;
+
+        Map<String, List<String>> headers = canonicalHeaders(request.getAllHeaders());
+        headers.put("host", List.of(hostHeader));
+        headers.put("x-amz-date", List.of(dateTime));
+        if (sessionToken != null) {
+            headers.put("x-amz-security-token", List.of(sessionToken));
+        }
+        String signedHeaders = String.join(";", headers.keySet());
+
+        var canonicalRequest = new StringBuilder(256)
+            .append(request.getRequestLine().getMethod()).append('\n')
+            .append(canonicalPath(uri.getRawPath())).append('\n')
+            .append(canonicalQuery(uri.getRawQuery())).append('\n');
+        headers.forEach((name, values) -> canonicalRequest.append(name).append(':')
+            .append(String.join(",", values)).append('\n'));
+        canonicalRequest.append('\n').append(signedHeaders).append('\n').append(hashPayload(request));
+
+        String scope = date + '/' + region + '/' + service + '/' + TERMINATOR;
+        String stringToSign = ALGORITHM + '\n' + dateTime + '\n' + scope + '\n'
+            + HEX.formatHex(sha256().digest(canonicalRequest.toString().getBytes(StandardCharsets.UTF_8)));
+        String signature = HEX.formatHex(hmac(signingKey(credentials, date), stringToSign));
+
+        request.setHeader("Host", hostHeader);
+        request.setHeader("X-Amz-Date", dateTime);
+        if (sessionToken != null) {
+            request.setHeader("X-Amz-Security-Token", sessionToken);
+        }
+        request.setHeader("Authorization", ALGORITHM + " Credential=" + credentials.accessKeyId() + '/' + scope
+            + ", SignedHeaders=" + signedHeaders + ", Signature=" + signature);
+    }
+
+    private static String hostHeader(HttpHost host, URI uri) {
+        String hostName = host != null ? host.getHostName() : uri.getHost();
+        int port = host != null ? host.getPort() : uri.getPort();
+        String scheme = host != null ? host.getSchemeName() : uri.getScheme();
+        boolean standardPort = port == -1 || ("https".equals(scheme) && port == 443)
+            || ("http".equals(scheme) && port == 80);
+        return standardPort ? hostName : hostName + ':' + port;
+    }
+
+    /**
+     * @return the trimmed values of the signed headers by lower case name, in order
+     */
+    private static Map<String, List<String>> canonicalHeaders(Header[] headers) {
+        Map<String, List<String>> canonical = new TreeMap<>();
+        for (Header header : headers) {
+            String name = header.getName().toLowerCase(Locale.ROOT);
+            if (UNSIGNED_HEADERS.contains(name) || ("content-length".equals(name) && "0".equals(header.getValue()))) {
+                continue;
+            }
+            canonical.computeIfAbsent(name, k -> new ArrayList<>()).add(compact(header.getValue()));
+        }
+        return canonical;
+    }
+
+    private static String compact(String value) {
+        return value == null ? "" : value.trim().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Path segments are encoded again, as for every service but S3.
+     */
+    private static String canonicalPath(String rawPath) {
+        if (rawPath == null || rawPath.isEmpty()) {
+            return "/";
+        }
+        String encoded = SdkHttpUtils.urlEncodeIgnoreSlashes(rawPath);
+        return encoded.startsWith("/") ? encoded : "/" + encoded;
+    }
+
+    private static String canonicalQuery(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return "";
+        }
+
+        Map<String, List<String>> parameters = new TreeMap<>();
+        for (NameValuePair parameter : URLEncodedUtils.parse(rawQuery, StandardCharsets.UTF_8)) {
+            parameters.computeIfAbsent(SdkHttpUtils.urlEncode(parameter.getName()), k -> new ArrayList<>())
+                .add(parameter.getValue() == null ? "" : SdkHttpUtils.urlEncode(parameter.getValue()));
+        }
+
+        var query = new StringBuilder();
+        parameters.forEach((name, values) -> {
+            values.sort(null);
+            for (String value : values) {
+                if (!query.isEmpty()) {
+                    query.append('&');
+                }
+                query.append(name).append('=').append(value);
+            }
+        });
+        return query.toString();
+    }
+
+    /**
+     * Hashes the entity as it writes itself out, buffering it first only if it could not be written again to send.
+     */
+    private static String hashPayload(HttpRequest request) throws IOException {
+        if (!(request instanceof HttpEntityEnclosingRequest enclosingRequest) || enclosingRequest.getEntity() == null) {
+            return EMPTY_PAYLOAD_HASH;
+        }
+
+        HttpEntity entity = enclosingRequest.getEntity();
+        if (!entity.isRepeatable()) {
+            entity = new BufferedHttpEntity(entity);
+            enclosingRequest.setEntity(entity);
+        }
+        MessageDigest digest = sha256();
+        try (var out = new DigestOutputStream(OutputStream.nullOutputStream(), digest)) {
+            entity.writeTo(out);
+        }
+        return HEX.formatHex(digest.digest());
+    }
+
+    private byte[] signingKey(AwsCredentials credentials, String date) {
+        SigningKey cached = signingKey;
+        if (cached != null && cached.date.equals(date) && cached.secretKey.equals(credentials.secretAccessKey())) {
+            return cached.key;
+        }
+
+        byte[] key = ("AWS4" + credentials.secretAccessKey()).getBytes(StandardCharsets.UTF_8);
+        for (String part : List.of(date, region, service, TERMINATOR)) {
+            key = hmac(key, part);
+        }
+        signingKey = new SigningKey(credentials.secretAccessKey(), date, key);
+        return key;
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_SHA256);
+            mac.init(new SecretKeySpec(key, HMAC_SHA256));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record SigningKey(String secretKey, String date, byte[] key) {}
+
+}
@@ -0,0 +1,30 @@
+package uk.gov.digital.ho.hocs.search.application.aws.config.elastic;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import static org.apache.http.protocol.HttpCoreContext.HTTP_TARGET_HOST;
+
+/**
+ * An {@link HttpRequestInterceptor} that signs requests in place with a {@link StreamingAws4Signer}, so the request is
+ * neither copied into an SDK request nor given a new entity.
+ */
+public class StreamingSigningInterceptor implements HttpRequestInterceptor {
+
+    private final StreamingAws4Signer signer;
+
+    public StreamingSigningInterceptor(StreamingAws4Signer signer) {
+        this.signer = Objects.requireNonNull(signer);
+    }
+
+    @Override
+    public void process(HttpRequest request, HttpContext context) throws IOException {
+        signer.sign(request, (HttpHost) context.getAttribute(HTTP_TARGET_HOST));
+    }
+
+}
@@ -0,0 +1,84 @@
+package uk.gov.digital.ho.hocs.search.application.aws.config.elastic;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.http.ConnectionReuseStrategy;
+import org.apache.http.HttpConnection;
+import org.apache.http.HttpConnectionMetrics;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.impl.DefaultConnectionReuseStrategy;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpCoreContext;
+
+/**
+ * Counts the bytes sent to and received from OpenSearch by each request, headers included and before TLS, tagged by
+ * whether the client compresses its requests and asks for compressed responses. The counts are taken from the metrics
+ * of the connection once the whole response has been read, which is when the client decides whether to keep the
+ * connection alive, so they hold for chunked responses of unknown length too.
+ * <p>
+ * As a request interceptor, it also counts the length of each request body before it was compressed, so
+ * the compression ratio of requests can be read from the same traffic.
+ */
+public class WireBytesMetrics implements ConnectionReuseStrategy, HttpRequestInterceptor {
+
+    private final ConnectionReuseStrategy connectionReuseStrategy = DefaultConnectionReuseStrategy.INSTANCE;
+
+    private final Counter sentCounter;
+
+    private final Counter receivedCounter;
+
+    private final Counter sentEntityCounter;
+
+    public WireBytesMetrics(MeterRegistry meterRegistry, boolean compression) {
+        String compressionTag = compression ? "gzip" : "none";
+        this.sentCounter = Counter.builder("opensearch.client.bytes")
+            .description("Bytes sent to OpenSearch")
+            .baseUnit("bytes")
+            .tag("direction", "sent")
+            .tag("compression", compressionTag)
+            .register(meterRegistry);
+        this.receivedCounter = Counter.builder("opensearch.client.bytes")
+            .description("Bytes received from OpenSearch")
+            .baseUnit("bytes")
+            .tag("direction", "received")
+            .tag("compression", compressionTag)
+            .register(meterRegistry);
+        this.sentEntityCounter = Counter.builder("opensearch.client.entity.bytes")
+            .description("Bytes of request bodies sent to OpenSearch, before compression")
+            .baseUnit("bytes")
+            .tag("direction", "sent")
+            .tag("compression", compressionTag)
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void process(HttpRequest request, HttpContext context) {
+        if (request instanceof HttpEntityEnclosingRequest enclosingRequest && enclosingRequest.getEntity() != null) {
+            // a body compressed before the interceptors see the request keeps the length it had before
+            HttpEntity entity = enclosingRequest.getEntity();
+            long length = entity instanceof RequestCompressingClient.CompressedEntity compressed
+                ? compressed.getUncompressedLength()
+                : entity.getContentLength();
+            if (length > 0) {
+                sentEntityCounter.increment(length);
+            }
+        }
+    }
+
+    @Override
+    public boolean keepAlive(HttpResponse response, HttpContext context) {
+        if (context.getAttribute(HttpCoreContext.HTTP_CONNECTION) instanceof HttpConnection connection) {
+            // only one request is in flight on a connection, so its counts are for this request alone once reset
+            HttpConnectionMetrics metrics = connection.getMetrics();
+            sentCounter.increment(metrics.getSentBytesCount());
+            receivedCounter.increment(metrics.getReceivedBytesCount());
+            metrics.reset();
+        }
+        return connectionReuseStrategy.keepAlive(response, context);
+    }
+
+}
@@ -4,6 +4,8 @@ import com.amazonaws.auth.AWSStaticCredentialsProvider;
 import com.amazonaws.auth.BasicAWSCredentials;
 import com.amazonaws.services.sqs.AmazonSQSAsync;
 import com.amazonaws.services.sqs.AmazonSQSAsyncClientBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cloud.aws.messaging.config.SimpleMessageListenerContainerFactory;
@@ -12,6 +14,11 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import uk.gov.digital.ho.hocs.search.application.queue.CaseLaneDispatcher;
+
+import static uk.gov.digital.ho.hocs.search.application.VirtualThreadConfiguration.SQS_LISTENER_EXECUTOR;
 
 @EnableSqs
 @Configuration
@@ -29,11 +36,18 @@ public class AwsSqsConfiguration {
 
     @Primary
     @Bean
-    public SimpleMessageListenerContainerFactory simpleMessageListenerContainerFactory(AmazonSQSAsync amazonSqs) {
+    public SimpleMessageListenerContainerFactory simpleMessageListenerContainerFactory(
+        AmazonSQSAsync amazonSqs,
+        CaseLaneDispatcher caseLaneDispatcher,
+        @Qualifier(SQS_LISTENER_EXECUTOR) ObjectProvider<AsyncTaskExecutor> listenerExecutor) {
         SimpleMessageListenerContainerFactory factory = new SimpleMessageListenerContainerFactory();
 
         factory.setAmazonSqs(amazonSqs);
-        factory.setMaxNumberOfMessages(1);
+        // messages from each receive are handed to their lanes one after the other, in the order received
+        factory.setTaskExecutor(new ReceiveOrderTaskExecutor(
+            listenerExecutor.getIfAvailable(() -> new SimpleAsyncTaskExecutor("sqs-listener-"))));
+        // a message per lane from each receive, up to the most SQS will return at once
+        factory.setMaxNumberOfMessages(Math.min(caseLaneDispatcher.getLaneCount(), 10));
 
         return factory;
     }
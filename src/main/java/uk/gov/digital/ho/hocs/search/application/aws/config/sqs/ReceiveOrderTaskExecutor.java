@@ -0,0 +1,62 @@
+package uk.gov.digital.ho.hocs.search.application.aws.config.sqs;
+
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Task executor for the SQS listener container that runs each queue's receive loop on a thread of its own, and the
+ * messages from each receive on that same thread, one after the other in the order they were received.
+ * <p>
+ * The container otherwise runs every message from a receive on its own thread, so two events for the same case could
+ * reach their lane in either order. Handlers are expected to hand their work to a lane and return without waiting.
+ */
+public class ReceiveOrderTaskExecutor implements AsyncTaskExecutor {
+
+    private static final ThreadLocal<Boolean> RECEIVING = ThreadLocal.withInitial(() -> false);
+
+    private final AsyncTaskExecutor receivers;
+
+    public ReceiveOrderTaskExecutor(AsyncTaskExecutor receivers) {
+        this.receivers = receivers;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (RECEIVING.get()) {
+            task.run();
+            return;
+        }
+        receivers.execute(() -> {
+            RECEIVING.set(true);
+            try {
+                task.run();
+            } finally {
+                RECEIVING.remove();
+            }
+        });
+    }
+
+    @Override
+    @Deprecated
+    public void execute(Runnable task, long startTimeout) {
+        execute(task);
+    }
+
+    @Override
+    public Future<?> submit(Runnable task) {
+        FutureTask<Object> future = new FutureTask<>(task, null);
+        execute(future);
+        return future;
+    }
+
+    @Override
+    public <T> Future<T> submit(Callable<T> task) {
+        FutureTask<T> future = new FutureTask<>(task);
+        execute(future);
+        return future;
+    }
+
+}
@@ -0,0 +1,101 @@
+package uk.gov.digital.ho.hocs.search.application.queue;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.digital.ho.hocs.search.application.VirtualThreads;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs work for a case on one of a fixed number of single threaded lanes, chosen by the case UUID. Work for the same
+ * case is run in the order it was dispatched, while different cases are processed in parallel.
+ */
+@Slf4j
+@Component
+public class CaseLaneDispatcher {
+
+    private final List<Lane> lanes = new ArrayList<>();
+
+    public CaseLaneDispatcher(MeterRegistry meterRegistry,
+                              @Value("${aws.sqs.search.lanes:1}") int laneCount,
+                              @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        for (int i = 0; i < Math.max(laneCount, 1); i++) {
+            lanes.add(new Lane(i, meterRegistry, virtualThreads));
+        }
+        log.info("Dispatching search events across {} lanes", lanes.size());
+    }
+
+    public <T> CompletableFuture<T> dispatch(UUID caseUUID, Callable<T> work) {
+        return lanes.get(Math.floorMod(Objects.hashCode(caseUUID), lanes.size())).submit(work);
+    }
+
+    public int getLaneCount() {
+        return lanes.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        lanes.forEach(lane -> lane.executor.shutdown());
+    }
+
+    private static class Lane {
+
+        private final ExecutorService executor;
+
+        private final AtomicInteger depth = new AtomicInteger();
+
+        private final Timer timer;
+
+        Lane(int index, MeterRegistry meterRegistry, boolean virtualThreads) {
+            String lane = String.valueOf(index);
+            this.executor = Executors.newSingleThreadExecutor(virtualThreads
+                ? VirtualThreads.factory("search-lane-" + lane + "-")
+                : runnable -> new Thread(runnable, "search-lane-" + lane));
+            this.timer = Timer.builder("search.consumer.lane.time")
+                .description("Time spent processing events on a lane")
+                .tag("lane", lane)
+                .register(meterRegistry);
+            Gauge.builder("search.consumer.lane.depth", depth, AtomicInteger::get)
+                .description("Events waiting on or being processed by a lane")
+                .tag("lane", lane)
+                .register(meterRegistry);
+        }
+
+        <T> CompletableFuture<T> submit(Callable<T> work) {
+            CompletableFuture<T> result = new CompletableFuture<>();
+            depth.incrementAndGet();
+            try {
+                executor.execute(() -> {
+                    try {
+                        T value = timer.recordCallable(work);
+                        depth.decrementAndGet();
+                        result.complete(value);
+                    } catch (Exception e) {
+                        depth.decrementAndGet();
+                        result.completeExceptionally(e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                depth.decrementAndGet();
+                result.completeExceptionally(e);
+            }
+            return result;
+        }
+
+    }
+
+}
@@ -0,0 +1,220 @@
+package uk.gov.digital.ho.hocs.search.application.queue;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.digital.ho.hocs.search.api.CaseDataService;
+import uk.gov.digital.ho.hocs.search.api.dto.UpdateCaseRequest;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds case updates for a short window so that a burst of updates to the same case is merged and written once.
+ * Any other event for a case releases its held update first, so events for a case are still applied in order.
+ * <p>
+ * While holding, or while events run on more than one lane, callers are not expected to wait for each result, so at
+ * most {@code max-held} events are accepted before their writes have finished, after which callers block until one
+ * does.
+ */
+@Slf4j
+@Component
+public class CaseUpdateCoalescer {
+
+    private final CaseLaneDispatcher caseLaneDispatcher;
+
+    private final CaseDataService caseDataService;
+
+    private final long window;
+
+    private final Semaphore held;
+
+    private final Map<UUID, PendingUpdate> pending = new HashMap<>();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+        runnable -> new Thread(runnable, "search-coalescer"));
+
+    private final Counter foldedCounter;
+
+    private final DistributionSummary writeSummary;
+
+    public CaseUpdateCoalescer(CaseLaneDispatcher caseLaneDispatcher,
+                               CaseDataService caseDataService,
+                               MeterRegistry meterRegistry,
+                               @Value("${aws.sqs.search.coalesce.window:0}") long window,
+                               @Value("${aws.sqs.search.coalesce.max-held:100}") int maxHeld) {
+        this.caseLaneDispatcher = caseLaneDispatcher;
+        this.caseDataService = caseDataService;
+        this.window = window;
+        this.held = new Semaphore(maxHeld);
+        this.foldedCounter = Counter.builder("search.consumer.coalesce.folded")
+            .description("Case updates merged into an update already waiting to be written")
+            .register(meterRegistry);
+        this.writeSummary = DistributionSummary.builder("search.consumer.coalesce.events")
+            .description("Case updates applied by each coalesced write")
+            .register(meterRegistry);
+        if (window > 0) {
+            log.info("Coalescing case updates over {}ms, holding up to {}", window, maxHeld);
+        }
+    }
+
+    /**
+     * Whether callers should hand over the next event without waiting for the last one's result, either so that held
+     * updates can merge or so that events for different cases run on their lanes in parallel.
+     */
+    public boolean isPipelined() {
+        return window > 0 || caseLaneDispatcher.getLaneCount() > 1;
+    }
+
+    public CompletableFuture<Void> updateCase(UUID caseUUID, UpdateCaseRequest updateCaseRequest, Instant eventTime) {
+        if (window <= 0) {
+            return dispatch(caseUUID, () -> {
+                caseDataService.updateCase(caseUUID, updateCaseRequest, eventTime);
+                return null;
+            });
+        }
+
+        acquireHeld();
+        CompletableFuture<Void> result;
+        synchronized (pending) {
+            PendingUpdate update = pending.get(caseUUID);
+            if (update != null) {
+                foldedCounter.increment();
+                result = update.merge(updateCaseRequest, eventTime);
+            } else {
+                update = new PendingUpdate(caseUUID, updateCaseRequest, eventTime);
+                pending.put(caseUUID, update);
+                PendingUpdate scheduled = update;
+                scheduler.schedule(() -> release(scheduled), window, TimeUnit.MILLISECONDS);
+                result = scheduled.result;
+            }
+        }
+        result.whenComplete((ignored, e) -> held.release());
+        return result;
+    }
+
+    /**
+     * Runs any other work for a case once the update held for it, if any, has been written.
+     */
+    public <T> CompletableFuture<T> dispatch(UUID caseUUID, Callable<T> work) {
+        if (!isPipelined()) {
+            return caseLaneDispatcher.dispatch(caseUUID, work);
+        }
+
+        acquireHeld();
+        CompletableFuture<T> result;
+        synchronized (pending) {
+            PendingUpdate update = pending.get(caseUUID);
+            if (update != null) {
+                release(update);
+            }
+            result = caseLaneDispatcher.dispatch(caseUUID, work);
+        }
+        result.whenComplete((ignored, e) -> held.release());
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        synchronized (pending) {
+            new ArrayList<>(pending.values()).forEach(this::release);
+        }
+        scheduler.shutdown();
+    }
+
+    private void acquireHeld() {
+        try {
+            held.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for a held case update to be written", e);
+        }
+    }
+
+    private void release(PendingUpdate update) {
+        synchronized (pending) {
+            if (!pending.remove(update.caseUUID, update)) {
+                return;
+            }
+
+            writeSummary.record(update.events);
+            caseLaneDispatcher.dispatch(update.caseUUID, () -> {
+                caseDataService.updateCase(update.caseUUID, update.request, update.eventTime);
+                return null;
+            }).whenComplete((ignored, e) -> {
+                if (e == null) {
+                    update.result.complete(null);
+                } else {
+                    update.result.completeExceptionally(e);
+                }
+            });
+        }
+    }
+
+    private static class PendingUpdate {
+
+        private final UUID caseUUID;
+
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        private UpdateCaseRequest request;
+
+        private Instant eventTime;
+
+        private int events = 1;
+
+        PendingUpdate(UUID caseUUID, UpdateCaseRequest request, Instant eventTime) {
+            this.caseUUID = caseUUID;
+            this.request = request;
+            this.eventTime = eventTime;
+        }
+
+        CompletableFuture<Void> merge(UpdateCaseRequest later, Instant laterEventTime) {
+            request = merge(request, later);
+            if (eventTime == null || (laterEventTime != null && laterEventTime.isAfter(eventTime))) {
+                eventTime = laterEventTime;
+            }
+            events++;
+            return result;
+        }
+
+        private static UpdateCaseRequest merge(UpdateCaseRequest earlier, UpdateCaseRequest later) {
+            Map<String, Object> data = latest(earlier.getData(), later.getData());
+            if (earlier.getData() != null && later.getData() != null) {
+                data = new HashMap<>(earlier.getData());
+                data.putAll(later.getData());
+            }
+
+            return new UpdateCaseRequest(latest(earlier.getUuid(), later.getUuid()),
+                latest(earlier.getCreated(), later.getCreated()), latest(earlier.getType(), later.getType()),
+                latest(earlier.getReference(), later.getReference()),
+                latest(earlier.getPrimaryTopic(), later.getPrimaryTopic()),
+                latest(earlier.getPrimaryCorrespondent(), later.getPrimaryCorrespondent()),
+                latest(earlier.getCaseDeadline(), later.getCaseDeadline()),
+                latest(earlier.getDateReceived(), later.getDateReceived()), data,
+                latest(earlier.getMigratedReference(), later.getMigratedReference()));
+        }
+
+        /**
+         * An empty string is left out of the written document just as null is, so neither replaces an earlier value.
+         */
+        private static <T> T latest(T earlier, T later) {
+            return later != null && !"".equals(later) ? later : earlier;
+        }
+
+    }
+
+}
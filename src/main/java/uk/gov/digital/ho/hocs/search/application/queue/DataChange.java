@@ -0,0 +1,26 @@
+package uk.gov.digital.ho.hocs.search.application.queue;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * A search queue message with its data bound to the payload type of its {@link DataChangeType}.
+ */
+@Getter
+@AllArgsConstructor
+public class DataChange {
+
+    private final UUID caseUUID;
+
+    /**
+     * The type as sent, kept for logging when it is not a known {@link DataChangeType}.
+     */
+    private final String type;
+
+    private final DataChangeType dataChangeType;
+
+    private final Object data;
+
+}
@@ -0,0 +1,135 @@
+package uk.gov.digital.ho.hocs.search.application.queue;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Decodes search queue messages in a single pass over the envelope, binding the data to the payload type of the
+ * message through a reader cached for each type. Data sent as an embedded object is bound from the envelope's own
+ * tokens. Data sent as a JSON string is bound straight from the envelope parser's character buffer, without being
+ * copied to a {@code String}, unless it comes before the type, when it is copied and bound once the type is known.
+ */
+@Component
+public class DataChangeDecoder {
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<DataChangeType, ObjectReader> payloadReaders = new EnumMap<>(DataChangeType.class);
+
+    public DataChangeDecoder(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        for (DataChangeType type : DataChangeType.values()) {
+            if (type.payloadType != null) {
+                payloadReaders.put(type, objectMapper.readerFor(type.payloadType));
+            }
+        }
+    }
+
+    public DataChange decode(String message) throws JsonProcessingException {
+        if (message == null) {
+            throw new IllegalArgumentException("Message is null");
+        }
+
+        UUID caseUUID = null;
+        String type = null;
+        DataChangeType dataChangeType = null;
+        Object data = null;
+        // either the data string or, when the data object came before the type, the data as a tree
+        Object unbound = null;
+
+        try (JsonParser parser = objectMapper.createParser(message)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw MismatchedInputException.from(parser, DataChange.class, "Message is not a JSON object");
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+                switch (field) {
+                    case "caseUUID" -> caseUUID = token == JsonToken.VALUE_NULL ? null : UUID.fromString(
+                        parser.getText());
+                    case "type" -> {
+                        type = parser.getValueAsString();
+                        dataChangeType = DataChangeType.fromString(type);
+                    }
+                    case "data" -> {
+                        data = null;
+                        unbound = null;
+                        if (token == JsonToken.VALUE_STRING && type != null) {
+                            data = bindText(dataChangeType, parser);
+                        } else if (token == JsonToken.VALUE_STRING) {
+                            unbound = parser.getText();
+                        } else if (token == JsonToken.START_OBJECT && type != null) {
+                            data = bind(dataChangeType, parser);
+                        } else if (token == JsonToken.START_OBJECT) {
+                            unbound = objectMapper.readTree(parser);
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        if (unbound != null) {
+            data = bind(dataChangeType, unbound);
+        }
+        if (dataChangeType != null && dataChangeType.payloadType != null && data == null) {
+            throw new IllegalArgumentException(String.format("Message for %s has no data", type));
+        }
+        return new DataChange(caseUUID, type, dataChangeType, data);
+    }
+
+    private Object bind(DataChangeType dataChangeType, JsonParser parser) throws IOException {
+        ObjectReader reader = payloadReaders.get(dataChangeType);
+        if (reader == null) {
+            parser.skipChildren();
+            return null;
+        }
+        return reader.readValue(parser);
+    }
+
+    private Object bindText(DataChangeType dataChangeType, JsonParser parser) throws IOException {
+        ObjectReader reader = payloadReaders.get(dataChangeType);
+        if (reader == null) {
+            return null;
+        }
+        // the characters are only valid until the envelope parser moves on, so they are bound here
+        try (JsonParser dataParser = reader.createParser(parser.getTextCharacters(), parser.getTextOffset(),
+            parser.getTextLength())) {
+            return reader.readValue(dataParser);
+        }
+    }
+
+    private Object bind(DataChangeType dataChangeType, Object unbound) throws JsonProcessingException {
+        ObjectReader reader = payloadReaders.get(dataChangeType);
+        if (reader == null) {
+            return null;
+        }
+        try {
+            return unbound instanceof String text ? reader.readValue(text) : reader.readValue((JsonNode) unbound);
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
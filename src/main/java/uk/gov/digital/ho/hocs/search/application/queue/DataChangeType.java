@@ -1,23 +1,37 @@
 package uk.gov.digital.ho.hocs.search.application.queue;
 
+import uk.gov.digital.ho.hocs.search.api.dto.CorrespondentDetailsDto;
+import uk.gov.digital.ho.hocs.search.api.dto.CreateCaseRequest;
+import uk.gov.digital.ho.hocs.search.api.dto.CreateTopicRequest;
+import uk.gov.digital.ho.hocs.search.api.dto.DeleteCaseRequest;
+import uk.gov.digital.ho.hocs.search.api.dto.DeleteTopicRequest;
+import uk.gov.digital.ho.hocs.search.api.dto.SomuItemDto;
+import uk.gov.digital.ho.hocs.search.api.dto.UpdateCaseRequest;
+
 public enum DataChangeType {
-    CASE_CREATED("CASE_CREATED"),
-    CASE_COMPLETED("CASE_COMPLETED"),
-    CASE_DELETED("CASE_DELETED"),
-    CASE_UPDATED("CASE_UPDATED"),
-    CASE_TOPIC_CREATED("CASE_TOPIC_CREATED"),
-    CASE_TOPIC_DELETED("CASE_TOPIC_DELETED"),
-    CORRESPONDENT_CREATED("CORRESPONDENT_CREATED"),
-    CORRESPONDENT_DELETED("CORRESPONDENT_DELETED"),
-    CORRESPONDENT_UPDATED("CORRESPONDENT_UPDATED"),
-    SOMU_ITEM_CREATED("SOMU_ITEM_CREATED"),
-    SOMU_ITEM_DELETED("SOMU_ITEM_DELETED"),
-    SOMU_ITEM_UPDATED("SOMU_ITEM_UPDATED");
+    CASE_CREATED("CASE_CREATED", CreateCaseRequest.class),
+    CASE_COMPLETED("CASE_COMPLETED", null),
+    CASE_DELETED("CASE_DELETED", DeleteCaseRequest.class),
+    CASE_UPDATED("CASE_UPDATED", UpdateCaseRequest.class),
+    CASE_TOPIC_CREATED("CASE_TOPIC_CREATED", CreateTopicRequest.class),
+    CASE_TOPIC_DELETED("CASE_TOPIC_DELETED", DeleteTopicRequest.class),
+    CORRESPONDENT_CREATED("CORRESPONDENT_CREATED", CorrespondentDetailsDto.class),
+    CORRESPONDENT_DELETED("CORRESPONDENT_DELETED", CorrespondentDetailsDto.class),
+    CORRESPONDENT_UPDATED("CORRESPONDENT_UPDATED", CorrespondentDetailsDto.class),
+    SOMU_ITEM_CREATED("SOMU_ITEM_CREATED", SomuItemDto.class),
+    SOMU_ITEM_DELETED("SOMU_ITEM_DELETED", SomuItemDto.class),
+    SOMU_ITEM_UPDATED("SOMU_ITEM_UPDATED", SomuItemDto.class);
 
     public String value;
 
-    DataChangeType(final String value) {
+    /**
+     * The type the message data is bound to, or null when the message carries no data.
+     */
+    public final Class<?> payloadType;
+
+    DataChangeType(final String value, final Class<?> payloadType) {
         this.value = value;
+        this.payloadType = payloadType;
     }
 
     public static DataChangeType fromString(String text) {
@@ -7,9 +7,11 @@ import org.opensearch.index.query.Operator;
 import org.opensearch.index.query.QueryBuilder;
 import org.opensearch.index.query.QueryBuilders;
 import org.opensearch.index.query.RangeQueryBuilder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import uk.gov.digital.ho.hocs.search.api.dto.DateRangeDto;
+import uk.gov.digital.ho.hocs.search.api.dto.SearchRequest;
 import uk.gov.digital.ho.hocs.search.domain.repositories.FieldQueryTypeMappingRepository;
 
 import java.util.Arrays;
@@ -26,14 +28,53 @@ import static uk.gov.digital.ho.hocs.search.client.helpers.QueryBuilderHelpers.n
 @Service
 public class CaseQueryFactory {
 
+    /**
+     * The length of the grams indexed in the {@code ngram} sub fields of the reference fields; shorter search terms
+     * have no gram to match on so still use a wildcard query.
+     */
+    static final int REFERENCE_GRAM_LENGTH = 3;
+
     private final FieldQueryTypeMappingRepository fieldQueryTypeMappingRepository;
 
-    public CaseQueryFactory(FieldQueryTypeMappingRepository fieldQueryTypeMappingRepository) {
+    private final boolean referenceNgram;
+
+    private final boolean effectivePOTeam;
+
+    private final boolean filterContext;
+
+    public CaseQueryFactory(FieldQueryTypeMappingRepository fieldQueryTypeMappingRepository,
+                            @Value("${aws.es.reference-ngram:false}") boolean referenceNgram,
+                            @Value("${aws.es.effective-po-team.enabled:false}") boolean effectivePOTeam,
+                            @Value("${aws.es.filter-context:false}") boolean filterContext) {
         this.fieldQueryTypeMappingRepository = fieldQueryTypeMappingRepository;
+        this.referenceNgram = referenceNgram;
+        this.effectivePOTeam = effectivePOTeam;
+        this.filterContext = filterContext;
     }
 
     public CaseQuery createCaseQuery() {
-        return new CaseQuery(fieldQueryTypeMappingRepository);
+        return new CaseQuery(fieldQueryTypeMappingRepository, referenceNgram, effectivePOTeam, filterContext);
+    }
+
+    /**
+     * @return the query for the cases of the case type matching the search request
+     */
+    public CaseQuery createCaseQuery(SearchRequest request, String caseType) {
+        return createCaseQuery()
+            .reference(request.getReference(), caseType)
+            .caseTypes(request.getCaseTypes())
+            .dateRange(request.getDateReceived())
+            .correspondentAddress1(request.getCorrespondentAddress1())
+            .correspondentEmail(request.getCorrespondentEmail())
+            .correspondentName(request.getCorrespondentName())
+            .correspondentNameNotMember(request.getCorrespondentNameNotMember())
+            .correspondentPostcode(request.getCorrespondentPostcode())
+            .correspondentReference(request.getCorrespondentReference())
+            .correspondentExternalKey(request.getCorrespondentExternalKey())
+            .topic(request.getTopic())
+            .privateOfficeTeam(request.getPrivateOfficeTeamUuid())
+            .dataFields(request.getData())
+            .activeOnlyFlag(request.getActiveOnly());
     }
 
     public static class CaseQuery {
@@ -44,11 +85,23 @@ public class CaseQueryFactory {
 
         private final List<String> migratedCaseTypeMappings = List.of("comp", "comp2", "bf", "bf2", "pogr", "pogr2", "iedet", "to");
 
+        private final boolean referenceNgram;
+
+        private final boolean effectivePOTeam;
+
+        private final boolean filterContext;
+
         private boolean hasClause = false;
 
-        public CaseQuery(FieldQueryTypeMappingRepository fieldQueryTypeMappingRepository) {
+        public CaseQuery(FieldQueryTypeMappingRepository fieldQueryTypeMappingRepository,
+                         boolean referenceNgram,
+                         boolean effectivePOTeam,
+                         boolean filterContext) {
             this.mqb = QueryBuilders.boolQuery();
             this.fieldQueryTypeMappingRepository = fieldQueryTypeMappingRepository;
+            this.referenceNgram = referenceNgram;
+            this.effectivePOTeam = effectivePOTeam;
+            this.filterContext = filterContext;
         }
 
         public CaseQuery reference(String reference, String type) {
@@ -64,8 +117,7 @@ public class CaseQueryFactory {
 
             log.debug("reference {} , adding to query", reference);
 
-            QueryBuilder typeQb =
-                QueryBuilders.wildcardQuery("reference", String.format("*%s*", reference));
+            QueryBuilder typeQb = containsQuery("reference", reference);
 
             if (migratedCaseTypeMappings.contains(type.toLowerCase())) {
                 typeQb = QueryBuilders.boolQuery()
@@ -82,7 +134,7 @@ public class CaseQueryFactory {
             if (caseTypes != null && !caseTypes.isEmpty()) {
                 log.debug("caseTypes size {}, adding to query", caseTypes.size());
                 QueryBuilder typeQb = QueryBuilders.termsQuery("type", caseTypes);
-                mqb.must(typeQb);
+                exact(typeQb);
                 hasClause = true;
             } else {
                 log.debug("caseTypes was null or empty");
@@ -106,7 +158,7 @@ public class CaseQueryFactory {
                     log.debug("dateRange To was null or empty");
                 }
                 if ((dateRangeDto.getFrom() != null && !dateRangeDto.getFrom().isEmpty()) || (dateRangeDto.getTo() != null && !dateRangeDto.getTo().isEmpty())) {
-                    mqb.must(rangeQb);
+                    exact(rangeQb);
                     hasClause = true;
                 }
             } else {
@@ -205,8 +257,7 @@ public class CaseQueryFactory {
         public CaseQuery correspondentReference(String correspondentReference) {
             if (StringUtils.hasText(correspondentReference)) {
                 log.debug("correspondentReference {}, adding to query", correspondentReference);
-                QueryBuilder referenceQb = QueryBuilders.wildcardQuery("currentCorrespondents.reference",
-                    "*" + correspondentReference + "*");
+                QueryBuilder referenceQb = containsQuery("currentCorrespondents.reference", correspondentReference);
                 QueryBuilder correspondentQb = QueryBuilders.nestedQuery("currentCorrespondents", referenceQb,
                     ScoreMode.None);
                 mqb.must(correspondentQb);
@@ -251,6 +302,13 @@ public class CaseQueryFactory {
             if (privateOfficeTeam != null && !privateOfficeTeam.isEmpty()) {
                 log.debug("Private office team {}, adding to query", privateOfficeTeam);
 
+                if (effectivePOTeam) {
+                    // the precedence of the team fields is resolved when the case is indexed
+                    mqb.filter(QueryBuilders.termQuery("effectivePOTeamUUID", privateOfficeTeam));
+                    hasClause = true;
+                    return this;
+                }
+
                 BoolQueryBuilder[] privateOfficeQueries = { QueryBuilders.boolQuery().must(
                     QueryBuilders.matchQuery("data.PrivateOfficeOverridePOTeamUUID", privateOfficeTeam).operator(
                         Operator.AND)),
@@ -274,7 +332,7 @@ public class CaseQueryFactory {
                 BoolQueryBuilder privateOfficeFilter = new BoolQueryBuilder();
                 Arrays.stream(privateOfficeQueries).forEach(privateOfficeFilter::should);
 
-                mqb.must(privateOfficeFilter);
+                exact(privateOfficeFilter);
                 hasClause = true;
             } else {
                 log.debug("Private office team was null or empty");
@@ -299,7 +357,7 @@ public class CaseQueryFactory {
 
                 log.debug("filtered data size {}, adding to query", dataQb.size());
                 for (QueryBuilder qb : dataQb) {
-                    mqb.must(qb);
+                    exact(qb);
                     hasClause = true;
                 }
             } else {
@@ -312,7 +370,7 @@ public class CaseQueryFactory {
             if (activeOnly != null && activeOnly) {
                 log.debug("activeOnly is true size, adding to query");
                 QueryBuilder activeQb = QueryBuilders.boolQuery().mustNot(QueryBuilders.matchQuery("completed", true));
-                mqb.must(activeQb);
+                exact(activeQb);
                 hasClause = true;
             } else {
                 log.debug("activeOnly was null or false");
@@ -322,7 +380,7 @@ public class CaseQueryFactory {
 
         public BoolQueryBuilder build() {
             QueryBuilder deletedQb = QueryBuilders.boolQuery().mustNot(QueryBuilders.matchQuery("deleted", true).operator(Operator.AND));
-            this.mqb.must(deletedQb);
+            exact(deletedQb);
             return this.mqb;
         }
 
@@ -330,6 +388,30 @@ public class CaseQueryFactory {
             return hasClause;
         }
 
+        /**
+         * Adds a clause that either matches or not, so that in filter context it is not scored and its matches can be
+         * reused from the node query cache.
+         */
+        private void exact(QueryBuilder qb) {
+            if (filterContext) {
+                mqb.filter(qb);
+            } else {
+                mqb.must(qb);
+            }
+        }
+
+        /**
+         * Matches documents where the field contains the value. With reference n-grams enabled this is a phrase
+         * query over the grams indexed in the {@code ngram} sub field, which avoids scanning every term of the field
+         * as a leading wildcard does.
+         */
+        private QueryBuilder containsQuery(String field, String value) {
+            if (referenceNgram && value.length() >= REFERENCE_GRAM_LENGTH) {
+                return QueryBuilders.matchPhraseQuery(field + ".ngram", value);
+            }
+            return QueryBuilders.wildcardQuery(field, String.format("*%s*", value));
+        }
+
 
     }
 
@@ -0,0 +1,294 @@
+package uk.gov.digital.ho.hocs.search.client;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import lombok.extern.slf4j.Slf4j;
+import org.opensearch.common.Strings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.digital.ho.hocs.search.api.dto.DateRangeDto;
+import uk.gov.digital.ho.hocs.search.api.dto.SearchRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static net.logstash.logback.argument.StructuredArguments.value;
+import static uk.gov.digital.ho.hocs.search.application.LogEvent.EVENT;
+import static uk.gov.digital.ho.hocs.search.application.LogEvent.SCRIPT_STORE_FAILED;
+
+/**
+ * Builds case queries from templates cached by the shape of the search request: the case type, which fields are set
+ * and the names of the data fields. A template is the serialised query of the first request of its shape with each
+ * value replaced by a placeholder, so later requests of the same shape only copy the template and their escaped
+ * values rather than building and serialising the query again.
+ * <p>
+ * Values that change the structure of the query rather than appearing in it, such as blank fields and references too
+ * short to be searched by n-gram, are part of the shape. Up to {@code size} shapes are cached; with a size of
+ * {@code 0} every query is built by the {@link CaseQueryFactory}.
+ * <p>
+ * With {@code stored} set, each cached template is also stored in the cluster as a mustache search template named by
+ * the hash of its source, and searches send only the name and the values of the template. Templates are stored from
+ * the client's I/O threads rather than the request thread, so searches of a new shape send their query until its
+ * template has been stored. Templates with literal values that mustache would parse are not stored, and a template
+ * that could not be stored is dropped from the cache, to be compiled and stored again on its next use.
+ */
+@Slf4j
+@Component
+public class CaseQueryTemplates {
+
+    private static final Pattern PARAMETER = Pattern.compile("@@param-(\\d+)@@");
+
+    private static final Template NO_CLAUSES = new Template(null, null, null, null);
+
+    private static final String TEMPLATE_PREFIX = "case-search-";
+
+    private final CaseQueryFactory caseQueryFactory;
+
+    private final OpenSearchClient openSearchClient;
+
+    private final int size;
+
+    private final boolean stored;
+
+    private final Map<List<Object>, Template> templates = new ConcurrentHashMap<>();
+
+    public CaseQueryTemplates(CaseQueryFactory caseQueryFactory,
+                              OpenSearchClient openSearchClient,
+                              @Value("${aws.es.query-templates.size:0}") int size,
+                              @Value("${aws.es.query-templates.stored:false}") boolean stored) {
+        this.caseQueryFactory = caseQueryFactory;
+        this.openSearchClient = openSearchClient;
+        this.size = size;
+        this.stored = stored;
+    }
+
+    /**
+     * @return the query for the cases of the case type matching the search request, or null if the request has
+     * nothing to search by
+     */
+    public SearchQuery query(SearchRequest request, String caseType) {
+        if (size <= 0) {
+            var query = caseQueryFactory.createCaseQuery(request, caseType);
+            return query.hasClauses() ? SearchQuery.of(query.build()) : null;
+        }
+
+        var parameters = new Parameters(caseType);
+        var template = parameters.template(request);
+        List<Object> shape = parameters.shape;
+
+        Template compiled = templates.get(shape);
+        if (compiled == null) {
+            compiled = compile(template, caseType);
+            if (templates.size() < size && templates.putIfAbsent(shape, compiled) == null) {
+                store(shape, compiled);
+            }
+        }
+        return compiled.render(parameters.values, parameters.texts);
+    }
+
+    private Template compile(SearchRequest template, String caseType) {
+        var query = caseQueryFactory.createCaseQuery(template, caseType);
+        if (!query.hasClauses()) {
+            return NO_CLAUSES;
+        }
+
+        String json = Strings.toString(query.build());
+        List<String> segments = new ArrayList<>();
+        List<Integer> parameters = new ArrayList<>();
+        Matcher matcher = PARAMETER.matcher(json);
+        int start = 0;
+        while (matcher.find()) {
+            segments.add(json.substring(start, matcher.start()));
+            parameters.add(Integer.parseInt(matcher.group(1)));
+            start = matcher.end();
+        }
+        segments.add(json.substring(start));
+        log.debug("Compiled query template for {} with {} parameters", caseType, parameters.size());
+
+        int[] parameterIndexes = parameters.stream().mapToInt(Integer::intValue).toArray();
+        byte[][] bytes = segments.stream().map(segment -> segment.getBytes(StandardCharsets.UTF_8))
+            .toArray(byte[][]::new);
+        String source = stored ? mustacheSource(segments, parameterIndexes) : null;
+        return new Template(bytes, parameterIndexes, source, null);
+    }
+
+    /**
+     * @return the source of the query as a mustache template, or null if it cannot be stored
+     */
+    private static String mustacheSource(List<String> segments, int[] parameters) {
+        var source = new StringBuilder(segments.get(0));
+        for (int i = 0; i < parameters.length; i++) {
+            source.append("{{").append(templateParam(parameters[i])).append("}}").append(segments.get(i + 1));
+        }
+        // literal values are only left in the template when short, but may still look like mustache tags
+        if (segments.stream().anyMatch(segment -> segment.contains("{{")) || source.indexOf("{{{") >= 0) {
+            return null;
+        }
+        return source.toString();
+    }
+
+    /**
+     * Stores the cached template in the cluster, searching through it once it has been stored.
+     */
+    private void store(List<Object> shape, Template template) {
+        if (template.source == null) {
+            return;
+        }
+
+        String name = TEMPLATE_PREFIX + hash(template.source);
+        openSearchClient.putSearchTemplateAsync(name, template.source).whenComplete((ignored, e) -> {
+            if (e == null) {
+                templates.replace(shape, template, template.stored(name));
+                log.info("Stored search template {}", name);
+            } else {
+                templates.remove(shape, template);
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                log.error("Unable to store search template {}. {}", name, cause.getMessage(),
+                    value(EVENT, SCRIPT_STORE_FAILED));
+            }
+        });
+    }
+
+    private static String templateParam(int index) {
+        return "p" + index;
+    }
+
+    private static String hash(String source) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param source the source of the template to store in the cluster, or null if it is not stored
+     * @param name the name of the stored search template, or null if not stored yet
+     */
+    private record Template(byte[][] segments, int[] parameters, String source, String name) {
+
+        Template stored(String name) {
+            return new Template(segments, parameters, source, name);
+        }
+
+        JsonQuery render(List<byte[]> values, List<String> texts) {
+            if (segments == null) {
+                return null;
+            }
+            if (name == null) {
+                return new JsonQuery(render(values));
+            }
+
+            Map<String, Object> params = new HashMap<>();
+            for (int parameter : parameters) {
+                params.put(templateParam(parameter), texts.get(parameter));
+            }
+            return new JsonQuery(() -> render(values), name, params);
+        }
+
+        private byte[] render(List<byte[]> values) {
+
+            int length = 0;
+            for (byte[] segment : segments) {
+                length += segment.length;
+            }
+            for (int parameter : parameters) {
+                length += values.get(parameter).length;
+            }
+
+            var out = new ByteArrayOutputStream(length);
+            out.writeBytes(segments[0]);
+            for (int i = 0; i < parameters.length; i++) {
+                out.writeBytes(values.get(parameters[i]));
+                out.writeBytes(segments[i + 1]);
+            }
+            return out.toByteArray();
+        }
+
+    }
+
+    /**
+     * Collects the shape and the values of a search request, both as given and JSON escaped, replacing the values with
+     * placeholders.
+     */
+    private static class Parameters {
+
+        private final List<Object> shape = new ArrayList<>();
+
+        private final List<byte[]> values = new ArrayList<>();
+
+        private final List<String> texts = new ArrayList<>();
+
+        Parameters(String caseType) {
+            shape.add(caseType);
+        }
+
+        SearchRequest template(SearchRequest request) {
+            // the number of entries for each group is added first, so that different shapes cannot run together
+            List<String> caseTypes = null;
+            shape.add(request.getCaseTypes() == null ? null : request.getCaseTypes().size());
+            if (request.getCaseTypes() != null) {
+                caseTypes = request.getCaseTypes().stream().map(this::value).toList();
+            }
+            DateRangeDto dateReceived = null;
+            shape.add(request.getDateReceived() != null);
+            if (request.getDateReceived() != null) {
+                dateReceived = new DateRangeDto(value(request.getDateReceived().getFrom()),
+                    value(request.getDateReceived().getTo()));
+            }
+            Map<String, String> data = null;
+            shape.add(request.getData() == null ? null : request.getData().size());
+            if (request.getData() != null) {
+                data = new TreeMap<>();
+                for (Map.Entry<String, String> entry : new TreeMap<>(request.getData()).entrySet()) {
+                    shape.add(entry.getKey());
+                    data.put(entry.getKey(), value(entry.getValue()));
+                }
+            }
+            shape.add(request.getActiveOnly());
+
+            return new SearchRequest(reference(request.getReference()), caseTypes, dateReceived,
+                value(request.getCorrespondentAddress1()), value(request.getCorrespondentEmail()),
+                value(request.getCorrespondentName()), value(request.getCorrespondentNameNotMember()),
+                value(request.getCorrespondentPostcode()), reference(request.getCorrespondentReference()),
+                value(request.getCorrespondentExternalKey()), value(request.getTopic()),
+                value(request.getPrivateOfficeTeamUuid()), data, request.getActiveOnly());
+        }
+
+        /**
+         * References shorter than a gram are searched with a different query, so are kept in the shape.
+         */
+        private String reference(String reference) {
+            if (reference != null && reference.length() < CaseQueryFactory.REFERENCE_GRAM_LENGTH) {
+                shape.add(reference);
+                return reference;
+            }
+            return value(reference);
+        }
+
+        private String value(String value) {
+            if (value == null || value.isBlank()) {
+                shape.add(value);
+                return value;
+            }
+            shape.add(Boolean.TRUE);
+            values.add(JsonStringEncoder.getInstance().quoteAsUTF8(value));
+            texts.add(value);
+            return "@@param-" + (values.size() - 1) + "@@";
+        }
+
+    }
+
+}
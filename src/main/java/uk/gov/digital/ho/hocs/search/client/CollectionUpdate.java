@@ -0,0 +1,83 @@
+package uk.gov.digital.ho.hocs.search.client;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A change to the nested collections of a case document, applied server side by the update collections script so the
+ * document does not need to be read first.
+ */
+@EqualsAndHashCode
+@Getter
+@ToString
+public class CollectionUpdate {
+
+    private final List<String> removeFrom = new ArrayList<>();
+
+    private final List<String> addTo = new ArrayList<>();
+
+    private final List<String> versionsIn = new ArrayList<>();
+
+    private UUID uuid;
+
+    private Map<String, Object> item;
+
+    private Long eventTime;
+
+    /**
+     * Removes every item with the given uuid from the fields.
+     */
+    public CollectionUpdate remove(UUID uuid, String... fields) {
+        this.uuid = uuid;
+        this.removeFrom.addAll(Arrays.asList(fields));
+        return this;
+    }
+
+    /**
+     * Adds the item to the fields, unless an item with the same uuid is already present.
+     */
+    public CollectionUpdate add(Map<String, Object> item, String... fields) {
+        this.item = item;
+        this.addTo.addAll(Arrays.asList(fields));
+        return this;
+    }
+
+    /**
+     * Keeps each version of the item in the fields it is added to, adding it unless an item with the same values apart
+     * from its event time is already present, rather than unless one with the same uuid is.
+     */
+    public CollectionUpdate keepingVersions(String... fields) {
+        this.versionsIn.addAll(Arrays.asList(fields));
+        return this;
+    }
+
+    /**
+     * Skips the update if any of the fields already holds the item from an event later than this one, and does not add
+     * the item back to a field it was removed from by a later event. Removals are remembered with this event time in
+     * the unindexed {@code removedItems} of the document. The item is expected to carry the same event time.
+     */
+    public CollectionUpdate at(Long eventTime) {
+        this.eventTime = eventTime;
+        return this;
+    }
+
+    Map<String, Object> toParams() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("remove", removeFrom);
+        params.put("uuid", uuid == null ? null : uuid.toString());
+        params.put("add", addTo);
+        params.put("versions", versionsIn);
+        params.put("item", item);
+        params.put("eventTime", eventTime);
+        return params;
+    }
+
+}
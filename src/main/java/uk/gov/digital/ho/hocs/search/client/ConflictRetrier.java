@@ -0,0 +1,79 @@
+package uk.gov.digital.ho.hocs.search.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.digital.ho.hocs.search.domain.exceptions.ApplicationExceptions;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static net.logstash.logback.argument.StructuredArguments.value;
+import static uk.gov.digital.ho.hocs.search.application.LogEvent.CASE_UPDATE_CONFLICT;
+import static uk.gov.digital.ho.hocs.search.application.LogEvent.EVENT;
+
+/**
+ * Re-runs a write that lost a version conflict, so that it is rebuilt from a fresh read of the document. Retries
+ * back off for a random time of up to the backoff doubled for each attempt.
+ */
+@Slf4j
+@Component
+public class ConflictRetrier {
+
+    private final int retries;
+
+    private final long backoff;
+
+    private final Counter retriedCounter;
+
+    private final Counter exhaustedCounter;
+
+    public ConflictRetrier(MeterRegistry meterRegistry,
+                           @Value("${aws.es.conflict.retries}") int retries,
+                           @Value("${aws.es.conflict.backoff}") long backoff) {
+        this.retries = retries;
+        this.backoff = backoff;
+        this.retriedCounter = Counter.builder("search.consumer.update.conflicts")
+            .description("Writes that lost a version conflict")
+            .tag("outcome", "retried")
+            .register(meterRegistry);
+        this.exhaustedCounter = Counter.builder("search.consumer.update.conflicts")
+            .description("Writes that lost a version conflict")
+            .tag("outcome", "exhausted")
+            .register(meterRegistry);
+    }
+
+    public void run(Runnable write) {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                write.run();
+                return;
+            } catch (ApplicationExceptions.VersionConflictException e) {
+                if (attempt >= retries) {
+                    exhaustedCounter.increment();
+                    throw e;
+                }
+
+                retriedCounter.increment();
+                log.warn("{} Retrying", e.getMessage(), value(EVENT, CASE_UPDATE_CONFLICT));
+                sleep(attempt, e);
+            }
+        }
+    }
+
+    private void sleep(int attempt, ApplicationExceptions.VersionConflictException conflict) {
+        long bound = backoff << Math.min(attempt, 16);
+        if (bound <= 0) {
+            return;
+        }
+
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+package uk.gov.digital.ho.hocs.search.client;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.opensearch.index.seqno.SequenceNumbers;
+
+import java.util.Map;
+import java.util.UUID;
+
+@EqualsAndHashCode
+@Getter
+@ToString
+public class DocumentUpdate {
+
+    private final String indexType;
+
+    private final UUID documentId;
+
+    private final Map<String, Object> data;
+
+    private final JsonDocument source;
+
+    private final CollectionUpdate collectionUpdate;
+
+    private final long ifSeqNo;
+
+    private final long ifPrimaryTerm;
+
+    private final String versionField;
+
+    private final boolean derivingEffectivePOTeam;
+
+    public DocumentUpdate(String indexType, UUID documentId, Map<String, Object> data) {
+        this(indexType, documentId, data, SequenceNumbers.UNASSIGNED_SEQ_NO, SequenceNumbers.UNASSIGNED_PRIMARY_TERM);
+    }
+
+    /**
+     * An update built from a document read at the given sequence number and primary term, which is only written if
+     * the document has not changed since.
+     */
+    public DocumentUpdate(String indexType, UUID documentId, Map<String, Object> data, long ifSeqNo,
+                          long ifPrimaryTerm) {
+        this(indexType, documentId, data, null, null, ifSeqNo, ifPrimaryTerm, null, false);
+    }
+
+    public DocumentUpdate(String indexType, UUID documentId, JsonDocument source) {
+        this(indexType, documentId, source, SequenceNumbers.UNASSIGNED_SEQ_NO,
+            SequenceNumbers.UNASSIGNED_PRIMARY_TERM);
+    }
+
+    /**
+     * An update built from a document read at the given sequence number and primary term, which is only written if
+     * the document has not changed since.
+     */
+    public DocumentUpdate(String indexType, UUID documentId, JsonDocument source, long ifSeqNo, long ifPrimaryTerm) {
+        this(indexType, documentId, null, source, null, ifSeqNo, ifPrimaryTerm, null, false);
+    }
+
+    public DocumentUpdate(String indexType, UUID documentId, CollectionUpdate collectionUpdate) {
+        this(indexType, documentId, null, null, collectionUpdate, SequenceNumbers.UNASSIGNED_SEQ_NO,
+            SequenceNumbers.UNASSIGNED_PRIMARY_TERM, null, false);
+    }
+
+    private DocumentUpdate(String indexType,
+                           UUID documentId,
+                           Map<String, Object> data,
+                           JsonDocument source,
+                           CollectionUpdate collectionUpdate,
+                           long ifSeqNo,
+                           long ifPrimaryTerm,
+                           String versionField,
+                           boolean derivingEffectivePOTeam) {
+        this.indexType = indexType;
+        this.documentId = documentId;
+        this.data = data;
+        this.source = source;
+        this.collectionUpdate = collectionUpdate;
+        this.ifSeqNo = ifSeqNo;
+        this.ifPrimaryTerm = ifPrimaryTerm;
+        this.versionField = versionField;
+        this.derivingEffectivePOTeam = derivingEffectivePOTeam;
+    }
+
+    /**
+     * @return this update, only applied if the event time in the given field of the data is not older than the one
+     * already indexed
+     */
+    public DocumentUpdate versionedBy(String versionField) {
+        return new DocumentUpdate(indexType, documentId, data, source, collectionUpdate, ifSeqNo, ifPrimaryTerm,
+            versionField, derivingEffectivePOTeam);
+    }
+
+    /**
+     * @return this update, with the effective private office team of the case set from the case data once it has been
+     * merged into the indexed document, as the data in the update alone may not hold the team that takes precedence
+     */
+    public DocumentUpdate derivingEffectivePOTeam() {
+        return new DocumentUpdate(indexType, documentId, data, source, collectionUpdate, ifSeqNo, ifPrimaryTerm,
+            versionField, true);
+    }
+
+    /**
+     * @return the partial document to write, either the serialised source or the data map
+     */
+    public Object getDocument() {
+        return source != null ? source : data;
+    }
+
+    public boolean isConditional() {
+        return ifSeqNo != SequenceNumbers.UNASSIGNED_SEQ_NO;
+    }
+
+    /**
+     * @return whether the update is skipped when the indexed document is from a later event
+     */
+    public boolean isVersioned() {
+        return versionField != null || (collectionUpdate != null && collectionUpdate.getEventTime() != null);
+    }
+
+}
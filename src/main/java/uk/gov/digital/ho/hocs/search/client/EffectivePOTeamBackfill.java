@@ -0,0 +1,63 @@
+package uk.gov.digital.ho.hocs.search.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.opensearch.index.query.BoolQueryBuilder;
+import org.opensearch.index.query.QueryBuilders;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import uk.gov.digital.ho.hocs.search.domain.exceptions.ApplicationExceptions;
+import uk.gov.digital.ho.hocs.search.domain.model.CaseData;
+import uk.gov.digital.ho.hocs.search.domain.repositories.CaseTypeMappingRepository;
+
+import java.util.Map;
+
+import static net.logstash.logback.argument.StructuredArguments.value;
+import static uk.gov.digital.ho.hocs.search.application.LogEvent.EVENT;
+import static uk.gov.digital.ho.hocs.search.application.LogEvent.SEARCH_BACKFILL_STARTED;
+import static uk.gov.digital.ho.hocs.search.client.OpenSearchClient.EFFECTIVE_PO_TEAM_SCRIPT;
+
+/**
+ * Sets the effective private office team of cases indexed before it was derived, by starting an update by query
+ * task in the index of each case type once the application is ready. Cases written since are kept up to date by the
+ * consumer, so the backfill only needs to run once.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "aws.es.effective-po-team", name = "backfill", havingValue = "true")
+public class EffectivePOTeamBackfill {
+
+    private final OpenSearchClient openSearchClient;
+
+    private final CaseTypeMappingRepository caseTypeMappingRepository;
+
+    public EffectivePOTeamBackfill(OpenSearchClient openSearchClient,
+                                   CaseTypeMappingRepository caseTypeMappingRepository) {
+        this.openSearchClient = openSearchClient;
+        this.caseTypeMappingRepository = caseTypeMappingRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        for (String caseType : caseTypeMappingRepository.getCaseTypes()) {
+            try {
+                String task = openSearchClient.updateByQuery(caseType, unsetQuery(), EFFECTIVE_PO_TEAM_SCRIPT,
+                    Map.of("fields", CaseData.PO_TEAM_FIELDS));
+                log.info("Started backfill of effectivePOTeamUUID for {} as task {}", caseType, task,
+                    value(EVENT, SEARCH_BACKFILL_STARTED));
+            } catch (ApplicationExceptions.ResourceServerException e) {
+                log.error(e.getMessage(), value(EVENT, e.getEvent()));
+            }
+        }
+    }
+
+    static BoolQueryBuilder unsetQuery() {
+        BoolQueryBuilder query = QueryBuilders.boolQuery()
+            .mustNot(QueryBuilders.existsQuery("effectivePOTeamUUID"))
+            .minimumShouldMatch(1);
+        CaseData.PO_TEAM_FIELDS.forEach(field -> query.should(QueryBuilders.existsQuery("data." + field)));
+        return query;
+    }
+
+}
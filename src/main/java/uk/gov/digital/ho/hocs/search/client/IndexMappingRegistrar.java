@@ -0,0 +1,68 @@
+package uk.gov.digital.ho.hocs.search.client;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import uk.gov.digital.ho.hocs.search.application.LogEvent;
+import uk.gov.digital.ho.hocs.search.domain.exceptions.ApplicationExceptions;
+import uk.gov.digital.ho.hocs.search.domain.repositories.CaseTypeMappingRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static net.logstash.logback.argument.StructuredArguments.value;
+import static uk.gov.digital.ho.hocs.search.application.LogEvent.EVENT;
+
+/**
+ * Maps fields derived by this service in the index of each case type before any messages are consumed, so they are
+ * not mapped dynamically from the first document written.
+ */
+@Slf4j
+@Component
+public class IndexMappingRegistrar {
+
+    static final String EFFECTIVE_PO_TEAM_MAPPING = "effective-po-team";
+
+    static final String REMOVED_ITEMS_MAPPING = "removed-items";
+
+    private final OpenSearchClient openSearchClient;
+
+    private final CaseTypeMappingRepository caseTypeMappingRepository;
+
+    public IndexMappingRegistrar(OpenSearchClient openSearchClient,
+                                 CaseTypeMappingRepository caseTypeMappingRepository) {
+        this.openSearchClient = openSearchClient;
+        this.caseTypeMappingRepository = caseTypeMappingRepository;
+    }
+
+    @PostConstruct
+    public void registerMappings() {
+        for (String name : List.of(EFFECTIVE_PO_TEAM_MAPPING, REMOVED_ITEMS_MAPPING)) {
+            String source = readMapping(name);
+            for (String caseType : caseTypeMappingRepository.getCaseTypes()) {
+                try {
+                    openSearchClient.putMapping(caseType, source);
+                    log.info("Mapped {} for {}", name, caseType);
+                } catch (ApplicationExceptions.ResourceServerException e) {
+                    log.error(e.getMessage(), value(EVENT, e.getEvent()));
+                }
+            }
+        }
+    }
+
+    private static String readMapping(String name) {
+        try (InputStream in = Thread.currentThread().getContextClassLoader().getResourceAsStream(
+            String.format("mappings/%s.json", name))) {
+            if (in == null) {
+                throw new IOException("Mapping not found");
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new ApplicationExceptions.ConfigFileReadException(
+                String.format("Unable to read mapping: %s", name), LogEvent.CONFIG_PARSE_FAILURE);
+        }
+    }
+
+}
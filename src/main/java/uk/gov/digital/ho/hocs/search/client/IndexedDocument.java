@@ -0,0 +1,19 @@
+package uk.gov.digital.ho.hocs.search.client;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A document as read from the index, with the sequence number and primary term it was read at.
+ */
+@AllArgsConstructor
+@Getter
+public class IndexedDocument<T> {
+
+    private final T source;
+
+    private final long seqNo;
+
+    private final long primaryTerm;
+
+}
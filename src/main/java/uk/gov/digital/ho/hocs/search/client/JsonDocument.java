@@ -0,0 +1,38 @@
+package uk.gov.digital.ho.hocs.search.client;
+
+import lombok.EqualsAndHashCode;
+import org.opensearch.common.xcontent.ToXContentObject;
+import org.opensearch.common.xcontent.XContentBuilder;
+import org.opensearch.common.xcontent.XContentType;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A document already serialised to JSON, written to requests as is rather than rebuilt from a map.
+ */
+@EqualsAndHashCode
+public final class JsonDocument implements ToXContentObject {
+
+    private final byte[] bytes;
+
+    public JsonDocument(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        return builder.rawValue(new ByteArrayInputStream(bytes), XContentType.JSON);
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,114 @@
+package uk.gov.digital.ho.hocs.search.client;
+
+import org.opensearch.common.xcontent.XContentBuilder;
+import org.opensearch.common.xcontent.XContentType;
+import org.opensearch.index.query.QueryBuilder;
+import org.opensearch.index.query.WrapperQueryBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * A query already serialised to JSON, which is only ever parsed by the cluster. It is written into search requests as
+ * it is, in place of the query.
+ * <p>
+ * A query rendered from a search template stored in the cluster also carries the name and parameters of the template,
+ * and is only rendered to JSON if it is not searched through the template. Such queries are equal when their template
+ * and parameters are.
+ */
+public final class JsonQuery implements SearchQuery {
+
+    private final Supplier<byte[]> render;
+
+    private final String templateName;
+
+    private final Map<String, Object> templateParams;
+
+    private volatile byte[] bytes;
+
+    public JsonQuery(byte[] bytes) {
+        this(() -> bytes, null, null);
+    }
+
+    JsonQuery(Supplier<byte[]> render, String templateName, Map<String, Object> templateParams) {
+        this.render = render;
+        this.templateName = templateName;
+        this.templateParams = templateParams;
+    }
+
+    public byte[] getBytes() {
+        byte[] rendered = bytes;
+        if (rendered == null) {
+            rendered = render.get();
+            bytes = rendered;
+        }
+        return rendered;
+    }
+
+    /**
+     * @return the name of the stored search template rendering the query, or null if it has none
+     */
+    public String getTemplateName() {
+        return templateName;
+    }
+
+    public Map<String, Object> getTemplateParams() {
+        return templateParams;
+    }
+
+    /**
+     * @return a {@code wrapper} query of the JSON, which writes the JSON itself rather than wrapping it
+     */
+    @Override
+    public QueryBuilder toQueryBuilder() {
+        return new RawQueryBuilder(getBytes());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof JsonQuery other)) {
+            return false;
+        }
+        if (templateName != null || other.templateName != null) {
+            return Objects.equals(templateName, other.templateName)
+                && Objects.equals(templateParams, other.templateParams);
+        }
+        return Arrays.equals(getBytes(), other.getBytes());
+    }
+
+    @Override
+    public int hashCode() {
+        return templateName != null ? Objects.hash(templateName, templateParams) : Arrays.hashCode(getBytes());
+    }
+
+    @Override
+    public String toString() {
+        return new String(getBytes(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the JSON into the request as it is, where a {@code wrapper} query would write it base64 encoded for the
+     * cluster to decode and parse. Anything reading it from the request parses the same query either way.
+     */
+    static final class RawQueryBuilder extends WrapperQueryBuilder {
+
+        RawQueryBuilder(byte[] source) {
+            super(source);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            return builder.rawValue(new ByteArrayInputStream(source()), XContentType.JSON);
+        }
+
+    }
+
+}
@@ -0,0 +1,172 @@
+package uk.gov.digital.ho.hocs.search.client;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.opensearch.action.ActionListener;
+import org.opensearch.action.search.MultiSearchRequest;
+import org.opensearch.action.search.MultiSearchResponse;
+import org.opensearch.client.RestHighLevelClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gathers the searches of concurrent multi searches for up to {@code window} milliseconds, or until
+ * {@code max-searches} are waiting, and sends them to OpenSearch as one {@code _msearch}, so that each round trip and
+ * request signature covers more searches. Each caller gets back the responses to its own searches, in order. With a
+ * window of {@code 0} every multi search is sent as it is made.
+ */
+@Slf4j
+@Component
+public class MultiSearchBatcher {
+
+    private final RestHighLevelClient client;
+
+    private final WireFormat wireFormat;
+
+    private final long window;
+
+    private final int maxSearches;
+
+    private final ScheduledExecutorService scheduler;
+
+    private List<Batched> pending = new ArrayList<>();
+
+    private int pendingSearches;
+
+    private ScheduledFuture<?> scheduledFlush;
+
+    public MultiSearchBatcher(RestHighLevelClient client,
+                              WireFormat wireFormat,
+                              @Value("${aws.es.search-batching.window:0}") long window,
+                              @Value("${aws.es.search-batching.max-searches:50}") int maxSearches) {
+        this.client = client;
+        this.wireFormat = wireFormat;
+        this.window = window;
+        this.maxSearches = maxSearches;
+        this.scheduler = window > 0 ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "search-batcher");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+        if (isEnabled()) {
+            log.info("Batching searches for up to {}ms or {} searches", window, maxSearches);
+        }
+    }
+
+    public boolean isEnabled() {
+        return scheduler != null;
+    }
+
+    public MultiSearchResponse msearch(MultiSearchRequest request) throws IOException {
+        try {
+            return submit(request).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for batched search");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    public void msearchAsync(MultiSearchRequest request, ActionListener<MultiSearchResponse> listener) {
+        submit(request).whenComplete((response, e) -> {
+            if (e != null) {
+                listener.onFailure(e instanceof Exception exception ? exception : new IllegalStateException(e));
+            } else {
+                listener.onResponse(response);
+            }
+        });
+    }
+
+    private CompletableFuture<MultiSearchResponse> submit(MultiSearchRequest request) {
+        var batched = new Batched(request, new CompletableFuture<>());
+        List<Batched> full = null;
+        synchronized (this) {
+            pending.add(batched);
+            pendingSearches += request.requests().size();
+            if (pendingSearches >= maxSearches) {
+                full = drain();
+            } else if (scheduledFlush == null) {
+                scheduledFlush = scheduler.schedule(this::flush, window, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (full != null) {
+            send(full);
+        }
+        return batched.response;
+    }
+
+    private void flush() {
+        List<Batched> batch;
+        synchronized (this) {
+            batch = drain();
+        }
+        if (!batch.isEmpty()) {
+            send(batch);
+        }
+    }
+
+    private List<Batched> drain() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        List<Batched> batch = pending;
+        pending = new ArrayList<>();
+        pendingSearches = 0;
+        return batch;
+    }
+
+    private void send(List<Batched> batch) {
+        var multiSearchRequest = new MultiSearchRequest();
+        batch.forEach(batched -> batched.request.requests().forEach(multiSearchRequest::add));
+        log.debug("Sending {} searches from {} multi searches", multiSearchRequest.requests().size(), batch.size());
+
+        try {
+            client.msearchAsync(multiSearchRequest, wireFormat.getRequestOptions(), ActionListener.wrap(
+                response -> split(batch, response),
+                e -> batch.forEach(batched -> batched.response.completeExceptionally(e))));
+        } catch (RuntimeException e) {
+            batch.forEach(batched -> batched.response.completeExceptionally(e));
+        }
+    }
+
+    private static void split(List<Batched> batch, MultiSearchResponse response) {
+        MultiSearchResponse.Item[] items = response.getResponses();
+        long took = response.getTook().millis();
+        int from = 0;
+        for (Batched batched : batch) {
+            int to = from + batched.request.requests().size();
+            batched.response.complete(new MultiSearchResponse(Arrays.copyOfRange(items, from, to), took));
+            from = to;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    private record Batched(MultiSearchRequest request, CompletableFuture<MultiSearchResponse> response) {}
+
+}
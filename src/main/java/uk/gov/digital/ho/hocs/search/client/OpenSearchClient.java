@@ -1,112 +1,463 @@
 package uk.gov.digital.ho.hocs.search.client;
 
 import lombok.extern.slf4j.Slf4j;
-import org.opensearch.action.get.GetRequest;
+import org.opensearch.OpenSearchStatusException;
+import org.opensearch.action.ActionListener;
+import org.opensearch.action.DocWriteResponse;
+import org.opensearch.action.admin.cluster.storedscripts.PutStoredScriptRequest;
+import org.opensearch.action.bulk.BulkItemResponse;
+import org.opensearch.action.bulk.BulkRequest;
 import org.opensearch.action.search.MultiSearchRequest;
 import org.opensearch.action.search.MultiSearchResponse;
 import org.opensearch.action.search.SearchRequest;
+import org.opensearch.action.search.SearchResponse;
 import org.opensearch.action.update.UpdateRequest;
 import org.opensearch.client.RequestOptions;
 import org.opensearch.client.RestHighLevelClient;
-import org.opensearch.index.query.BoolQueryBuilder;
+import org.opensearch.client.indices.PutMappingRequest;
+import org.opensearch.client.json.JsonpMapper;
+import org.opensearch.client.opensearch.OpenSearchAsyncClient;
+import org.opensearch.client.opensearch.core.GetRequest;
+import org.opensearch.common.bytes.BytesReference;
+import org.opensearch.common.xcontent.XContentFactory;
+import org.opensearch.common.xcontent.XContentType;
+import org.opensearch.index.query.QueryBuilder;
+import org.opensearch.index.reindex.UpdateByQueryRequest;
+import org.opensearch.index.seqno.SequenceNumbers;
+import org.opensearch.rest.RestStatus;
+import org.opensearch.script.Script;
+import org.opensearch.script.ScriptType;
+import org.opensearch.script.mustache.MultiSearchTemplateRequest;
+import org.opensearch.script.mustache.MultiSearchTemplateResponse;
+import org.opensearch.script.mustache.SearchTemplateRequest;
 import org.opensearch.search.SearchHit;
 import org.opensearch.search.builder.SearchSourceBuilder;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import uk.gov.digital.ho.hocs.search.domain.exceptions.ApplicationExceptions;
+import uk.gov.digital.ho.hocs.search.domain.model.CaseData;
 
 import java.io.IOException;
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 import static uk.gov.digital.ho.hocs.search.application.LogEvent.CASE_NOT_FOUND;
+import static uk.gov.digital.ho.hocs.search.application.LogEvent.CASE_UPDATE_CONFLICT;
 import static uk.gov.digital.ho.hocs.search.application.LogEvent.CASE_UPDATE_FAILED;
+import static uk.gov.digital.ho.hocs.search.application.LogEvent.MAPPING_UPDATE_FAILED;
+import static uk.gov.digital.ho.hocs.search.application.LogEvent.SEARCH_BACKFILL_FAILED;
+import static uk.gov.digital.ho.hocs.search.application.LogEvent.SCRIPT_STORE_FAILED;
 
 @Service
 @Slf4j
 public class OpenSearchClient {
 
+    public static final String UPDATE_COLLECTIONS_SCRIPT = "update-collections";
+
+    public static final String VERSIONED_UPDATE_SCRIPT = "versioned-update";
+
+    public static final String EFFECTIVE_PO_TEAM_SCRIPT = "effective-po-team";
+
+    static final String SIZE_PARAM = "size";
+
+    static final String FETCH_SOURCE_PARAM = "fetch_source";
+
     protected final RestHighLevelClient client;
 
     private final int resultsLimit;
 
     private final String aliasPrefix;
 
+    private final int conflictRetries;
+
+    private final MultiSearchBatcher multiSearchBatcher;
+
+    private final WireFormat wireFormat;
+
+    private final OpenSearchAsyncClient asyncClient;
+
     protected OpenSearchClient(RestHighLevelClient client,
+                               OpenSearchAsyncClient asyncClient,
+                               MultiSearchBatcher multiSearchBatcher,
+                               WireFormat wireFormat,
                                @Value("${aws.es.index-prefix}") String aliasPrefix,
-                               @Value("${aws.es.results-limit}") int resultsLimit) {
+                               @Value("${aws.es.results-limit}") int resultsLimit,
+                               @Value("${aws.es.conflict.retries}") int conflictRetries) {
         this.client = client;
+        this.asyncClient = asyncClient;
+        this.multiSearchBatcher = multiSearchBatcher;
+        this.wireFormat = wireFormat;
         this.aliasPrefix = aliasPrefix;
         this.resultsLimit = resultsLimit;
+        this.conflictRetries = conflictRetries;
     }
 
+    @SuppressWarnings("unchecked")
     public Map<String, Object> findById(String indexType, UUID documentId) {
-        var getRequest = new GetRequest(getReadTypeAlias(indexType), documentId.toString());
+        return findDocument(indexType, documentId, Map.class).getSource();
+    }
 
+    /**
+     * Reads a document as the type, along with its sequence number and primary term, so that changes made from it can
+     * be written conditionally. A document that does not exist is read as an empty one.
+     */
+    public <T> IndexedDocument<T> findDocument(String indexType, UUID documentId, Class<T> type) {
         try {
-            var getResponse = client.get(getRequest, RequestOptions.DEFAULT);
-            var responseMap = getResponse.getSourceAsMap();
-            return responseMap == null ? Collections.emptyMap() : responseMap;
+            return findDocumentAsync(indexType, documentId, type).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw new ApplicationExceptions.EntityNotFoundException(
+                    String.format("Unable to find document: %s. %s", documentId, cause), CASE_NOT_FOUND);
+            }
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * Reads a document as the type, completing from the client's I/O threads rather than blocking the caller.
+     */
+    public <T> CompletableFuture<IndexedDocument<T>> findDocumentAsync(String indexType,
+                                                                       UUID documentId,
+                                                                       Class<T> type) {
+        var getRequest = GetRequest.of(get -> get.index(getReadTypeAlias(indexType)).id(documentId.toString()));
+
+        try {
+            return asyncClient.get(getRequest, type).thenApply(getResponse -> new IndexedDocument<>(
+                getResponse.source() == null ? empty(type) : getResponse.source(),
+                Objects.requireNonNullElse(getResponse.seqNo(), SequenceNumbers.UNASSIGNED_SEQ_NO),
+                Objects.requireNonNullElse(getResponse.primaryTerm(), SequenceNumbers.UNASSIGNED_PRIMARY_TERM)));
         } catch (IOException e) {
-            throw new ApplicationExceptions.EntityNotFoundException(
-                String.format("Unable to find document: %s. %s", documentId, e), CASE_NOT_FOUND);
+            return CompletableFuture.failedFuture(e);
         }
     }
 
+    private <T> T empty(Class<T> type) {
+        JsonpMapper mapper = asyncClient._transport().jsonpMapper();
+        return mapper.deserialize(mapper.jsonProvider().createParser(new StringReader("{}")), type);
+    }
+
     public void update(String indexType, UUID documentId, Map<String, Object> data) {
-        var updateRequest = new UpdateRequest(getWriteTypeAlias(indexType), documentId.toString())
-            .docAsUpsert(true)
-            .doc(data);
+        update(new DocumentUpdate(indexType, documentId, data));
+    }
+
+    /**
+     * @return false if the update was skipped because the document was already from a later event
+     * @throws ApplicationExceptions.VersionConflictException if the document changed while the update was applied, or
+     * since it was read for a conditional update
+     */
+    public boolean update(DocumentUpdate update) {
+        var updateRequest = createUpdateRequest(update, wireFormat.getType());
 
         try {
-            client.update(updateRequest, RequestOptions.DEFAULT);
+            var updateResponse = client.update(updateRequest, wireFormat.getRequestOptions());
+            // versioned updates are scripted, and scripts only skip a write when the event is stale
+            return !(update.isVersioned() && updateResponse != null
+                && updateResponse.getResult() == DocWriteResponse.Result.NOOP);
+        } catch (OpenSearchStatusException e) {
+            if (e.status() == RestStatus.CONFLICT) {
+                throw new ApplicationExceptions.VersionConflictException(
+                    String.format("Version conflict updating document: %s.", update.getDocumentId()),
+                    CASE_UPDATE_CONFLICT);
+            }
+            if (wireFormat.fallBack(e)) {
+                return update(update);
+            }
+            throw e;
         } catch (IOException e) {
             throw new ApplicationExceptions.ResourceServerException(
-                String.format("Unable to update document: %s. %s", documentId, e), CASE_UPDATE_FAILED);
+                String.format("Unable to update document: %s. %s", update.getDocumentId(), e), CASE_UPDATE_FAILED);
         }
     }
 
-    public List<Map<String, Object>> search(Map<String, BoolQueryBuilder> queries) {
-        if (queries == null || queries.isEmpty()) {
-            log.warn("Search failed, returning empty set. No indexes provided.");
+    /**
+     * Sends the updates as a single bulk request.
+     *
+     * @return whether each update succeeded, in the same order as the updates
+     */
+    public List<Boolean> bulkUpdate(List<DocumentUpdate> updates) {
+        if (updates.isEmpty()) {
             return Collections.emptyList();
         }
 
+        var bulkRequest = new BulkRequest();
+        updates.forEach(update -> bulkRequest.add(createUpdateRequest(update, wireFormat.getBulkType())));
+
+        try {
+            var bulkResponse = client.bulk(bulkRequest, wireFormat.getRequestOptions());
+
+            List<Boolean> results = new ArrayList<>(updates.size());
+            for (BulkItemResponse item : bulkResponse.getItems()) {
+                if (item.isFailed()) {
+                    log.warn("Unable to update document: {}. {}", item.getId(), item.getFailureMessage());
+                }
+                results.add(!item.isFailed());
+            }
+            return results;
+        } catch (OpenSearchStatusException e) {
+            if (wireFormat.fallBack(e)) {
+                return bulkUpdate(updates);
+            }
+            throw e;
+        } catch (IOException e) {
+            throw new ApplicationExceptions.ResourceServerException(
+                String.format("Unable to bulk update %d documents. %s", updates.size(), e), CASE_UPDATE_FAILED);
+        }
+    }
+
+    public List<Map<String, Object>> search(Map<String, ? extends SearchQuery> queries) {
+        return search(List.of(queries), true, SearchHit::getSourceAsMap).get(0);
+    }
+
+    /**
+     * Searches without fetching the source of the matching documents, whose ids are the case UUIDs.
+     */
+    public List<UUID> searchIds(Map<String, ? extends SearchQuery> queries) {
+        return search(List.of(queries), false, OpenSearchClient::getCaseUuid).get(0);
+    }
+
+    /**
+     * Runs several searches, each of queries by case type, as a single multi search.
+     *
+     * @return the ids matching each search, in the same order as the searches
+     */
+    public List<List<UUID>> batchSearchIds(List<? extends Map<String, ? extends SearchQuery>> queries) {
+        return search(queries, false, OpenSearchClient::getCaseUuid);
+    }
+
+    /**
+     * Searches without fetching the source of the matching documents, completing from the client's I/O threads
+     * rather than blocking the caller.
+     */
+    public CompletableFuture<List<UUID>> searchIdsAsync(Map<String, ? extends SearchQuery> queries) {
+        return searchAsync(List.of(queries), false, OpenSearchClient::getCaseUuid).thenApply(results -> results.get(0));
+    }
+
+    public CompletableFuture<List<List<UUID>>> batchSearchIdsAsync(
+        List<? extends Map<String, ? extends SearchQuery>> queries) {
+        return searchAsync(queries, false, OpenSearchClient::getCaseUuid);
+    }
+
+    private <T> List<List<T>> search(List<? extends Map<String, ? extends SearchQuery>> searches,
+                                     boolean fetchSource,
+                                     Function<SearchHit, T> hitMapper) {
+        if (isEmpty(searches)) {
+            return noResults(searches);
+        }
+
+        try {
+            if (isStoredTemplates(searches)) {
+                var searchTemplateResponse = client.msearchTemplate(
+                    createSearchTemplateRequest(searches, fetchSource), wireFormat.getRequestOptions());
+                return getSearchResults(searches, getSearchTemplateResponses(searchTemplateResponse), hitMapper);
+            }
+
+            var searchRequest = createSearchRequest(searches, fetchSource);
+            var searchResponse = multiSearchBatcher.isEnabled()
+                ? multiSearchBatcher.msearch(searchRequest)
+                : client.msearch(searchRequest, wireFormat.getRequestOptions());
+            return getSearchResults(searches, getSearchResponses(searchResponse), hitMapper);
+        } catch (OpenSearchStatusException e) {
+            if (wireFormat.fallBack(e)) {
+                return search(searches, fetchSource, hitMapper);
+            }
+            throw e;
+        } catch (IOException e) {
+            log.warn("Search failed, returning empty set. {}", e.toString());
+            return noResults(searches);
+        }
+    }
+
+    private <T> CompletableFuture<List<List<T>>> searchAsync(
+        List<? extends Map<String, ? extends SearchQuery>> searches,
+        boolean fetchSource,
+        Function<SearchHit, T> hitMapper) {
+        if (isEmpty(searches)) {
+            return CompletableFuture.completedFuture(noResults(searches));
+        }
+
+        var future = new CompletableFuture<List<List<T>>>();
+        if (isStoredTemplates(searches)) {
+            client.msearchTemplateAsync(createSearchTemplateRequest(searches, fetchSource),
+                wireFormat.getRequestOptions(),
+                searchListener(future, searches,
+                    response -> getSearchResults(searches, getSearchTemplateResponses(response), hitMapper)));
+        } else if (multiSearchBatcher.isEnabled()) {
+            multiSearchBatcher.msearchAsync(createSearchRequest(searches, fetchSource), searchListener(future, searches,
+                response -> getSearchResults(searches, getSearchResponses(response), hitMapper)));
+        } else {
+            client.msearchAsync(createSearchRequest(searches, fetchSource), wireFormat.getRequestOptions(),
+                searchListener(future, searches,
+                    response -> getSearchResults(searches, getSearchResponses(response), hitMapper)));
+        }
+        return future.exceptionallyCompose(e -> wireFormat.fallBack(unwrap(e))
+            ? searchAsync(searches, fetchSource, hitMapper)
+            : CompletableFuture.failedFuture(e));
+    }
+
+    private static Exception unwrap(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return cause instanceof Exception exception ? exception : null;
+    }
+
+    /**
+     * Completes the searches with their results, or with no results on the same I/O failures as a blocking search.
+     */
+    private static <R, T> ActionListener<R> searchListener(CompletableFuture<List<List<T>>> future,
+                                                           List<?> searches,
+                                                           Function<R, List<List<T>>> resultMapper) {
+        return ActionListener.wrap(response -> future.complete(resultMapper.apply(response)), e -> {
+            if (e instanceof IOException) {
+                log.warn("Search failed, returning empty set. {}", e.toString());
+                future.complete(noResults(searches));
+            } else {
+                future.completeExceptionally(e);
+            }
+        });
+    }
+
+    private static boolean isEmpty(List<? extends Map<String, ? extends SearchQuery>> searches) {
+        if (searches.stream().allMatch(queries -> queries == null || queries.isEmpty())) {
+            log.warn("Search failed, returning empty set. No indexes provided.");
+            return true;
+        }
+        return false;
+    }
+
+    private static <T> List<List<T>> noResults(List<?> searches) {
+        return Collections.nCopies(searches.size(), Collections.emptyList());
+    }
+
+    private static UUID getCaseUuid(SearchHit hit) {
+        return UUID.fromString(hit.getId());
+    }
+
+    private MultiSearchRequest createSearchRequest(List<? extends Map<String, ? extends SearchQuery>> searches,
+                                                   boolean fetchSource) {
         var searchRequest = new MultiSearchRequest();
 
-        queries.forEach((index, query) -> {
+        forEachQuery(searches, (index, query) -> {
             var searchSourceBuilder = new SearchSourceBuilder()
-                .query(query)
+                .query(query.toQueryBuilder())
+                .fetchSource(fetchSource)
                 .size(resultsLimit);
             searchRequest.add(new SearchRequest(new String[] { getReadTypeAlias(index) }, searchSourceBuilder));
         });
+        return searchRequest;
+    }
 
-        try {
-            var searchResponse = client.msearch(searchRequest, RequestOptions.DEFAULT);
-            return getSearchResult(searchResponse);
-        } catch (IOException e) {
-            log.warn("Search failed, returning empty set. {}", e.toString());
-            return Collections.emptyList();
+    /**
+     * Searches through the stored search templates of the queries, which sends only their parameters.
+     */
+    private MultiSearchTemplateRequest createSearchTemplateRequest(
+        List<? extends Map<String, ? extends SearchQuery>> searches,
+        boolean fetchSource) {
+        var searchTemplateRequest = new MultiSearchTemplateRequest();
+
+        forEachQuery(searches, (index, query) -> {
+            var jsonQuery = (JsonQuery) query;
+            Map<String, Object> params = new HashMap<>(jsonQuery.getTemplateParams());
+            params.put(SIZE_PARAM, resultsLimit);
+            params.put(FETCH_SOURCE_PARAM, fetchSource);
+
+            var templateRequest = new SearchTemplateRequest(new SearchRequest(getReadTypeAlias(index)));
+            templateRequest.setScriptType(ScriptType.STORED);
+            templateRequest.setScript(getScriptId(jsonQuery.getTemplateName()));
+            templateRequest.setScriptParams(params);
+            searchTemplateRequest.add(templateRequest);
+        });
+        return searchTemplateRequest;
+    }
+
+    private static void forEachQuery(List<? extends Map<String, ? extends SearchQuery>> searches,
+                                     BiConsumer<String, SearchQuery> action) {
+        for (var queries : searches) {
+            if (queries != null) {
+                queries.forEach(action);
+            }
         }
     }
 
-    private List<Map<String, Object>> getSearchResult(MultiSearchResponse response) {
+    private static boolean isStoredTemplates(List<? extends Map<String, ? extends SearchQuery>> searches) {
+        return searches.stream()
+            .filter(Objects::nonNull)
+            .flatMap(queries -> queries.values().stream())
+            .allMatch(OpenSearchClient::isStoredTemplate);
+    }
+
+    private static boolean isStoredTemplate(SearchQuery query) {
+        return query instanceof JsonQuery jsonQuery && jsonQuery.getTemplateName() != null;
+    }
+
+    /**
+     * @return the response to each query, or null for each that failed
+     */
+    private static List<SearchResponse> getSearchResponses(MultiSearchResponse response) {
         if (response == null || response.getResponses() == null) {
-            return Collections.emptyList();
+            return null;
         }
 
-        List<Map<String, Object>> results = new ArrayList<>();
-        for (var searchResponse : response.getResponses()) {
-            if (searchResponse.isFailure()) {
-                log.warn("Search failed, returning empty set. {}", searchResponse.getFailureMessage());
-                return Collections.emptyList();
+        List<SearchResponse> searchResponses = new ArrayList<>();
+        for (var item : response.getResponses()) {
+            if (item.isFailure()) {
+                log.warn("Search failed, returning empty set. {}", item.getFailureMessage());
             }
+            searchResponses.add(item.isFailure() ? null : item.getResponse());
+        }
+        return searchResponses;
+    }
 
-            for (SearchHit hit : searchResponse.getResponse().getHits()) {
-                results.add(hit.getSourceAsMap());
+    private static List<SearchResponse> getSearchTemplateResponses(MultiSearchTemplateResponse response) {
+        if (response == null || response.getResponses() == null) {
+            return null;
+        }
+
+        List<SearchResponse> searchResponses = new ArrayList<>();
+        for (var item : response.getResponses()) {
+            if (item.isFailure()) {
+                log.warn("Search failed, returning empty set. {}", item.getFailureMessage());
+            }
+            searchResponses.add(item.isFailure() ? null : item.getResponse().getResponse());
+        }
+        return searchResponses;
+    }
+
+    /**
+     * Splits the responses to the queries of all the searches back into the results of each search. A search with any
+     * failed query has no results.
+     */
+    private <T> List<List<T>> getSearchResults(List<? extends Map<String, ? extends SearchQuery>> searches,
+                                               List<SearchResponse> searchResponses,
+                                               Function<SearchHit, T> hitMapper) {
+        if (searchResponses == null) {
+            return noResults(searches);
+        }
+
+        List<List<T>> results = new ArrayList<>(searches.size());
+        int from = 0;
+        for (var queries : searches) {
+            int to = from + (queries == null ? 0 : queries.size());
+            var responses = searchResponses.subList(from, to);
+            results.add(responses.contains(null) ? Collections.emptyList() : getHits(responses, hitMapper));
+            from = to;
+        }
+        return results;
+    }
+
+    private <T> List<T> getHits(List<SearchResponse> searchResponses, Function<SearchHit, T> hitMapper) {
+        List<T> results = new ArrayList<>();
+        for (var searchResponse : searchResponses) {
+            for (SearchHit hit : searchResponse.getHits()) {
+                results.add(hitMapper.apply(hit));
 
                 if (results.size() == resultsLimit) {
                     return results;
@@ -117,6 +468,144 @@ public class OpenSearchClient {
         return results;
     }
 
+    /**
+     * Stores a painless script in the cluster so that updates can refer to it by name.
+     */
+    public void putScript(String name, String source) {
+        putScript(name, "painless", source);
+    }
+
+    /**
+     * Stores a mustache search template for a query in the cluster, so that searches can send only its parameters.
+     * The number of hits and whether their source is fetched are left to the search. Completes from the client's I/O
+     * threads rather than blocking the caller.
+     */
+    public CompletableFuture<Void> putSearchTemplateAsync(String name, String querySource) {
+        var future = new CompletableFuture<Void>();
+        try {
+            client.putScriptAsync(putScriptRequest(name, "mustache", String.format(
+                    "{\"size\":{{%s}},\"_source\":{{%s}},\"query\":%s}", SIZE_PARAM, FETCH_SOURCE_PARAM, querySource)),
+                RequestOptions.DEFAULT, ActionListener.wrap(response -> future.complete(null),
+                    e -> future.completeExceptionally(new ApplicationExceptions.ResourceServerException(
+                        String.format("Unable to store script: %s. %s", name, e), SCRIPT_STORE_FAILED))));
+        } catch (IOException | RuntimeException e) {
+            future.completeExceptionally(new ApplicationExceptions.ResourceServerException(
+                String.format("Unable to store script: %s. %s", name, e), SCRIPT_STORE_FAILED));
+        }
+        return future;
+    }
+
+    private void putScript(String name, String lang, String source) {
+        try {
+            client.putScript(putScriptRequest(name, lang, source), RequestOptions.DEFAULT);
+        } catch (IOException e) {
+            throw new ApplicationExceptions.ResourceServerException(
+                String.format("Unable to store script: %s. %s", name, e), SCRIPT_STORE_FAILED);
+        }
+    }
+
+    private PutStoredScriptRequest putScriptRequest(String name, String lang, String source) throws IOException {
+        var content = XContentFactory.jsonBuilder()
+            .startObject()
+            .startObject("script")
+            .field("lang", lang)
+            .field("source", source)
+            .endObject()
+            .endObject();
+        return new PutStoredScriptRequest()
+            .id(getScriptId(name))
+            .content(BytesReference.bytes(content), XContentType.JSON);
+    }
+
+    /**
+     * Adds fields to the mapping of the index for the case type. Fields that are already mapped must be unchanged.
+     */
+    public void putMapping(String indexType, String source) {
+        var putMappingRequest = new PutMappingRequest(getWriteTypeAlias(indexType)).source(source, XContentType.JSON);
+
+        try {
+            client.indices().putMapping(putMappingRequest, RequestOptions.DEFAULT);
+        } catch (IOException | OpenSearchStatusException e) {
+            throw new ApplicationExceptions.ResourceServerException(
+                String.format("Unable to update mapping for: %s. %s", indexType, e), MAPPING_UPDATE_FAILED);
+        }
+    }
+
+    /**
+     * Starts a task that runs a stored script over the documents of the case type matching the query. Documents
+     * written while the task runs are skipped rather than failing the task.
+     *
+     * @return the id of the task
+     */
+    public String updateByQuery(String indexType, QueryBuilder query, String scriptName, Map<String, Object> params) {
+        var updateByQueryRequest = new UpdateByQueryRequest(getWriteTypeAlias(indexType));
+        updateByQueryRequest.setQuery(query);
+        updateByQueryRequest.setScript(
+            new Script(ScriptType.STORED, null, getScriptId(scriptName), params));
+        updateByQueryRequest.setAbortOnVersionConflict(false);
+
+        try {
+            return client.submitUpdateByQueryTask(updateByQueryRequest, RequestOptions.DEFAULT).getTask();
+        } catch (IOException | OpenSearchStatusException e) {
+            throw new ApplicationExceptions.ResourceServerException(
+                String.format("Unable to update documents for: %s. %s", indexType, e), SEARCH_BACKFILL_FAILED);
+        }
+    }
+
+    /**
+     * Builds the update with its document, and any upsert, in the content type, which must be the same for both.
+     */
+    private UpdateRequest createUpdateRequest(DocumentUpdate update, XContentType type) {
+        var updateRequest = new UpdateRequest(getWriteTypeAlias(update.getIndexType()),
+            update.getDocumentId().toString());
+
+        if (update.getCollectionUpdate() != null) {
+            return updateRequest
+                .script(new Script(ScriptType.STORED, null, getScriptId(UPDATE_COLLECTIONS_SCRIPT),
+                    update.getCollectionUpdate().toParams()))
+                .scriptedUpsert(true)
+                .upsert(Collections.emptyMap(), type)
+                .retryOnConflict(conflictRetries);
+        }
+
+        if (update.getVersionField() != null || update.isDerivingEffectivePOTeam()) {
+            Map<String, Object> params = new HashMap<>();
+            params.put("doc", update.getDocument());
+            params.put("field", update.getVersionField());
+            if (update.isDerivingEffectivePOTeam()) {
+                params.put("poTeamFields", CaseData.PO_TEAM_FIELDS);
+            }
+            return updateRequest
+                .script(new Script(ScriptType.STORED, null, getScriptId(VERSIONED_UPDATE_SCRIPT), params))
+                .scriptedUpsert(true)
+                .upsert(Collections.emptyMap(), type)
+                .retryOnConflict(conflictRetries);
+        }
+
+        if (update.getSource() != null && type == XContentType.JSON) {
+            updateRequest.doc(update.getSource().getBytes(), XContentType.JSON);
+        } else if (update.getSource() != null) {
+            updateRequest.doc(WireFormat.convert(update.getSource().getBytes(), type));
+        } else {
+            updateRequest.doc(update.getData(), type);
+        }
+
+        if (update.isConditional()) {
+            // conditional writes can neither upsert nor be retried, the caller rebuilds the update instead
+            return updateRequest
+                .setIfSeqNo(update.getIfSeqNo())
+                .setIfPrimaryTerm(update.getIfPrimaryTerm());
+        }
+
+        return updateRequest
+            .docAsUpsert(true)
+            .retryOnConflict(conflictRetries);
+    }
+
+    private String getScriptId(String name) {
+        return String.format("%s-%s", aliasPrefix, name);
+    }
+
     private String getWriteTypeAlias(String type) {
         return String.format("%s-%s-write", aliasPrefix, type.toLowerCase());
     }
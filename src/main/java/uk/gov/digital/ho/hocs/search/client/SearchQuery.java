@@ -0,0 +1,34 @@
+package uk.gov.digital.ho.hocs.search.client;
+
+import org.opensearch.index.query.QueryBuilder;
+
+/**
+ * The query searching the cases of one case type: either built by the client, or already serialised to JSON by
+ * {@link CaseQueryTemplates}.
+ */
+public sealed interface SearchQuery permits SearchQuery.Built, JsonQuery {
+
+    static SearchQuery of(QueryBuilder query) {
+        return new Built(query);
+    }
+
+    /**
+     * @return the query to send in a search request
+     */
+    QueryBuilder toQueryBuilder();
+
+    record Built(QueryBuilder query) implements SearchQuery {
+
+        @Override
+        public QueryBuilder toQueryBuilder() {
+            return query;
+        }
+
+        @Override
+        public String toString() {
+            return query.toString();
+        }
+
+    }
+
+}
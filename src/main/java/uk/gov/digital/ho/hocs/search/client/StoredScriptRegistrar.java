@@ -0,0 +1,63 @@
+package uk.gov.digital.ho.hocs.search.client;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import uk.gov.digital.ho.hocs.search.application.LogEvent;
+import uk.gov.digital.ho.hocs.search.domain.exceptions.ApplicationExceptions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static net.logstash.logback.argument.StructuredArguments.value;
+import static uk.gov.digital.ho.hocs.search.application.LogEvent.EVENT;
+import static uk.gov.digital.ho.hocs.search.client.OpenSearchClient.EFFECTIVE_PO_TEAM_SCRIPT;
+import static uk.gov.digital.ho.hocs.search.client.OpenSearchClient.UPDATE_COLLECTIONS_SCRIPT;
+import static uk.gov.digital.ho.hocs.search.client.OpenSearchClient.VERSIONED_UPDATE_SCRIPT;
+
+/**
+ * Stores the scripts used for server side updates before any messages are consumed.
+ */
+@Slf4j
+@Component
+public class StoredScriptRegistrar {
+
+    private final OpenSearchClient openSearchClient;
+
+    public StoredScriptRegistrar(OpenSearchClient openSearchClient) {
+        this.openSearchClient = openSearchClient;
+    }
+
+    @PostConstruct
+    public void registerScripts() {
+        registerScript(UPDATE_COLLECTIONS_SCRIPT);
+        registerScript(VERSIONED_UPDATE_SCRIPT);
+        registerScript(EFFECTIVE_PO_TEAM_SCRIPT);
+    }
+
+    private void registerScript(String name) {
+        String source = readScript(name);
+        try {
+            openSearchClient.putScript(name, source);
+            log.info("Stored script {}", name);
+        } catch (ApplicationExceptions.ResourceServerException e) {
+            // updates using the script fail until it is stored, which is retried on the next start
+            log.error(e.getMessage(), value(EVENT, e.getEvent()));
+        }
+    }
+
+    private static String readScript(String name) {
+        try (InputStream in = Thread.currentThread().getContextClassLoader().getResourceAsStream(
+            String.format("scripts/%s.painless", name))) {
+            if (in == null) {
+                throw new IOException("Script not found");
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new ApplicationExceptions.ConfigFileReadException(
+                String.format("Unable to read script: %s", name), LogEvent.CONFIG_PARSE_FAILURE);
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+package uk.gov.digital.ho.hocs.search.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.opensearch.OpenSearchStatusException;
+import org.opensearch.client.RequestOptions;
+import org.opensearch.common.bytes.BytesArray;
+import org.opensearch.common.xcontent.DeprecationHandler;
+import org.opensearch.common.xcontent.NamedXContentRegistry;
+import org.opensearch.common.xcontent.XContentBuilder;
+import org.opensearch.common.xcontent.XContentFactory;
+import org.opensearch.common.xcontent.XContentParser;
+import org.opensearch.common.xcontent.XContentType;
+import org.opensearch.rest.RestStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+
+/**
+ * The content type of the documents written to OpenSearch and of the search responses read back: {@code json},
+ * {@code smile} or {@code cbor}. Binary formats are cheaper to generate and parse than JSON on both sides, but the
+ * client can only send bulk requests as JSON or SMILE, so CBOR bulk requests are sent as SMILE, and search requests are
+ * always sent as JSON.
+ * <p>
+ * When OpenSearch, or a proxy in front of it, refuses a binary request or response, everything falls back to JSON for
+ * the life of the client.
+ */
+@Slf4j
+@Component
+public class WireFormat {
+
+    private final XContentType configured;
+
+    private volatile boolean fallenBack;
+
+    private volatile RequestOptions requestOptions;
+
+    public WireFormat(@Value("${aws.es.wire-format:json}") String format) {
+        this.configured = XContentType.valueOf(format.toUpperCase(Locale.ROOT));
+        if (configured != XContentType.JSON && configured != XContentType.SMILE && configured != XContentType.CBOR) {
+            throw new IllegalArgumentException(String.format("Unsupported OpenSearch wire format: %s", format));
+        }
+        this.requestOptions = requestOptions(configured);
+        if (configured != XContentType.JSON) {
+            log.info("Writing documents and reading search responses as {}", configured);
+        }
+    }
+
+    public XContentType getType() {
+        return fallenBack ? XContentType.JSON : configured;
+    }
+
+    public XContentType getBulkType() {
+        XContentType type = getType();
+        return type == XContentType.CBOR ? XContentType.SMILE : type;
+    }
+
+    /**
+     * Asks for responses in the wire format.
+     */
+    public RequestOptions getRequestOptions() {
+        return requestOptions;
+    }
+
+    /**
+     * Converts a JSON document to the content type, which the client then sends as it is.
+     */
+    public static XContentBuilder convert(byte[] json, XContentType type) {
+        try (XContentParser parser = XContentType.JSON.xContent().createParser(NamedXContentRegistry.EMPTY,
+            DeprecationHandler.THROW_UNSUPPORTED_OPERATION, new BytesArray(json).streamInput())) {
+            return XContentFactory.contentBuilder(type).copyCurrentStructure(parser);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Falls back to JSON when the failure was the binary format being refused.
+     *
+     * @return whether the request should be sent again, as JSON
+     */
+    public boolean fallBack(Exception e) {
+        if (fallenBack || configured == XContentType.JSON || !(e instanceof OpenSearchStatusException statusException)
+            || (statusException.status() != RestStatus.NOT_ACCEPTABLE
+            && statusException.status() != RestStatus.UNSUPPORTED_MEDIA_TYPE)) {
+            return false;
+        }
+        log.warn("OpenSearch refused {}, falling back to JSON. {}", configured, e.toString());
+        requestOptions = requestOptions(XContentType.JSON);
+        fallenBack = true;
+        return true;
+    }
+
+    private static RequestOptions requestOptions(XContentType type) {
+        if (type == XContentType.JSON) {
+            return RequestOptions.DEFAULT;
+        }
+        return RequestOptions.DEFAULT.toBuilder().addHeader("Accept", type.mediaTypeWithoutParameters()).build();
+    }
+
+}
@@ -77,4 +77,12 @@ public interface ApplicationExceptions {
 
     }
 
+    class VersionConflictException extends ResourceException {
+
+        public VersionConflictException(String msg, LogEvent event, Object... args) {
+            super(msg, event, args);
+        }
+
+    }
+
 }
@@ -7,6 +7,7 @@ import uk.gov.digital.ho.hocs.search.api.dto.UpdateCaseRequest;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -14,6 +15,12 @@ import java.util.UUID;
 @Data
 public class CaseData {
 
+    /**
+     * The data fields holding the private office team of a case, in order of precedence.
+     */
+    public static final List<String> PO_TEAM_FIELDS = List.of("PrivateOfficeOverridePOTeamUUID",
+        "OverridePOTeamUUID", "POTeamUUID");
+
     private UUID caseUUID;
 
     private LocalDateTime created;
@@ -34,6 +41,15 @@ public class CaseData {
 
     private String migratedReference;
 
+    private Long eventTime;
+
+    /**
+     * The private office team the case is searched by, taken from the first of {@link #PO_TEAM_FIELDS} that is not
+     * empty. Left out when the data holds none of them, so the indexed value is kept. When the data holds any of them
+     * the value is worked out again once the data has been merged into the indexed document.
+     */
+    private String effectivePOTeamUUID;
+
     public CaseData(CreateCaseRequest createCaseRequest) {
         this.caseUUID = createCaseRequest.getUuid();
         this.created = createCaseRequest.getCreated();
@@ -43,6 +59,7 @@ public class CaseData {
         this.dateReceived = createCaseRequest.getDateReceived();
         this.data = createCaseRequest.getData();
         this.migratedReference = createCaseRequest.getMigratedReference();
+        this.effectivePOTeamUUID = effectivePOTeamUUID(this.data);
     }
 
     public CaseData(UpdateCaseRequest updateCaseRequest) {
@@ -55,7 +72,20 @@ public class CaseData {
         this.dateReceived = updateCaseRequest.getDateReceived();
         this.data = updateCaseRequest.getData();
         this.migratedReference = updateCaseRequest.getMigratedReference();
+        this.effectivePOTeamUUID = effectivePOTeamUUID(this.data);
     }
 
+    private static String effectivePOTeamUUID(Map<String, Object> data) {
+        if (data == null) {
+            return null;
+        }
+        for (String field : PO_TEAM_FIELDS) {
+            Object team = data.get(field);
+            if (team != null && !team.toString().isEmpty()) {
+                return team.toString();
+            }
+        }
+        return null;
+    }
 
 }
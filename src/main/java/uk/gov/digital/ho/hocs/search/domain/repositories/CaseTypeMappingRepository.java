@@ -7,6 +7,7 @@ import uk.gov.digital.ho.hocs.search.application.LogEvent;
 import uk.gov.digital.ho.hocs.search.domain.exceptions.ApplicationExceptions;
 import uk.gov.digital.ho.hocs.search.domain.repositories.entities.CaseTypeMapping;
 
+import java.util.Set;
 import java.util.UUID;
 
 @Service
@@ -32,6 +33,10 @@ public class CaseTypeMappingRepository extends JsonConfigFileReader {
         return mappedCaseType;
     }
 
+    public Set<String> getCaseTypes() {
+        return caseTypeMapping.getCaseTypes();
+    }
+
     @Override
     String getFileName() {
         return "case-types";
@@ -4,6 +4,8 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonValue;
 
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 public class CaseTypeMapping {
 
@@ -19,4 +21,8 @@ public class CaseTypeMapping {
         return caseTypeMappings.get(shortCode);
     }
 
+    public Set<String> getCaseTypes() {
+        return new TreeSet<>(caseTypeMappings.values());
+    }
+
 }
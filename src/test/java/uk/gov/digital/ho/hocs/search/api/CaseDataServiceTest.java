@@ -1,10 +1,14 @@
 package uk.gov.digital.ho.hocs.search.api;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatcher;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import uk.gov.digital.ho.hocs.search.api.dto.CorrespondentDetailsDto;
@@ -17,26 +21,45 @@ import uk.gov.digital.ho.hocs.search.api.dto.SomuItemDto;
 import uk.gov.digital.ho.hocs.search.api.dto.UpdateCaseRequest;
 import uk.gov.digital.ho.hocs.search.api.helpers.ObjectMapperConverterHelper;
 import uk.gov.digital.ho.hocs.search.client.CaseQueryFactory;
+import uk.gov.digital.ho.hocs.search.client.CaseQueryTemplates;
+import uk.gov.digital.ho.hocs.search.client.CollectionUpdate;
+import uk.gov.digital.ho.hocs.search.client.ConflictRetrier;
+import uk.gov.digital.ho.hocs.search.client.DocumentUpdate;
+import uk.gov.digital.ho.hocs.search.client.IndexedDocument;
 import uk.gov.digital.ho.hocs.search.client.OpenSearchClient;
+import uk.gov.digital.ho.hocs.search.client.PainlessScripts;
 import uk.gov.digital.ho.hocs.search.domain.model.CaseData;
+import uk.gov.digital.ho.hocs.search.domain.exceptions.ApplicationExceptions;
+import uk.gov.digital.ho.hocs.search.domain.model.Correspondent;
+import uk.gov.digital.ho.hocs.search.domain.model.CorrespondentCaseData;
+import uk.gov.digital.ho.hocs.search.domain.model.SomuCaseData;
+import uk.gov.digital.ho.hocs.search.domain.model.TopicCaseData;
 import uk.gov.digital.ho.hocs.search.domain.repositories.CaseTypeMappingRepository;
 import uk.gov.digital.ho.hocs.search.domain.repositories.FieldQueryTypeMappingRepository;
 import uk.gov.digital.ho.hocs.search.helpers.AllMapKeyMatcher;
 import uk.gov.digital.ho.hocs.search.helpers.CaseTypeUuidHelper;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.text.SimpleDateFormat;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
-import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static uk.gov.digital.ho.hocs.search.application.LogEvent.CASE_UPDATE_CONFLICT;
 
 @ExtendWith(MockitoExtension.class)
 class CaseDataServiceTest {
@@ -71,32 +94,81 @@ class CaseDataServiceTest {
 
     private CaseDataService caseDataService;
 
+    private ConflictRetrier conflictRetrier;
+
+    private SimpleMeterRegistry meterRegistry;
+
     @BeforeEach
     public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        conflictRetrier = new ConflictRetrier(new SimpleMeterRegistry(), 2, 0);
         objectMapper = new ObjectMapper().setDateFormat(new SimpleDateFormat("yyyy-MM-dd")).registerModule(
             new JavaTimeModule());
 
-        caseDataService = new CaseDataService(objectMapper, openSearchClient, caseTypeMappingRepository, new CaseQueryFactory(fieldQueryTypeMappingRepository));
+        caseDataService = new CaseDataService(objectMapper, openSearchClient, caseTypeMappingRepository,
+            caseQueryTemplates(), conflictRetrier, disabledCache(), disabledCoalescer(), meterRegistry, false);
     }
 
     @Test
     void createCase() {
         CaseData caseData = new CaseData(validCreateCaseRequest);
 
-        caseDataService.createCase(validCreateCaseRequest.getUuid(), validCreateCaseRequest);
+        caseDataService.createCase(validCreateCaseRequest.getUuid(), validCreateCaseRequest, null);
 
-        verify(openSearchClient).update(validCreateCaseRequest.getType(), validCreateCaseRequest.getUuid(),
-            ObjectMapperConverterHelper.convertObjectToMap(objectMapper, caseData));
+        verify(openSearchClient).update(argThat(sourceUpdate(validCreateCaseRequest.getType(),
+            validCreateCaseRequest.getUuid(), ObjectMapperConverterHelper.convertObjectToMap(objectMapper, caseData))));
     }
 
     @Test
     void updateCase() {
         CaseData caseData = new CaseData(validUpdateCaseRequest);
 
-        caseDataService.updateCase(validUpdateCaseRequest.getUuid(), validUpdateCaseRequest);
+        caseDataService.updateCase(validUpdateCaseRequest.getUuid(), validUpdateCaseRequest, null);
 
-        verify(openSearchClient).update(validUpdateCaseRequest.getType(), validUpdateCaseRequest.getUuid(),
-            ObjectMapperConverterHelper.convertObjectToMap(objectMapper, caseData));
+        verify(openSearchClient).update(argThat(sourceUpdate(validUpdateCaseRequest.getType(),
+            validUpdateCaseRequest.getUuid(), ObjectMapperConverterHelper.convertObjectToMap(objectMapper, caseData))));
+    }
+
+    @Test
+    void shouldLeaveRedundantFieldsOutOfCaseDocument() {
+        var createCaseRequest = new CreateCaseRequest(CaseTypeUuidHelper.generateCaseTypeUuid("a1"), null, "MIN", "",
+            null, null, null, null);
+
+        caseDataService.createCase(createCaseRequest.getUuid(), createCaseRequest, null);
+
+        verify(openSearchClient).update(argThat(sourceUpdate("MIN", createCaseRequest.getUuid(),
+            Map.of("caseUUID", createCaseRequest.getUuid().toString(), "type", "MIN"))));
+    }
+
+    @Test
+    void shouldIndexFirstNonEmptyPrivateOfficeTeamAsEffectiveTeam() {
+        Map<String, Object> data = Map.of("PrivateOfficeOverridePOTeamUUID", "", "OverridePOTeamUUID", "OVERRIDE",
+            "POTeamUUID", "TEAM");
+        var updateCaseRequest = new UpdateCaseRequest(CaseTypeUuidHelper.generateCaseTypeUuid("a1"), null, "MIN",
+            "REF", null, null, null, null, data, null);
+
+        caseDataService.updateCase(updateCaseRequest.getUuid(), updateCaseRequest, null);
+
+        verify(openSearchClient).update(
+            argThat(update -> "OVERRIDE".equals(readSource(update).get("effectivePOTeamUUID"))));
+    }
+
+    @Test
+    void shouldWorkOutEffectiveTeamFromMergedDocumentWhenOverrideCleared() {
+        var updateCaseRequest = new UpdateCaseRequest(CaseTypeUuidHelper.generateCaseTypeUuid("a1"), null, "MIN",
+            "REF", null, null, null, null, Map.of("PrivateOfficeOverridePOTeamUUID", ""), null);
+
+        caseDataService.updateCase(updateCaseRequest.getUuid(), updateCaseRequest, null);
+
+        verify(openSearchClient).update(argThat(update -> update.isDerivingEffectivePOTeam()
+            && !readSource(update).containsKey("effectivePOTeamUUID")));
+    }
+
+    @Test
+    void shouldLeaveEffectiveTeamWhenNoPrivateOfficeTeamFieldChanges() {
+        caseDataService.updateCase(validUpdateCaseRequest.getUuid(), validUpdateCaseRequest, null);
+
+        verify(openSearchClient).update(argThat(update -> !update.isDerivingEffectivePOTeam()));
     }
 
     @Test
@@ -105,10 +177,10 @@ class CaseDataServiceTest {
             true);
         when(caseTypeMappingRepository.getCaseTypeByShortCode(deleteCaseRequest.getCaseUUID())).thenReturn("MIN");
 
-        caseDataService.deleteCase(deleteCaseRequest.getCaseUUID(), deleteCaseRequest);
+        caseDataService.deleteCase(deleteCaseRequest.getCaseUUID(), deleteCaseRequest, null);
 
-        verify(openSearchClient).update("MIN", deleteCaseRequest.getCaseUUID(),
-            ObjectMapperConverterHelper.convertObjectToMap(objectMapper, Map.of("deleted", true)));
+        verify(openSearchClient).update(new DocumentUpdate("MIN", deleteCaseRequest.getCaseUUID(),
+            ObjectMapperConverterHelper.convertObjectToMap(objectMapper, Map.of("deleted", true))));
     }
 
     @Test
@@ -118,8 +190,8 @@ class CaseDataServiceTest {
 
         caseDataService.completeCase(caseUuid);
 
-        verify(openSearchClient).update("MIN", caseUuid,
-            ObjectMapperConverterHelper.convertObjectToMap(objectMapper, Map.of("completed", true)));
+        verify(openSearchClient).update(new DocumentUpdate("MIN", caseUuid,
+            ObjectMapperConverterHelper.convertObjectToMap(objectMapper, Map.of("completed", true))));
     }
 
     @Test
@@ -127,11 +199,13 @@ class CaseDataServiceTest {
         UUID caseUUID = CaseTypeUuidHelper.generateCaseTypeUuid("a1");
 
         when(caseTypeMappingRepository.getCaseTypeByShortCode(caseUUID)).thenReturn("MIN");
+        when(openSearchClient.findDocument("MIN", caseUUID, CorrespondentCaseData.class)).thenReturn(
+            new IndexedDocument<>(new CorrespondentCaseData(), 1, 1));
 
-        caseDataService.createCorrespondent(caseUUID, validCorrespondentDetailsDto);
+        caseDataService.createCorrespondent(caseUUID, validCorrespondentDetailsDto, null);
 
-        verify(openSearchClient).update(eq("MIN"), eq(caseUUID),
-            argThat(new AllMapKeyMatcher("allCorrespondents", "currentCorrespondents")));
+        verify(openSearchClient).update(
+            argThat(dataUpdate("MIN", caseUUID, "allCorrespondents", "currentCorrespondents")));
     }
 
     @Test
@@ -139,11 +213,13 @@ class CaseDataServiceTest {
         UUID caseUUID = CaseTypeUuidHelper.generateCaseTypeUuid("a1");
 
         when(caseTypeMappingRepository.getCaseTypeByShortCode(caseUUID)).thenReturn("MIN");
+        when(openSearchClient.findDocument("MIN", caseUUID, CorrespondentCaseData.class)).thenReturn(
+            new IndexedDocument<>(new CorrespondentCaseData(), 1, 1));
 
-        caseDataService.deleteCorrespondent(caseUUID, validCorrespondentDetailsDto);
+        caseDataService.deleteCorrespondent(caseUUID, validCorrespondentDetailsDto, null);
 
-        verify(openSearchClient).update(eq("MIN"), eq(caseUUID),
-            argThat(new AllMapKeyMatcher("allCorrespondents", "currentCorrespondents")));
+        verify(openSearchClient).update(
+            argThat(dataUpdate("MIN", caseUUID, "allCorrespondents", "currentCorrespondents")));
     }
 
     @Test
@@ -151,11 +227,13 @@ class CaseDataServiceTest {
         UUID caseUUID = CaseTypeUuidHelper.generateCaseTypeUuid("a1");
 
         when(caseTypeMappingRepository.getCaseTypeByShortCode(caseUUID)).thenReturn("MIN");
+        when(openSearchClient.findDocument("MIN", caseUUID, CorrespondentCaseData.class)).thenReturn(
+            new IndexedDocument<>(new CorrespondentCaseData(), 1, 1));
 
-        caseDataService.updateCorrespondent(caseUUID, validCorrespondentDetailsDto);
+        caseDataService.updateCorrespondent(caseUUID, validCorrespondentDetailsDto, null);
 
-        verify(openSearchClient).update(eq("MIN"), eq(caseUUID),
-            argThat(new AllMapKeyMatcher("allCorrespondents", "currentCorrespondents")));
+        verify(openSearchClient).update(
+            argThat(dataUpdate("MIN", caseUUID, "allCorrespondents", "currentCorrespondents")));
     }
 
     @Test
@@ -163,13 +241,13 @@ class CaseDataServiceTest {
         UUID caseUUID = CaseTypeUuidHelper.generateCaseTypeUuid("a1");
 
         when(caseTypeMappingRepository.getCaseTypeByShortCode(caseUUID)).thenReturn("MIN");
-        when(openSearchClient.findById("MIN", caseUUID)).thenReturn(Map.of());
+        when(openSearchClient.findDocument("MIN", caseUUID, TopicCaseData.class)).thenReturn(
+            new IndexedDocument<>(new TopicCaseData(), 1, 1));
 
-        caseDataService.createTopic(caseUUID, validCreateTopicRequest);
+        caseDataService.createTopic(caseUUID, validCreateTopicRequest, null);
 
-        verify(openSearchClient).findById("MIN", caseUUID);
-        verify(openSearchClient).update(eq("MIN"), eq(caseUUID),
-            argThat(new AllMapKeyMatcher("allTopics", "currentTopics")));
+        verify(openSearchClient).findDocument("MIN", caseUUID, TopicCaseData.class);
+        verify(openSearchClient).update(argThat(dataUpdate("MIN", caseUUID, "allTopics", "currentTopics")));
     }
 
     @Test
@@ -177,13 +255,13 @@ class CaseDataServiceTest {
         UUID caseUUID = CaseTypeUuidHelper.generateCaseTypeUuid("a1");
 
         when(caseTypeMappingRepository.getCaseTypeByShortCode(caseUUID)).thenReturn("MIN");
-        when(openSearchClient.findById("MIN", caseUUID)).thenReturn(Map.of());
+        when(openSearchClient.findDocument("MIN", caseUUID, TopicCaseData.class)).thenReturn(
+            new IndexedDocument<>(new TopicCaseData(), 1, 1));
 
-        caseDataService.deleteTopic(caseUUID, validDeleteTopicRequest);
+        caseDataService.deleteTopic(caseUUID, validDeleteTopicRequest, null);
 
-        verify(openSearchClient).findById("MIN", caseUUID);
-        verify(openSearchClient).update(eq("MIN"), eq(caseUUID),
-            argThat(new AllMapKeyMatcher("allTopics", "currentTopics")));
+        verify(openSearchClient).findDocument("MIN", caseUUID, TopicCaseData.class);
+        verify(openSearchClient).update(argThat(dataUpdate("MIN", caseUUID, "allTopics", "currentTopics")));
     }
 
     @Test
@@ -191,12 +269,13 @@ class CaseDataServiceTest {
         UUID caseUUID = CaseTypeUuidHelper.generateCaseTypeUuid("a1");
 
         when(caseTypeMappingRepository.getCaseTypeByShortCode(caseUUID)).thenReturn("MIN");
-        when(openSearchClient.findById("MIN", caseUUID)).thenReturn(Map.of());
+        when(openSearchClient.findDocument("MIN", caseUUID, SomuCaseData.class)).thenReturn(
+            new IndexedDocument<>(new SomuCaseData(), 1, 1));
 
-        caseDataService.createSomuItem(caseUUID, validSomuItemDto);
+        caseDataService.createSomuItem(caseUUID, validSomuItemDto, null);
 
-        verify(openSearchClient).findById("MIN", caseUUID);
-        verify(openSearchClient).update(eq("MIN"), eq(caseUUID), argThat(new AllMapKeyMatcher("allSomuItems")));
+        verify(openSearchClient).findDocument("MIN", caseUUID, SomuCaseData.class);
+        verify(openSearchClient).update(argThat(dataUpdate("MIN", caseUUID, "allSomuItems")));
     }
 
     @Test
@@ -204,12 +283,13 @@ class CaseDataServiceTest {
         UUID caseUUID = CaseTypeUuidHelper.generateCaseTypeUuid("a1");
 
         when(caseTypeMappingRepository.getCaseTypeByShortCode(caseUUID)).thenReturn("MIN");
-        when(openSearchClient.findById("MIN", caseUUID)).thenReturn(Map.of());
+        when(openSearchClient.findDocument("MIN", caseUUID, SomuCaseData.class)).thenReturn(
+            new IndexedDocument<>(new SomuCaseData(), 1, 1));
 
-        caseDataService.deleteSomuItem(caseUUID, validSomuItemDto);
+        caseDataService.deleteSomuItem(caseUUID, validSomuItemDto, null);
 
-        verify(openSearchClient).findById("MIN", caseUUID);
-        verify(openSearchClient).update(eq("MIN"), eq(caseUUID), argThat(new AllMapKeyMatcher("allSomuItems")));
+        verify(openSearchClient).findDocument("MIN", caseUUID, SomuCaseData.class);
+        verify(openSearchClient).update(argThat(dataUpdate("MIN", caseUUID, "allSomuItems")));
     }
 
     @Test
@@ -217,12 +297,141 @@ class CaseDataServiceTest {
         UUID caseUUID = CaseTypeUuidHelper.generateCaseTypeUuid("a1");
 
         when(caseTypeMappingRepository.getCaseTypeByShortCode(caseUUID)).thenReturn("MIN");
-        when(openSearchClient.findById("MIN", caseUUID)).thenReturn(Map.of());
+        when(openSearchClient.findDocument("MIN", caseUUID, SomuCaseData.class)).thenReturn(
+            new IndexedDocument<>(new SomuCaseData(), 1, 1));
+
+        caseDataService.updateSomuItem(caseUUID, validSomuItemDto, null);
+
+        verify(openSearchClient).findDocument("MIN", caseUUID, SomuCaseData.class);
+        verify(openSearchClient).update(argThat(dataUpdate("MIN", caseUUID, "allSomuItems")));
+    }
+
+    @Test
+    void shouldWriteTopicOnlyIfDocumentUnchangedSinceRead() {
+        UUID caseUUID = CaseTypeUuidHelper.generateCaseTypeUuid("a1");
+
+        when(caseTypeMappingRepository.getCaseTypeByShortCode(caseUUID)).thenReturn("MIN");
+        when(openSearchClient.findDocument("MIN", caseUUID, TopicCaseData.class)).thenReturn(
+            new IndexedDocument<>(new TopicCaseData(), 7, 2));
+
+        caseDataService.createTopic(caseUUID, validCreateTopicRequest, null);
+
+        verify(openSearchClient).update(
+            argThat(update -> update.isConditional() && update.getIfSeqNo() == 7 && update.getIfPrimaryTerm() == 2));
+    }
+
+    @Test
+    void shouldRereadAndRetryTopicOnVersionConflict() {
+        UUID caseUUID = CaseTypeUuidHelper.generateCaseTypeUuid("a1");
+
+        when(caseTypeMappingRepository.getCaseTypeByShortCode(caseUUID)).thenReturn("MIN");
+        when(openSearchClient.findDocument("MIN", caseUUID, TopicCaseData.class)).thenReturn(
+            new IndexedDocument<>(new TopicCaseData(), 7, 2),
+            new IndexedDocument<>(new TopicCaseData(), 8, 2));
+        when(openSearchClient.update(any(DocumentUpdate.class))).thenThrow(
+            new ApplicationExceptions.VersionConflictException("conflict", CASE_UPDATE_CONFLICT)).thenReturn(true);
+
+        caseDataService.createTopic(caseUUID, validCreateTopicRequest, null);
+
+        verify(openSearchClient, times(2)).findDocument("MIN", caseUUID, TopicCaseData.class);
+        verify(openSearchClient).update(argThat(update -> update.getIfSeqNo() == 8));
+    }
+
+    @Test
+    void shouldUpdateCorrespondentWithScriptWhenScriptedUpdatesEnabled() {
+        UUID caseUUID = CaseTypeUuidHelper.generateCaseTypeUuid("a1");
+        when(caseTypeMappingRepository.getCaseTypeByShortCode(caseUUID)).thenReturn("MIN");
+        var scriptedCaseDataService = new CaseDataService(objectMapper, openSearchClient, caseTypeMappingRepository,
+            caseQueryTemplates(), conflictRetrier, disabledCache(), disabledCoalescer(), meterRegistry, true);
+
+        scriptedCaseDataService.updateCorrespondent(caseUUID, validCorrespondentDetailsDto, null);
+
+        var expected = new CollectionUpdate()
+            .remove(validCorrespondentDetailsDto.getUuid(), "currentCorrespondents")
+            .add(objectMapper.convertValue(Correspondent.from(validCorrespondentDetailsDto), new TypeReference<>() {}),
+                "currentCorrespondents", "allCorrespondents")
+            .keepingVersions("allCorrespondents");
+        verify(openSearchClient).update(new DocumentUpdate("MIN", caseUUID, expected));
+        verify(openSearchClient, never()).findDocument(any(), any(), any());
+    }
+
+    @Test
+    void shouldKeepEachVersionOfAnUpdatedCorrespondentWithScriptAsWhenReadingTheDocument() {
+        UUID caseUUID = CaseTypeUuidHelper.generateCaseTypeUuid("a1");
+        when(caseTypeMappingRepository.getCaseTypeByShortCode(caseUUID)).thenReturn("MIN");
+        var scriptedCaseDataService = new CaseDataService(objectMapper, openSearchClient, caseTypeMappingRepository,
+            caseQueryTemplates(), conflictRetrier, disabledCache(), disabledCoalescer(), meterRegistry, true);
+        var existing = new CorrespondentCaseData();
+        existing.addCorrespondent(validCorrespondentDetailsDto);
+        Map<String, Object> source = objectMapper.convertValue(existing, new TypeReference<>() {});
+        when(openSearchClient.findDocument("MIN", caseUUID, CorrespondentCaseData.class)).thenReturn(
+            new IndexedDocument<>(existing, 1, 1));
+        var updatedCorrespondentDetailsDto = new CorrespondentDetailsDto(validCorrespondentDetailsDto.getUuid(),
+            validCorrespondentDetailsDto.getCreated(), "LAW", "UPDATED FULLNAME", null, "0", "e", "REF", "ExtKey");
+
+        caseDataService.updateCorrespondent(caseUUID, updatedCorrespondentDetailsDto, null);
+        scriptedCaseDataService.updateCorrespondent(caseUUID, updatedCorrespondentDetailsDto, null);
+
+        ArgumentCaptor<DocumentUpdate> updates = ArgumentCaptor.forClass(DocumentUpdate.class);
+        verify(openSearchClient, times(2)).update(updates.capture());
+        PainlessScripts.run(updates.getAllValues().get(1).getCollectionUpdate(), source);
+        Set<Correspondent> readModifyWrite = objectMapper.convertValue(
+            readSource(updates.getAllValues().get(0)).get("allCorrespondents"), new TypeReference<>() {});
+        Set<Correspondent> scripted = objectMapper.convertValue(source.get("allCorrespondents"),
+            new TypeReference<>() {});
+        assertThat(scripted).hasSize(2).isEqualTo(readModifyWrite);
+    }
+
+    @Test
+    void shouldDeleteTopicWithScriptWhenScriptedUpdatesEnabled() {
+        UUID caseUUID = CaseTypeUuidHelper.generateCaseTypeUuid("a1");
+        when(caseTypeMappingRepository.getCaseTypeByShortCode(caseUUID)).thenReturn("MIN");
+        var scriptedCaseDataService = new CaseDataService(objectMapper, openSearchClient, caseTypeMappingRepository,
+            caseQueryTemplates(), conflictRetrier, disabledCache(), disabledCoalescer(), meterRegistry, true);
+
+        scriptedCaseDataService.deleteTopic(caseUUID, validDeleteTopicRequest, null);
+
+        verify(openSearchClient).update(new DocumentUpdate("MIN", caseUUID,
+            new CollectionUpdate().remove(validDeleteTopicRequest.getUuid(), "currentTopics")));
+        verify(openSearchClient, never()).findDocument(any(), any(), any());
+    }
+
+    @Test
+    void shouldVersionCaseUpdateByEventTime() {
+        Instant eventTime = Instant.ofEpochMilli(1_700_000_000_000L);
+        CaseData caseData = new CaseData(validUpdateCaseRequest);
+        caseData.setEventTime(eventTime.toEpochMilli());
+
+        caseDataService.updateCase(validUpdateCaseRequest.getUuid(), validUpdateCaseRequest, eventTime);
+
+        var expected = sourceUpdate(validUpdateCaseRequest.getType(), validUpdateCaseRequest.getUuid(),
+            ObjectMapperConverterHelper.convertObjectToMap(objectMapper, caseData));
+        verify(openSearchClient).update(
+            argThat(update -> expected.matches(update) && "eventTime".equals(update.getVersionField())));
+    }
+
+    @Test
+    void shouldCountStaleUpdates() {
+        when(openSearchClient.update(any(DocumentUpdate.class))).thenReturn(false);
+
+        caseDataService.updateCase(validUpdateCaseRequest.getUuid(), validUpdateCaseRequest, Instant.now());
+
+        assertThat(meterRegistry.get("search.consumer.update.stale").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldAddEventTimeToCollectionItemsWhenScriptedUpdatesEnabled() {
+        UUID caseUUID = CaseTypeUuidHelper.generateCaseTypeUuid("a1");
+        Instant eventTime = Instant.ofEpochMilli(1_700_000_000_000L);
+        when(caseTypeMappingRepository.getCaseTypeByShortCode(caseUUID)).thenReturn("MIN");
+        var scriptedCaseDataService = new CaseDataService(objectMapper, openSearchClient, caseTypeMappingRepository,
+            caseQueryTemplates(), conflictRetrier, disabledCache(), disabledCoalescer(), meterRegistry, true);
 
-        caseDataService.updateSomuItem(caseUUID, validSomuItemDto);
+        scriptedCaseDataService.createTopic(caseUUID, validCreateTopicRequest, eventTime);
 
-        verify(openSearchClient).findById("MIN", caseUUID);
-        verify(openSearchClient).update(eq("MIN"), eq(caseUUID), argThat(new AllMapKeyMatcher("allSomuItems")));
+        verify(openSearchClient).update(argThat((DocumentUpdate update) -> update.isVersioned()
+            && update.getCollectionUpdate().getEventTime() == eventTime.toEpochMilli()
+            && update.getCollectionUpdate().getItem().get("eventTime").equals(eventTime.toEpochMilli())));
     }
 
     @Test
@@ -230,7 +439,98 @@ class CaseDataServiceTest {
         SearchRequest searchRequest = new SearchRequest();
         caseDataService.search(searchRequest);
 
-        verify(openSearchClient, times(0)).search(any());
+        verify(openSearchClient, times(0)).searchIds(any());
+    }
+
+    @Test
+    void shouldSearchAsyncWithoutBlockingOnSearch() {
+        SearchRequest searchRequest = new SearchRequest("REF", List.of("MIN", "TRO"), null, null, null, null, null,
+            null, null, null, null, null, null, null);
+        var pending = new CompletableFuture<List<UUID>>();
+        when(openSearchClient.searchIdsAsync(any())).thenReturn(pending);
+
+        var result = caseDataService.searchAsync(searchRequest);
+        assertThat(result).isNotDone();
+        pending.complete(List.of(validUpdateCaseRequest.getUuid()));
+
+        assertThat(result).isCompletedWithValue(Set.of(validUpdateCaseRequest.getUuid()));
+        verify(openSearchClient).searchIdsAsync(argThat(queries -> queries.keySet().equals(Set.of("MIN", "TRO"))));
+        verify(openSearchClient, never()).searchIds(any());
+    }
+
+    @Test
+    void shouldSearchBatchAsOneMultiSearch() {
+        SearchRequest first = new SearchRequest("REF", List.of("MIN", "TRO"), null, null, null, null, null, null, null,
+            null, null, null, null, null);
+        SearchRequest withoutCaseTypes = new SearchRequest("REF", null, null, null, null, null, null, null, null, null,
+            null, null, null, null);
+        SearchRequest second = new SearchRequest("REF2", List.of("DCU"), null, null, null, null, null, null, null, null,
+            null, null, null, null);
+        UUID otherUuid = UUID.randomUUID();
+        when(openSearchClient.batchSearchIds(any())).thenReturn(
+            List.of(List.of(validUpdateCaseRequest.getUuid()), List.of(), List.of(otherUuid)));
+
+        var results = caseDataService.searchBatch(List.of(first, withoutCaseTypes, second));
+
+        assertThat(results).containsExactly(Set.of(validUpdateCaseRequest.getUuid()), Set.of(), Set.of(otherUuid));
+        verify(openSearchClient).batchSearchIds(argThat(queries -> queries.size() == 3
+            && queries.get(0).keySet().equals(Set.of("MIN", "TRO"))
+            && queries.get(1).isEmpty()
+            && queries.get(2).keySet().equals(Set.of("DCU"))));
+        verify(openSearchClient, never()).searchIds(any());
+    }
+
+    @Test
+    void shouldSearchAgainOnceCaseOfTypeIsWritten() {
+        var searchResultCache = new SearchResultCache(meterRegistry, 10, 60_000, 0, System::nanoTime);
+        var cachingCaseDataService = new CaseDataService(objectMapper, openSearchClient, caseTypeMappingRepository,
+            caseQueryTemplates(), conflictRetrier, searchResultCache, disabledCoalescer(), meterRegistry, false);
+        SearchRequest searchRequest = new SearchRequest("REF", List.of("MIN"), null, null, null, null, null, null, null,
+            null, null, null, null, null);
+        when(openSearchClient.searchIds(any())).thenReturn(List.of(validUpdateCaseRequest.getUuid()));
+        when(openSearchClient.update(any(DocumentUpdate.class))).thenReturn(true);
+
+        cachingCaseDataService.search(searchRequest);
+        cachingCaseDataService.search(searchRequest);
+        verify(openSearchClient, times(1)).searchIds(any());
+
+        cachingCaseDataService.updateCase(validUpdateCaseRequest.getUuid(), validUpdateCaseRequest, null);
+        var result = cachingCaseDataService.search(searchRequest);
+
+        verify(openSearchClient, times(2)).searchIds(any());
+        assertThat(result).containsExactly(validUpdateCaseRequest.getUuid());
+    }
+
+    private ArgumentMatcher<DocumentUpdate> dataUpdate(String indexType, UUID documentId, String... keys) {
+        var keyMatcher = new AllMapKeyMatcher(keys);
+        return update -> update.getIndexType().equals(indexType) && update.getDocumentId().equals(documentId)
+            && keyMatcher.matches(readSource(update));
+    }
+
+    private ArgumentMatcher<DocumentUpdate> sourceUpdate(String indexType, UUID documentId, Map<String, Object> data) {
+        return update -> update.getIndexType().equals(indexType) && update.getDocumentId().equals(documentId)
+            && data.equals(readSource(update));
+    }
+
+    private SearchResultCache disabledCache() {
+        return new SearchResultCache(meterRegistry, 0, 0, 0, System::nanoTime);
+    }
+
+    private SearchCoalescer disabledCoalescer() {
+        return new SearchCoalescer(meterRegistry, false);
+    }
+
+    private CaseQueryTemplates caseQueryTemplates() {
+        return new CaseQueryTemplates(new CaseQueryFactory(fieldQueryTypeMappingRepository, false, false, false),
+            openSearchClient, 0, false);
+    }
+
+    private Map<String, Object> readSource(DocumentUpdate update) {
+        try {
+            return objectMapper.readValue(update.getSource().getBytes(), new TypeReference<>() {});
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
 }
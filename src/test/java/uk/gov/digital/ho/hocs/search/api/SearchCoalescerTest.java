@@ -0,0 +1,125 @@
+package uk.gov.digital.ho.hocs.search.api;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.digital.ho.hocs.search.api.dto.SearchRequest;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+class SearchCoalescerTest {
+
+    private final AtomicInteger searches = new AtomicInteger();
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private SearchCoalescer searchCoalescer;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        searchCoalescer = new SearchCoalescer(meterRegistry, true);
+    }
+
+    @Test
+    void shouldJoinIdenticalSearchInFlight() throws InterruptedException {
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        Set<UUID> result = Set.of(UUID.randomUUID());
+
+        var first = CompletableFuture.supplyAsync(
+            () -> searchCoalescer.search(searchRequest("REF", "MIN", "TRO"), () -> {
+                searches.incrementAndGet();
+                started.countDown();
+                awaitRelease(release);
+                return result;
+            }));
+        started.await();
+        var second = CompletableFuture.supplyAsync(
+            () -> searchCoalescer.search(searchRequest("REF", "TRO", "MIN"), () -> {
+                searches.incrementAndGet();
+                return Set.of();
+            }));
+        await().until(() -> meterRegistry.get("search.coalesce.joined").counter().count() == 1);
+        release.countDown();
+
+        assertThat(first.join()).isEqualTo(result);
+        assertThat(second.join()).isEqualTo(result);
+        assertThat(searches).hasValue(1);
+        assertThat(meterRegistry.get("search.coalesce.executed").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldSearchAgainOnceSearchHasReturned() {
+        search(searchRequest("REF", "MIN"));
+        search(searchRequest("REF", "MIN"));
+
+        assertThat(searches).hasValue(2);
+        assertThat(meterRegistry.get("search.coalesce.joined").counter().count()).isZero();
+    }
+
+    @Test
+    void shouldJoinIdenticalAsyncSearchInFlight() {
+        var pending = new CompletableFuture<Set<UUID>>();
+        var first = searchCoalescer.searchAsync(searchRequest("REF", "MIN"), () -> pending);
+        var second = searchCoalescer.searchAsync(searchRequest("REF", "MIN"), () -> {
+            throw new AssertionError("Search should be joined");
+        });
+        var other = searchCoalescer.searchAsync(searchRequest("OTHER", "MIN"),
+            () -> CompletableFuture.completedFuture(Set.of()));
+
+        Set<UUID> result = Set.of(UUID.randomUUID());
+        pending.complete(result);
+
+        assertThat(first).isCompletedWithValue(result);
+        assertThat(second).isCompletedWithValue(result);
+        assertThat(other).isCompletedWithValue(Set.of());
+        assertThat(meterRegistry.get("search.coalesce.executed").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldFailJoinedSearchesWithFailureOfSearch() {
+        var pending = new CompletableFuture<Set<UUID>>();
+        var first = searchCoalescer.searchAsync(searchRequest("REF", "MIN"), () -> pending);
+        var second = searchCoalescer.searchAsync(searchRequest("REF", "MIN"), () -> pending);
+
+        pending.completeExceptionally(new IllegalStateException("failed"));
+
+        assertThat(first).isCompletedExceptionally();
+        assertThat(second).isCompletedExceptionally();
+        assertThatThrownBy(() -> searchCoalescer.search(searchRequest("REF", "MIN"), () -> {
+            throw new IllegalStateException("failed");
+        })).isInstanceOf(IllegalStateException.class);
+    }
+
+    private void search(SearchRequest request) {
+        searchCoalescer.search(request, () -> {
+            searches.incrementAndGet();
+            return Set.of(UUID.randomUUID());
+        });
+    }
+
+    private static void awaitRelease(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static SearchRequest searchRequest(String reference, String... caseTypes) {
+        return new SearchRequest(reference, List.of(caseTypes), null, null, null, null, null, null, null, null, null,
+            null, null, null);
+    }
+
+}
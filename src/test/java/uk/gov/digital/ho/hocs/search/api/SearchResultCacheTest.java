@@ -0,0 +1,140 @@
+package uk.gov.digital.ho.hocs.search.api;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.digital.ho.hocs.search.api.dto.DateRangeDto;
+import uk.gov.digital.ho.hocs.search.api.dto.SearchRequest;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchResultCacheTest {
+
+    private static final long TTL = 60_000;
+
+    private static final long REFRESH_INTERVAL = 1_000;
+
+    private final AtomicLong nanoTime = new AtomicLong();
+
+    private final AtomicInteger searches = new AtomicInteger();
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private SearchResultCache searchResultCache;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        searchResultCache = new SearchResultCache(meterRegistry, 2, TTL, REFRESH_INTERVAL, nanoTime::get);
+    }
+
+    @Test
+    void shouldAnswerRepeatedSearchFromCache() {
+        Set<UUID> first = search(searchRequest("REF", List.of("MIN", "TRO"), null));
+        Set<UUID> second = search(searchRequest("REF", List.of("TRO", "MIN"), ""));
+
+        assertThat(second).isEqualTo(first);
+        assertThat(searches).hasValue(1);
+        assertThat(meterRegistry.get("search.cache.hits").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("search.cache.misses").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldSearchAgainOnceExpired() {
+        search(searchRequest("REF", List.of("MIN"), null));
+        advance(TTL);
+        search(searchRequest("REF", List.of("MIN"), null));
+
+        assertThat(searches).hasValue(2);
+    }
+
+    @Test
+    void shouldOnlyInvalidateSearchesForWrittenCaseType() {
+        search(searchRequest("REF", List.of("MIN"), null));
+        search(searchRequest("REF", List.of("TRO"), null));
+
+        searchResultCache.invalidate("min");
+        search(searchRequest("REF", List.of("TRO"), null));
+
+        assertThat(searches).hasValue(2);
+        assertThat(searchResultCache.getSize()).isEqualTo(1);
+        assertThat(meterRegistry.get("search.cache.invalidations").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotCacheSearchesUntilWriteIsSearchable() {
+        searchResultCache.invalidate("MIN");
+        search(searchRequest("REF", List.of("MIN"), null));
+        search(searchRequest("REF", List.of("MIN"), null));
+        advance(REFRESH_INTERVAL);
+        search(searchRequest("REF", List.of("MIN"), null));
+        search(searchRequest("REF", List.of("MIN"), null));
+
+        assertThat(searches).hasValue(3);
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedSearch() {
+        search(searchRequest("REF1", List.of("MIN"), null));
+        search(searchRequest("REF2", List.of("MIN"), null));
+        search(searchRequest("REF1", List.of("MIN"), null));
+        search(searchRequest("REF3", List.of("MIN"), null));
+        search(searchRequest("REF1", List.of("MIN"), null));
+
+        assertThat(searches).hasValue(3);
+        assertThat(searchResultCache.getSize()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldCacheResultOfAsyncSearchOnceComplete() {
+        var pending = new CompletableFuture<Set<UUID>>();
+        var first = searchResultCache.getAsync(searchRequest("REF", List.of("MIN"), null), () -> pending);
+        assertThat(searchResultCache.getSize()).isZero();
+
+        pending.complete(Set.of(UUID.randomUUID()));
+        var second = searchResultCache.getAsync(searchRequest("REF", List.of("MIN"), null), () -> {
+            throw new AssertionError("Search should be cached");
+        });
+
+        assertThat(second).isCompletedWithValue(first.join());
+    }
+
+    @Test
+    void shouldKeyOnDataAndDates() {
+        var request = new SearchRequest(null, List.of("MIN"), new DateRangeDto("2020-01-01", null), null, null, null,
+            null, null, null, null, null, null, Map.of("Field", "A"), true);
+        var otherData = new SearchRequest(null, List.of("MIN"), new DateRangeDto("2020-01-01", ""), null, null, null,
+            null, null, null, null, null, null, Map.of("Field", "B"), true);
+
+        assertThat(SearchResultCache.key(request)).isNotEqualTo(SearchResultCache.key(otherData));
+        assertThat(SearchResultCache.key(request)).containsEntry("data.Field", "A")
+            .containsEntry("dateReceivedFrom", "2020-01-01").doesNotContainKey("dateReceivedTo");
+    }
+
+    private Set<UUID> search(SearchRequest request) {
+        return searchResultCache.get(request, () -> {
+            searches.incrementAndGet();
+            return new HashSet<>(Set.of(UUID.randomUUID()));
+        });
+    }
+
+    private void advance(long millis) {
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    private static SearchRequest searchRequest(String reference, List<String> caseTypes, String topic) {
+        return new SearchRequest(reference, caseTypes, null, null, null, null, null, null, null, null, topic, null,
+            null, null);
+    }
+
+}
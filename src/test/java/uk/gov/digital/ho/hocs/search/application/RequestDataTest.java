@@ -10,8 +10,13 @@ import org.mockito.quality.Strictness;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import java.util.HashMap;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -70,4 +75,22 @@ public class RequestDataTest {
         assertThat(requestData.username()).isEqualTo("some username");
     }
 
+    @Test
+    public void shouldKeepRequestDataWhenHandledAgainAfterAsyncResult() {
+        Map<String, Object> attributes = new HashMap<>();
+        doAnswer(invocation -> attributes.put(invocation.getArgument(0), invocation.getArgument(1)))
+            .when(mockHttpServletRequest).setAttribute(anyString(), any());
+        when(mockHttpServletRequest.getAttribute(anyString())).thenAnswer(
+            invocation -> attributes.get(invocation.<String>getArgument(0)));
+
+        requestData.preHandle(mockHttpServletRequest, mockHttpServletResponse, mockHandler);
+        String correlationId = requestData.correlationId();
+        requestData.afterConcurrentHandlingStarted(mockHttpServletRequest, mockHttpServletResponse, mockHandler);
+        assertThat(requestData.correlationId()).isNull();
+
+        requestData.preHandle(mockHttpServletRequest, mockHttpServletResponse, mockHandler);
+
+        assertThat(requestData.correlationId()).isEqualTo(correlationId);
+    }
+
 }
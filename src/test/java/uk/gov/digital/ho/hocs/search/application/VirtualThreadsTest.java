@@ -0,0 +1,38 @@
+package uk.gov.digital.ho.hocs.search.application;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class VirtualThreadsTest {
+
+    @Test
+    void shouldRunTasksOnNamedVirtualThreads() throws ExecutionException, InterruptedException {
+        assumeTrue(VirtualThreads.isSupported());
+
+        var executor = VirtualThreads.newExecutor("test-");
+        try {
+            var thread = CompletableFuture.supplyAsync(Thread::currentThread, executor).get();
+
+            assertThat(thread.getName()).isEqualTo("test-0");
+            assertThat(thread.isDaemon()).isTrue();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void shouldRefuseVirtualThreadsBeforeJava21() {
+        assumeFalse(VirtualThreads.isSupported());
+
+        assertThatThrownBy(() -> VirtualThreads.factory("test-")).isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("Java 21");
+    }
+
+}
@@ -0,0 +1,75 @@
+package uk.gov.digital.ho.hocs.search.application.aws.config.elastic;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.HttpHost;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.util.EntityUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opensearch.client.Request;
+import org.opensearch.client.RestClient;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class OpenSearchConnectionPoolTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private HttpServer server;
+
+    private RestClient client;
+
+    @BeforeEach
+    void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] response = "{}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        });
+        server.start();
+
+        var connectionPool = new OpenSearchConnectionPool(meterRegistry, 4, 2, 60_000, 1, 1000, 5000);
+        client = RestClient.builder(new HttpHost(server.getAddress().getHostString(), server.getAddress().getPort()))
+            .setRequestConfigCallback(connectionPool::configure)
+            .setHttpClientConfigCallback(httpClientBuilder -> connectionPool.configure(httpClientBuilder,
+                SSLIOSessionStrategy.getDefaultStrategy()))
+            .build();
+    }
+
+    @AfterEach
+    void teardown() throws IOException {
+        client.close();
+        server.stop(0);
+    }
+
+    @Test
+    void shouldPublishConnectionsOfRoute() throws IOException {
+        EntityUtils.consume(client.performRequest(new Request("GET", "/_cluster/health")).getEntity());
+
+        // the connection is released to the pool as the response completes
+        await().untilAsserted(() -> assertThat(connections("available")).isEqualTo(1));
+        assertThat(connections("leased")).isZero();
+        assertThat(connections("pending")).isZero();
+        assertThat(connections("max")).isEqualTo(2);
+    }
+
+    private double connections(String state) {
+        return meterRegistry.get("opensearch.client.pool.connections")
+            .tag("route", "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort())
+            .tag("state", state)
+            .gauge()
+            .value();
+    }
+
+}
@@ -0,0 +1,98 @@
+package uk.gov.digital.ho.hocs.search.application.aws.config.elastic;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.entity.NStringEntity;
+import org.apache.http.util.EntityUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opensearch.client.Request;
+import org.opensearch.client.RestClient;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestCompressingClientTest {
+
+    private static final String BODY = "{\"query\":{\"terms\":{\"_id\":["
+        + "\"11111111-1111-1111-1111-111111111111\",".repeat(2000) + "\"\"]}}}";
+
+    private final AtomicReference<String> receivedEncoding = new AtomicReference<>();
+
+    private final AtomicReference<String> receivedLength = new AtomicReference<>();
+
+    private final AtomicReference<byte[]> receivedBody = new AtomicReference<>();
+
+    private HttpServer server;
+
+    @BeforeEach
+    void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            receivedEncoding.set(exchange.getRequestHeaders().getFirst("Content-Encoding"));
+            receivedLength.set(exchange.getRequestHeaders().getFirst("Content-Length"));
+            try (InputStream in = exchange.getRequestBody()) {
+                receivedBody.set(in.readAllBytes());
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, 2);
+            exchange.getResponseBody().write("{}".getBytes(StandardCharsets.UTF_8));
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void teardown() {
+        server.stop(0);
+    }
+
+    @Test
+    void shouldCompressBodyOnceAndSignTheBytesThatAreSent() throws IOException {
+        AtomicInteger writes = new AtomicInteger();
+        List<byte[]> signed = Collections.synchronizedList(new ArrayList<>());
+
+        try (RestClient client = RestClient.builder(
+                new HttpHost(server.getAddress().getHostString(), server.getAddress().getPort()))
+            .setHttpClientConfigCallback(httpClientBuilder -> RequestCompressingClient.wrap(
+                // as the signing interceptor does, reading the body it signs
+                httpClientBuilder.addInterceptorLast((HttpRequestInterceptor) (request, context) ->
+                    signed.add(EntityUtils.toByteArray(((HttpEntityEnclosingRequest) request).getEntity())))))
+            .build()) {
+            var request = new Request("POST", "/test-min-read/_search");
+            request.setEntity(new NStringEntity(BODY, ContentType.APPLICATION_JSON) {
+                @Override
+                public void writeTo(OutputStream outStream) throws IOException {
+                    writes.incrementAndGet();
+                    super.writeTo(outStream);
+                }
+            });
+            client.performRequest(request);
+        }
+
+        assertThat(writes).hasValue(1);
+        assertThat(receivedEncoding.get()).isEqualTo("gzip");
+        assertThat(receivedLength.get()).isEqualTo(String.valueOf(receivedBody.get().length));
+        assertThat(signed).singleElement().isEqualTo(receivedBody.get());
+        assertThat(new String(new GZIPInputStream(new ByteArrayInputStream(receivedBody.get())).readAllBytes(),
+            StandardCharsets.UTF_8)).isEqualTo(BODY);
+    }
+
+}
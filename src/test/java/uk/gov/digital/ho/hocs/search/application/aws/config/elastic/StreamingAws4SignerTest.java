@@ -0,0 +1,156 @@
+package uk.gov.digital.ho.hocs.search.application.aws.config.elastic;
+
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.message.BasicHttpEntityEnclosingRequest;
+import org.apache.http.message.BasicHttpRequest;
+import org.apache.http.nio.entity.NByteArrayEntity;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.AwsSessionCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.auth.signer.Aws4Signer;
+import software.amazon.awssdk.auth.signer.AwsSignerExecutionAttribute;
+import software.amazon.awssdk.core.signer.Signer;
+import software.amazon.awssdk.regions.Region;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.function.Supplier;
+
+import static org.apache.http.protocol.HttpCoreContext.HTTP_TARGET_HOST;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StreamingAws4SignerTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2023-06-01T12:34:56Z"), ZoneOffset.UTC);
+
+    private static final byte[] BODY = """
+        {"index":["test-min-read"]}
+        {"query":{"match":{"reference":"MIN/0120101/23"}},"size":500,"_source":false}
+        """.getBytes(StandardCharsets.UTF_8);
+
+    private final AwsCredentialsProvider credentials = StaticCredentialsProvider.create(
+        AwsBasicCredentials.create("AKIDEXAMPLE", "wJalrXUtnFEMI/K7MDENG+bPxRfiCYEXAMPLEKEY"));
+
+    @Test
+    void shouldSignSearchLikeSdkSigner() throws Exception {
+        Supplier<HttpRequest> request = () -> {
+            var search = new BasicHttpEntityEnclosingRequest("POST",
+                "/test-min-read,test-tro-read/_msearch?typed_keys=true&max_concurrent_searches=2");
+            search.setEntity(new NByteArrayEntity(BODY, ContentType.APPLICATION_JSON));
+            search.addHeader("Content-Type", "application/json");
+            search.addHeader("Content-Length", String.valueOf(BODY.length));
+            search.addHeader("User-Agent", "opensearch-java");
+            return search;
+        };
+
+        assertSignedLikeSdkSigner(request, credentials);
+    }
+
+    @Test
+    void shouldSignCompressedBodyLikeSdkSigner() throws Exception {
+        var entity = RequestCompressingClient.CompressedEntity.compress(
+            new NByteArrayEntity(BODY, ContentType.APPLICATION_JSON));
+        Supplier<HttpRequest> request = () -> {
+            var bulk = new BasicHttpEntityEnclosingRequest("POST", "/_bulk");
+            bulk.setEntity(entity);
+            bulk.addHeader("Content-Type", "application/json");
+            bulk.addHeader("Content-Encoding", "gzip");
+            bulk.addHeader("Content-Length", String.valueOf(entity.getContentLength()));
+            return bulk;
+        };
+
+        HttpRequest signed = request.get();
+        assertSignedLikeSdkSigner(request, credentials);
+        new StreamingSigningInterceptor(new StreamingAws4Signer("es", credentials, Region.EU_WEST_2, CLOCK))
+            .process(signed, context());
+        assertThat(signed.getFirstHeader("Authorization").getValue()).contains("content-encoding;content-length");
+    }
+
+    @Test
+    void shouldSignRequestWithoutBodyLikeSdkSigner() throws Exception {
+        assertSignedLikeSdkSigner(() -> new BasicHttpRequest("GET", "/test-min-read/_doc/a%2Fb"), credentials);
+    }
+
+    @Test
+    void shouldSignWithSessionTokenLikeSdkSigner() throws Exception {
+        var sessionCredentials = StaticCredentialsProvider.create(
+            AwsSessionCredentials.create("AKIDEXAMPLE", "wJalrXUtnFEMI/K7MDENG+bPxRfiCYEXAMPLEKEY", "token"));
+
+        assertSignedLikeSdkSigner(() -> new BasicHttpRequest("GET", "/_cluster/health?wait_for_status=yellow"),
+            sessionCredentials);
+    }
+
+    @Test
+    void shouldKeepRepeatableEntity() throws Exception {
+        var request = new BasicHttpEntityEnclosingRequest("POST", "/_bulk");
+        var entity = new NByteArrayEntity(BODY, ContentType.APPLICATION_JSON);
+        request.setEntity(entity);
+
+        new StreamingAws4Signer("es", credentials, Region.EU_WEST_2, CLOCK).sign(request, host());
+
+        assertThat(request.getEntity()).isSameAs(entity);
+    }
+
+    @Test
+    void shouldBufferEntityThatCannotBeWrittenTwice() throws Exception {
+        var request = new BasicHttpEntityEnclosingRequest("POST", "/_bulk");
+        request.setEntity(new InputStreamEntity(new ByteArrayInputStream(BODY), ContentType.APPLICATION_JSON));
+
+        new StreamingAws4Signer("es", credentials, Region.EU_WEST_2, CLOCK).sign(request, host());
+
+        assertThat(request.getEntity().isRepeatable()).isTrue();
+        assertThat(EntityUtils.toByteArray(request.getEntity())).isEqualTo(BODY);
+    }
+
+    private void assertSignedLikeSdkSigner(Supplier<HttpRequest> request,
+                                           AwsCredentialsProvider credentialsProvider) throws Exception {
+        Signer sdkSigner = (sdkRequest, attributes) -> {
+            attributes.putAttribute(AwsSignerExecutionAttribute.SIGNING_CLOCK, CLOCK);
+            return Aws4Signer.create().sign(sdkRequest, attributes);
+        };
+        HttpRequest expected = request.get();
+        new AwsRequestSigningApacheInterceptor("es", sdkSigner, credentialsProvider, Region.EU_WEST_2)
+            .process(expected, context());
+
+        HttpRequest actual = request.get();
+        new StreamingSigningInterceptor(new StreamingAws4Signer("es", credentialsProvider, Region.EU_WEST_2, CLOCK))
+            .process(actual, context());
+
+        assertThat(actual.getFirstHeader("Authorization").getValue())
+            .isEqualTo(expected.getFirstHeader("Authorization").getValue());
+        assertThat(actual.getFirstHeader("X-Amz-Date").getValue())
+            .isEqualTo(expected.getFirstHeader("X-Amz-Date").getValue());
+        assertThat(actual.getFirstHeader("Host").getValue()).isEqualTo(expected.getFirstHeader("Host").getValue());
+        if (expected.containsHeader("X-Amz-Security-Token")) {
+            assertThat(actual.getFirstHeader("X-Amz-Security-Token").getValue())
+                .isEqualTo(expected.getFirstHeader("X-Amz-Security-Token").getValue());
+        }
+        if (actual instanceof HttpEntityEnclosingRequest enclosing
+            && enclosing.getEntity().getContentEncoding() == null) {
+            assertThat(EntityUtils.toByteArray(enclosing.getEntity())).isEqualTo(BODY);
+        }
+    }
+
+    private static HttpContext context() {
+        var context = new BasicHttpContext();
+        context.setAttribute(HTTP_TARGET_HOST, host());
+        return context;
+    }
+
+    private static HttpHost host() {
+        return new HttpHost("search-hocs.eu-west-2.es.amazonaws.com", -1, "https");
+    }
+
+}
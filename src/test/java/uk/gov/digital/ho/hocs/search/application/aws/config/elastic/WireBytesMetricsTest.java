@@ -0,0 +1,128 @@
+package uk.gov.digital.ho.hocs.search.application.aws.config.elastic;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.HttpHost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.entity.NStringEntity;
+import org.apache.http.util.EntityUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opensearch.client.Request;
+import org.opensearch.client.RestClient;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WireBytesMetricsTest {
+
+    private static final String BODY = "{\"hits\":["
+        + "{\"_id\":\"11111111-1111-1111-1111-111111111111\"},".repeat(2000) + "{}]}";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final AtomicReference<String> receivedEncoding = new AtomicReference<>();
+
+    private final AtomicReference<String> receivedLength = new AtomicReference<>();
+
+    private final AtomicReference<String> receivedBody = new AtomicReference<>();
+
+    private HttpServer server;
+
+    @BeforeEach
+    void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            receivedEncoding.set(exchange.getRequestHeaders().getFirst("Content-Encoding"));
+            receivedLength.set(exchange.getRequestHeaders().getFirst("Content-Length"));
+            try (InputStream in = exchange.getRequestBody()) {
+                byte[] body = in.readAllBytes();
+                receivedBody.set(new String("gzip".equals(receivedEncoding.get())
+                    ? new GZIPInputStream(new ByteArrayInputStream(body)).readAllBytes()
+                    : body, StandardCharsets.UTF_8));
+            }
+
+            byte[] response = BODY.getBytes(StandardCharsets.UTF_8);
+            if ("gzip".equals(exchange.getRequestHeaders().getFirst("Accept-Encoding"))) {
+                var compressed = new ByteArrayOutputStream();
+                try (var gzip = new GZIPOutputStream(compressed)) {
+                    gzip.write(response);
+                }
+                response = compressed.toByteArray();
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            // a length of zero sends the response chunked, as OpenSearch does when compressing
+            exchange.sendResponseHeaders(200, 0);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void teardown() {
+        server.stop(0);
+    }
+
+    @Test
+    void shouldCountBytesOfCompressedRequestsAndResponses() throws IOException {
+        String uncompressed = search(false);
+        String compressed = search(true);
+
+        assertThat(compressed).isEqualTo(uncompressed).isEqualTo(BODY);
+        assertThat(receivedEncoding.get()).isEqualTo("gzip");
+        assertThat(receivedLength.get()).isNotNull();
+        assertThat(receivedBody.get()).isEqualTo(BODY);
+        assertThat(bytes("sent", "none")).isGreaterThan(BODY.length());
+        assertThat(bytes("received", "none")).isGreaterThan(BODY.length());
+        assertThat(bytes("sent", "gzip")).isPositive().isLessThan(BODY.length() / 10.0);
+        assertThat(bytes("received", "gzip")).isPositive().isLessThan(BODY.length() / 10.0);
+        assertThat(entityBytes("none")).isEqualTo(BODY.length());
+        assertThat(entityBytes("gzip")).isEqualTo(BODY.length());
+    }
+
+    private String search(boolean compression) throws IOException {
+        var wireBytesMetrics = new WireBytesMetrics(meterRegistry, compression);
+        try (RestClient client = RestClient.builder(
+                new HttpHost(server.getAddress().getHostString(), server.getAddress().getPort()))
+            .setHttpClientConfigCallback(httpClientBuilder -> {
+                var configured = httpClientBuilder.setConnectionReuseStrategy(wireBytesMetrics)
+                    .addInterceptorFirst(wireBytesMetrics);
+                return compression ? RequestCompressingClient.wrap(configured) : configured;
+            })
+            .build()) {
+            var request = new Request("POST", "/test-min-read/_search");
+            request.setEntity(new NStringEntity(BODY, ContentType.APPLICATION_JSON));
+            return EntityUtils.toString(client.performRequest(request).getEntity());
+        }
+    }
+
+    private double entityBytes(String compression) {
+        return meterRegistry.get("opensearch.client.entity.bytes")
+            .tag("direction", "sent")
+            .tag("compression", compression)
+            .counter()
+            .count();
+    }
+
+    private double bytes(String direction, String compression) {
+        return meterRegistry.get("opensearch.client.bytes")
+            .tag("direction", direction)
+            .tag("compression", compression)
+            .counter()
+            .count();
+    }
+
+}
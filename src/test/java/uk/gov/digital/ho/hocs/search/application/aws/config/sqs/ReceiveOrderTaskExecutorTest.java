@@ -0,0 +1,90 @@
+package uk.gov.digital.ho.hocs.search.application.aws.config.sqs;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import uk.gov.digital.ho.hocs.search.application.queue.CaseLaneDispatcher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReceiveOrderTaskExecutorTest {
+
+    private CaseLaneDispatcher caseLaneDispatcher;
+
+    private ReceiveOrderTaskExecutor executor;
+
+    @BeforeEach
+    public void setup() {
+        caseLaneDispatcher = new CaseLaneDispatcher(new SimpleMeterRegistry(), 4, false);
+        executor = new ReceiveOrderTaskExecutor(new SimpleAsyncTaskExecutor("test-receiver-"));
+    }
+
+    @AfterEach
+    public void teardown() {
+        caseLaneDispatcher.shutdown();
+    }
+
+    @Test
+    void shouldHandTwoMessagesForTheSameCaseFromOneReceiveToTheirLaneInOrder() throws Exception {
+        UUID caseUuid = UUID.randomUUID();
+        List<String> applied = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<Void>> results = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch received = new CountDownLatch(1);
+
+        // as the listener container does: each message from a receive is passed to the executor from the receive loop
+        executor.execute(() -> {
+            for (String message : List.of("created", "updated")) {
+                executor.execute(() -> {
+                    if (message.equals("created")) {
+                        sleep(100);
+                    }
+                    results.add(caseLaneDispatcher.dispatch(caseUuid, () -> {
+                        applied.add(message);
+                        return null;
+                    }));
+                });
+            }
+            received.countDown();
+        });
+
+        assertThat(received.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        assertThat(applied).containsExactly("created", "updated");
+    }
+
+    @Test
+    void shouldRunEachReceiveLoopOnItsOwnThread() throws Exception {
+        CountDownLatch bothRunning = new CountDownLatch(2);
+
+        var first = executor.submit(() -> {
+            bothRunning.countDown();
+            return bothRunning.await(5, TimeUnit.SECONDS);
+        });
+        var second = executor.submit(() -> {
+            bothRunning.countDown();
+            return bothRunning.await(5, TimeUnit.SECONDS);
+        });
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(second.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
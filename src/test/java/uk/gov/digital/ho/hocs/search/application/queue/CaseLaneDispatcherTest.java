@@ -0,0 +1,103 @@
+package uk.gov.digital.ho.hocs.search.application.queue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CaseLaneDispatcherTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private CaseLaneDispatcher caseLaneDispatcher;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        caseLaneDispatcher = new CaseLaneDispatcher(meterRegistry, 4, false);
+    }
+
+    @AfterEach
+    public void teardown() {
+        caseLaneDispatcher.shutdown();
+    }
+
+    @Test
+    void shouldProcessEventsForTheSameCaseInOrder() {
+        UUID caseUuid = UUID.randomUUID();
+        List<Integer> processed = Collections.synchronizedList(new ArrayList<>());
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            int event = i;
+            futures.add(caseLaneDispatcher.dispatch(caseUuid, () -> {
+                processed.add(event);
+                return null;
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+
+        assertThat(processed).isSorted().hasSize(100);
+    }
+
+    @Test
+    void shouldProcessDifferentLanesInParallel() throws InterruptedException {
+        UUID first = caseOnLane(0);
+        UUID second = caseOnLane(1);
+        CountDownLatch bothStarted = new CountDownLatch(2);
+
+        var firstResult = caseLaneDispatcher.dispatch(first, () -> {
+            bothStarted.countDown();
+            return bothStarted.await(5, TimeUnit.SECONDS);
+        });
+        var secondResult = caseLaneDispatcher.dispatch(second, () -> {
+            bothStarted.countDown();
+            return bothStarted.await(5, TimeUnit.SECONDS);
+        });
+
+        assertThat(firstResult.join()).isTrue();
+        assertThat(secondResult.join()).isTrue();
+    }
+
+    @Test
+    void shouldCompleteExceptionallyWhenWorkFails() {
+        var result = caseLaneDispatcher.dispatch(UUID.randomUUID(), () -> {
+            throw new IllegalArgumentException("failed");
+        });
+
+        CompletionException exception = assertThrows(CompletionException.class, result::join);
+        assertThat(exception.getCause()).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldPublishMetricsPerLane() {
+        UUID caseUuid = caseOnLane(2);
+
+        caseLaneDispatcher.dispatch(caseUuid, () -> null).join();
+
+        assertThat(meterRegistry.find("search.consumer.lane.depth").gauges()).hasSize(4);
+        assertThat(meterRegistry.get("search.consumer.lane.time").tag("lane", "2").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("search.consumer.lane.depth").tag("lane", "2").gauge().value()).isZero();
+    }
+
+    private static UUID caseOnLane(int lane) {
+        UUID caseUuid;
+        do {
+            caseUuid = UUID.randomUUID();
+        } while (Math.floorMod(caseUuid.hashCode(), 4) != lane);
+        return caseUuid;
+    }
+
+}
@@ -0,0 +1,138 @@
+package uk.gov.digital.ho.hocs.search.application.queue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.digital.ho.hocs.search.api.CaseDataService;
+import uk.gov.digital.ho.hocs.search.api.dto.UpdateCaseRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CaseUpdateCoalescerTest {
+
+    private static final long WINDOW = 60_000;
+
+    @Mock
+    private CaseDataService caseDataService;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private CaseLaneDispatcher caseLaneDispatcher;
+
+    private CaseUpdateCoalescer caseUpdateCoalescer;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        caseLaneDispatcher = new CaseLaneDispatcher(meterRegistry, 1, false);
+        caseUpdateCoalescer = new CaseUpdateCoalescer(caseLaneDispatcher, caseDataService, meterRegistry, WINDOW, 2);
+    }
+
+    @AfterEach
+    public void teardown() {
+        caseUpdateCoalescer.shutdown();
+        caseLaneDispatcher.shutdown();
+    }
+
+    @Test
+    void shouldMergeUpdatesForTheSameCaseIntoOneWrite() {
+        UUID caseUuid = UUID.randomUUID();
+        Instant first = Instant.ofEpochMilli(1_000);
+        Instant second = Instant.ofEpochMilli(2_000);
+
+        var firstResult = caseUpdateCoalescer.updateCase(caseUuid,
+            updateCaseRequest("REF/1", null, Map.of("a", "1", "b", "1")), first);
+        var secondResult = caseUpdateCoalescer.updateCase(caseUuid,
+            updateCaseRequest(null, "MIG/2", Map.of("b", "2")), second);
+        caseUpdateCoalescer.shutdown();
+        CompletableFuture.allOf(firstResult, secondResult).join();
+
+        verify(caseDataService).updateCase(caseUuid,
+            updateCaseRequest("REF/1", "MIG/2", Map.of("a", "1", "b", "2")), second);
+        assertThat(meterRegistry.get("search.consumer.coalesce.folded").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("search.consumer.coalesce.events").summary().totalAmount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldKeepEarlierValueWhenLaterUpdateHasEmptyString() {
+        UUID caseUuid = UUID.randomUUID();
+
+        var firstResult = caseUpdateCoalescer.updateCase(caseUuid, updateCaseRequest("REF/1", "MIG/1", null), null);
+        var secondResult = caseUpdateCoalescer.updateCase(caseUuid, updateCaseRequest("", "MIG/2", null), null);
+        caseUpdateCoalescer.shutdown();
+        CompletableFuture.allOf(firstResult, secondResult).join();
+
+        verify(caseDataService).updateCase(caseUuid, updateCaseRequest("REF/1", "MIG/2", null), null);
+    }
+
+    @Test
+    void shouldWriteHeldUpdateBeforeOtherEventsForTheCase() {
+        UUID caseUuid = UUID.randomUUID();
+
+        var update = caseUpdateCoalescer.updateCase(caseUuid, updateCaseRequest("REF/1", null, null), null);
+        var completed = caseUpdateCoalescer.dispatch(caseUuid, () -> {
+            caseDataService.completeCase(caseUuid);
+            return null;
+        });
+        CompletableFuture.allOf(update, completed).join();
+
+        InOrder inOrder = inOrder(caseDataService);
+        inOrder.verify(caseDataService).updateCase(caseUuid, updateCaseRequest("REF/1", null, null), null);
+        inOrder.verify(caseDataService).completeCase(caseUuid);
+    }
+
+    @Test
+    void shouldWaitForAHeldUpdateToBeWrittenOnceMaxHeldAreWaiting() throws Exception {
+        var written = new CountDownLatch(1);
+        doAnswer(invocation -> written.await(5, TimeUnit.SECONDS)).when(caseDataService).updateCase(any(), any(), any());
+        var limited = new CaseUpdateCoalescer(caseLaneDispatcher, caseDataService, meterRegistry, 10, 1);
+
+        var first = limited.updateCase(UUID.randomUUID(), updateCaseRequest("REF/1", null, null), null);
+        var second = CompletableFuture.supplyAsync(() -> limited.updateCase(UUID.randomUUID(),
+            updateCaseRequest("REF/2", null, null), null));
+
+        await().during(Duration.ofMillis(200)).atMost(Duration.ofSeconds(1)).until(() -> !second.isDone());
+        written.countDown();
+        first.join();
+        second.get(5, TimeUnit.SECONDS).join();
+        limited.shutdown();
+    }
+
+    @Test
+    void shouldWriteImmediatelyWithoutWindow() {
+        var uncoalesced = new CaseUpdateCoalescer(caseLaneDispatcher, caseDataService, meterRegistry, 0, 2);
+
+        uncoalesced.updateCase(UUID.randomUUID(), updateCaseRequest("REF/1", null, null), null).join();
+        uncoalesced.updateCase(UUID.randomUUID(), updateCaseRequest("REF/2", null, null), null).join();
+
+        verify(caseDataService, times(2)).updateCase(any(), any(), any());
+        assertThat(meterRegistry.get("search.consumer.coalesce.folded").counter().count()).isZero();
+    }
+
+    private static UpdateCaseRequest updateCaseRequest(String reference,
+                                                       String migratedReference,
+                                                       Map<String, Object> data) {
+        return new UpdateCaseRequest(null, null, "MIN", reference, null, null, null, null, data, migratedReference);
+    }
+
+}
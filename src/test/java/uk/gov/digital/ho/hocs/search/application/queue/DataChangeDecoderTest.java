@@ -0,0 +1,106 @@
+package uk.gov.digital.ho.hocs.search.application.queue;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.digital.ho.hocs.search.api.dto.CreateTopicRequest;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DataChangeDecoderTest {
+
+    private static final UUID CASE_UUID = UUID.fromString("11111111-1111-1111-1111-111111111111");
+
+    private static final UUID TOPIC_UUID = UUID.fromString("22222222-2222-2222-2222-222222222222");
+
+    private ObjectMapper objectMapper;
+
+    private DataChangeDecoder dataChangeDecoder;
+
+    @BeforeEach
+    public void setup() {
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        dataChangeDecoder = new DataChangeDecoder(objectMapper);
+    }
+
+    @Test
+    void shouldBindDataStringToPayloadType() throws JsonProcessingException {
+        String data = objectMapper.writeValueAsString(new CreateTopicRequest(TOPIC_UUID, "topic"));
+        String message = objectMapper.writeValueAsString(
+            new IndexDataChangeRequest(CASE_UUID, data, DataChangeType.CASE_TOPIC_CREATED.value));
+
+        DataChange change = dataChangeDecoder.decode(message);
+
+        assertThat(change.getCaseUUID()).isEqualTo(CASE_UUID);
+        assertThat(change.getDataChangeType()).isEqualTo(DataChangeType.CASE_TOPIC_CREATED);
+        assertThat(change.getData()).isEqualTo(new CreateTopicRequest(TOPIC_UUID, "topic"));
+    }
+
+    @Test
+    void shouldBindEscapedDataStringInsideLongerMessage() throws JsonProcessingException {
+        String message = """
+            {"caseUUID":"11111111-1111-1111-1111-111111111111","type":"CASE_TOPIC_CREATED",
+             "data":"{\\"topicUuid\\":\\"22222222-2222-2222-2222-222222222222\\",\\"topicName\\":\\"a \\\\\\"topic\\\\\\"\\"}",
+             "other":"value"}""";
+
+        DataChange change = dataChangeDecoder.decode(message);
+
+        assertThat(change.getData()).isEqualTo(new CreateTopicRequest(TOPIC_UUID, "a \"topic\""));
+    }
+
+    @Test
+    void shouldBindDataSeenBeforeType() throws JsonProcessingException {
+        String message = """
+            {"data":"{\\"topicUuid\\":\\"22222222-2222-2222-2222-222222222222\\",\\"topicName\\":\\"topic\\"}",
+             "caseUUID":"11111111-1111-1111-1111-111111111111","type":"CASE_TOPIC_CREATED"}""";
+
+        DataChange change = dataChangeDecoder.decode(message);
+
+        assertThat(change.getData()).isEqualTo(new CreateTopicRequest(TOPIC_UUID, "topic"));
+    }
+
+    @Test
+    void shouldBindEmbeddedDataObject() throws JsonProcessingException {
+        String message = """
+            {"caseUUID":"11111111-1111-1111-1111-111111111111","type":"CASE_TOPIC_CREATED","other":[1,{"a":2}],
+             "data":{"topicUuid":"22222222-2222-2222-2222-222222222222","topicName":"topic"}}""";
+
+        DataChange change = dataChangeDecoder.decode(message);
+
+        assertThat(change.getData()).isEqualTo(new CreateTopicRequest(TOPIC_UUID, "topic"));
+    }
+
+    @Test
+    void shouldLeaveUnknownTypeUnbound() throws JsonProcessingException {
+        String message = """
+            {"caseUUID":"11111111-1111-1111-1111-111111111111","type":"ANY_OTHER_MESSAGE_TYPE","data":"{}"}""";
+
+        DataChange change = dataChangeDecoder.decode(message);
+
+        assertThat(change.getType()).isEqualTo("ANY_OTHER_MESSAGE_TYPE");
+        assertThat(change.getDataChangeType()).isNull();
+        assertThat(change.getData()).isNull();
+    }
+
+    @Test
+    void shouldRejectMissingData() {
+        String message = """
+            {"caseUUID":"11111111-1111-1111-1111-111111111111","type":"CASE_CREATED"}""";
+
+        assertThrows(IllegalArgumentException.class, () -> dataChangeDecoder.decode(message));
+    }
+
+    @Test
+    void shouldRejectInvalidJson() {
+        assertThrows(JsonParseException.class, () -> dataChangeDecoder.decode("{test:1}"));
+    }
+
+}
@@ -0,0 +1,281 @@
+package uk.gov.digital.ho.hocs.search.aws.listeners;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.sqs.AmazonSQSAsync;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchResult;
+import com.amazonaws.services.sqs.model.Message;
+import com.amazonaws.services.sqs.model.ReceiveMessageRequest;
+import com.amazonaws.services.sqs.model.ReceiveMessageResult;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.digital.ho.hocs.search.api.CaseDataService;
+import uk.gov.digital.ho.hocs.search.api.dto.CreateTopicRequest;
+import uk.gov.digital.ho.hocs.search.application.aws.BatchSearchListener;
+import uk.gov.digital.ho.hocs.search.application.queue.DataChangeDecoder;
+import uk.gov.digital.ho.hocs.search.application.queue.DataChangeType;
+import uk.gov.digital.ho.hocs.search.application.queue.IndexDataChangeRequest;
+import uk.gov.digital.ho.hocs.search.client.CollectionUpdate;
+import uk.gov.digital.ho.hocs.search.client.DocumentUpdate;
+import uk.gov.digital.ho.hocs.search.domain.exceptions.ApplicationExceptions;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uk.gov.digital.ho.hocs.search.application.LogEvent.CASE_UPDATE_FAILED;
+
+@ExtendWith(MockitoExtension.class)
+class BatchSearchListenerTest {
+
+    private static final String QUEUE_URL = "queue";
+
+    @Mock
+    private AmazonSQSAsync amazonSqs;
+
+    @Mock
+    private CaseDataService caseDataService;
+
+    @Captor
+    private ArgumentCaptor<List<DeleteMessageBatchRequestEntry>> deleteEntriesCaptor;
+
+    private ObjectMapper objectMapper;
+
+    private BatchSearchListener batchSearchListener;
+
+    @BeforeEach
+    public void setup() {
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        batchSearchListener = new BatchSearchListener(amazonSqs, new DataChangeDecoder(objectMapper), caseDataService,
+            QUEUE_URL, 10, 1, 20, 40);
+    }
+
+    @Test
+    void shouldOnlyDeleteMessagesWhoseBulkItemSucceeded() throws JsonProcessingException {
+        Message first = completedMessage(UUID.randomUUID(), "first");
+        Message second = completedMessage(UUID.randomUUID(), "second");
+        Message third = completedMessage(UUID.randomUUID(), "third");
+
+        when(caseDataService.prepareUpdate(eq(DataChangeType.CASE_COMPLETED), any(), any(), any())).thenAnswer(
+            invocation -> new DocumentUpdate("MIN", invocation.getArgument(1), Map.of("completed", true)));
+        when(caseDataService.bulkUpdate(anyList())).thenReturn(List.of(true, false, true));
+        when(amazonSqs.deleteMessageBatch(eq(QUEUE_URL), deleteEntriesCaptor.capture())).thenReturn(
+            new DeleteMessageBatchResult());
+
+        batchSearchListener.onDataChange(List.of(first, second, third));
+
+        verify(caseDataService, times(1)).bulkUpdate(anyList());
+        assertThat(deleteEntriesCaptor.getValue()).extracting(DeleteMessageBatchRequestEntry::getReceiptHandle)
+            .containsExactly("first", "third");
+    }
+
+    @Test
+    void shouldFlushBeforeSecondEventForSameCase() throws JsonProcessingException {
+        UUID caseUuid = UUID.randomUUID();
+        Message completed = completedMessage(caseUuid, "completed");
+        Message topic = message(caseUuid, DataChangeType.CASE_TOPIC_CREATED,
+            objectMapper.writeValueAsString(new CreateTopicRequest(UUID.randomUUID(), "topic")), "topic");
+
+        when(caseDataService.requiresCurrentDocument(any())).thenReturn(true);
+        when(caseDataService.prepareUpdate(any(), eq(caseUuid), any(), any())).thenReturn(
+            new DocumentUpdate("MIN", caseUuid, Map.of()));
+        when(caseDataService.bulkUpdate(anyList())).thenReturn(List.of(true));
+        when(amazonSqs.deleteMessageBatch(eq(QUEUE_URL), deleteEntriesCaptor.capture())).thenReturn(
+            new DeleteMessageBatchResult());
+
+        batchSearchListener.onDataChange(List.of(completed, topic));
+
+        verify(caseDataService, times(2)).bulkUpdate(anyList());
+        assertThat(deleteEntriesCaptor.getValue()).extracting(DeleteMessageBatchRequestEntry::getReceiptHandle)
+            .containsExactly("completed", "topic");
+    }
+
+    @Test
+    void shouldBatchEventsForSameCaseWhenCurrentDocumentNotRequired() throws JsonProcessingException {
+        UUID caseUuid = UUID.randomUUID();
+        Message first = message(caseUuid, DataChangeType.CASE_TOPIC_CREATED,
+            objectMapper.writeValueAsString(new CreateTopicRequest(UUID.randomUUID(), "first")), "first");
+        Message second = message(caseUuid, DataChangeType.CASE_TOPIC_CREATED,
+            objectMapper.writeValueAsString(new CreateTopicRequest(UUID.randomUUID(), "second")), "second");
+
+        when(caseDataService.requiresCurrentDocument(DataChangeType.CASE_TOPIC_CREATED)).thenReturn(false);
+        when(caseDataService.prepareUpdate(any(), eq(caseUuid), any(), any())).thenReturn(
+            new DocumentUpdate("MIN", caseUuid, new CollectionUpdate()));
+        when(caseDataService.bulkUpdate(anyList())).thenReturn(List.of(true, true));
+        when(amazonSqs.deleteMessageBatch(eq(QUEUE_URL), deleteEntriesCaptor.capture())).thenReturn(
+            new DeleteMessageBatchResult());
+
+        batchSearchListener.onDataChange(List.of(first, second));
+
+        verify(caseDataService, times(1)).bulkUpdate(anyList());
+        assertThat(deleteEntriesCaptor.getValue()).extracting(DeleteMessageBatchRequestEntry::getReceiptHandle)
+            .containsExactly("first", "second");
+    }
+
+    @Test
+    void shouldUseSentTimestampAsEventTime() throws JsonProcessingException {
+        UUID caseUuid = UUID.randomUUID();
+        Message completed = completedMessage(caseUuid, "completed").addAttributesEntry("SentTimestamp",
+            "1700000000000");
+
+        when(caseDataService.prepareUpdate(DataChangeType.CASE_COMPLETED, caseUuid, null,
+            Instant.ofEpochMilli(1_700_000_000_000L))).thenReturn(new DocumentUpdate("MIN", caseUuid, Map.of()));
+        when(caseDataService.bulkUpdate(anyList())).thenReturn(List.of(true));
+        when(amazonSqs.deleteMessageBatch(eq(QUEUE_URL), anyList())).thenReturn(new DeleteMessageBatchResult());
+
+        batchSearchListener.onDataChange(List.of(completed));
+
+        verify(caseDataService).prepareUpdate(DataChangeType.CASE_COMPLETED, caseUuid, null,
+            Instant.ofEpochMilli(1_700_000_000_000L));
+    }
+
+    @Test
+    void shouldNotDeleteMessagesWhenBulkRequestFails() throws JsonProcessingException {
+        Message first = completedMessage(UUID.randomUUID(), "first");
+
+        when(caseDataService.prepareUpdate(eq(DataChangeType.CASE_COMPLETED), any(), any(), any())).thenAnswer(
+            invocation -> new DocumentUpdate("MIN", invocation.getArgument(1), Map.of("completed", true)));
+        when(caseDataService.bulkUpdate(anyList())).thenThrow(
+            new ApplicationExceptions.ResourceServerException("failed", CASE_UPDATE_FAILED));
+
+        batchSearchListener.onDataChange(List.of(first));
+
+        verify(amazonSqs, never()).deleteMessageBatch(any(), anyList());
+    }
+
+    @Test
+    void shouldDeleteMessagesWithUnknownTypeAndKeepUnreadableMessages() {
+        Message unknown = new Message().withMessageId("unknown").withReceiptHandle("unknown").withBody(
+            "{\"caseUUID\":\"11111111-1111-1111-1111-111111111111\", \"type\":\"ANY_OTHER_MESSAGE_TYPE\"}");
+        Message invalid = new Message().withMessageId("invalid").withReceiptHandle("invalid").withBody("{test:1}");
+
+        when(amazonSqs.deleteMessageBatch(eq(QUEUE_URL), deleteEntriesCaptor.capture())).thenReturn(
+            new DeleteMessageBatchResult());
+
+        batchSearchListener.onDataChange(List.of(unknown, invalid));
+
+        verify(caseDataService, never()).bulkUpdate(anyList());
+        assertThat(deleteEntriesCaptor.getValue()).extracting(DeleteMessageBatchRequestEntry::getReceiptHandle)
+            .containsExactly("unknown");
+    }
+
+    @Test
+    void shouldLeaveLaterMessagesForCaseAfterItsBulkItemFailed() throws JsonProcessingException {
+        UUID caseUuid = UUID.randomUUID();
+        Message first = message(caseUuid, DataChangeType.CASE_TOPIC_CREATED,
+            objectMapper.writeValueAsString(new CreateTopicRequest(UUID.randomUUID(), "first")), "first");
+        Message second = message(caseUuid, DataChangeType.CASE_TOPIC_CREATED,
+            objectMapper.writeValueAsString(new CreateTopicRequest(UUID.randomUUID(), "second")), "second");
+        Message other = completedMessage(UUID.randomUUID(), "other");
+
+        when(caseDataService.prepareUpdate(any(), any(), any(), any())).thenAnswer(
+            invocation -> new DocumentUpdate("MIN", invocation.getArgument(1), new CollectionUpdate()));
+        when(caseDataService.bulkUpdate(anyList())).thenReturn(List.of(false, true, true));
+        when(amazonSqs.deleteMessageBatch(eq(QUEUE_URL), deleteEntriesCaptor.capture())).thenReturn(
+            new DeleteMessageBatchResult());
+
+        batchSearchListener.onDataChange(List.of(first, second, other));
+
+        assertThat(deleteEntriesCaptor.getValue()).extracting(DeleteMessageBatchRequestEntry::getReceiptHandle)
+            .containsExactly("other");
+    }
+
+    @Test
+    void shouldLeaveLaterMessagesForCaseUnprocessedAfterOneCannotBeProcessed() throws JsonProcessingException {
+        UUID caseUuid = UUID.randomUUID();
+        UUID otherCaseUuid = UUID.randomUUID();
+        Message first = completedMessage(caseUuid, "first");
+        Message second = completedMessage(caseUuid, "second");
+        Message other = completedMessage(otherCaseUuid, "other");
+
+        when(caseDataService.prepareUpdate(DataChangeType.CASE_COMPLETED, caseUuid, null, null)).thenThrow(
+            new IllegalStateException("failed"));
+        when(caseDataService.prepareUpdate(DataChangeType.CASE_COMPLETED, otherCaseUuid, null, null)).thenReturn(
+            new DocumentUpdate("MIN", otherCaseUuid, Map.of("completed", true)));
+        when(caseDataService.bulkUpdate(anyList())).thenReturn(List.of(true));
+        when(amazonSqs.deleteMessageBatch(eq(QUEUE_URL), deleteEntriesCaptor.capture())).thenReturn(
+            new DeleteMessageBatchResult());
+
+        batchSearchListener.onDataChange(List.of(first, second, other));
+
+        verify(caseDataService, times(1)).prepareUpdate(DataChangeType.CASE_COMPLETED, caseUuid, null, null);
+        assertThat(deleteEntriesCaptor.getValue()).extracting(DeleteMessageBatchRequestEntry::getReceiptHandle)
+            .containsExactly("other");
+    }
+
+    @Test
+    void shouldBackOffWhileQueueCannotBeReached() {
+        List<Long> receives = new CopyOnWriteArrayList<>();
+        when(amazonSqs.receiveMessage(any(ReceiveMessageRequest.class))).thenAnswer(invocation -> {
+            receives.add(System.nanoTime());
+            if (receives.size() <= 3) {
+                throw new AmazonClientException("unreachable");
+            }
+            return new ReceiveMessageResult();
+        });
+
+        batchSearchListener.start();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> receives.size() > 4);
+        batchSearchListener.stop();
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(receives.get(1) - receives.get(0))).isGreaterThanOrEqualTo(20);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(receives.get(2) - receives.get(1))).isGreaterThanOrEqualTo(40);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(receives.get(3) - receives.get(2))).isGreaterThanOrEqualTo(40);
+    }
+
+    @Test
+    void shouldCallBackFromStopOnceBatchInFlightHasFinished() throws InterruptedException {
+        var receiving = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        when(amazonSqs.receiveMessage(any(ReceiveMessageRequest.class))).thenAnswer(invocation -> {
+            receiving.countDown();
+            release.await();
+            return new ReceiveMessageResult();
+        });
+        var stopped = new AtomicBoolean();
+
+        batchSearchListener.start();
+        assertThat(receiving.await(5, TimeUnit.SECONDS)).isTrue();
+        batchSearchListener.stop(() -> stopped.set(true));
+
+        assertThat(stopped).isFalse();
+        assertThat(batchSearchListener.isRunning()).isFalse();
+        release.countDown();
+        await().atMost(5, TimeUnit.SECONDS).untilTrue(stopped);
+    }
+
+    private Message completedMessage(UUID caseUuid, String receiptHandle) throws JsonProcessingException {
+        return message(caseUuid, DataChangeType.CASE_COMPLETED, null, receiptHandle);
+    }
+
+    private Message message(UUID caseUuid,
+                            DataChangeType type,
+                            String data,
+                            String receiptHandle) throws JsonProcessingException {
+        String body = objectMapper.writeValueAsString(new IndexDataChangeRequest(caseUuid, data, type.value));
+        return new Message().withMessageId(receiptHandle).withReceiptHandle(receiptHandle).withBody(body);
+    }
+
+}
@@ -3,26 +3,35 @@ package uk.gov.digital.ho.hocs.search.aws.listeners;
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.mockito.Mock;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.aws.messaging.listener.Acknowledgment;
 import org.springframework.test.context.ActiveProfiles;
 import uk.gov.digital.ho.hocs.search.api.CaseDataService;
 import uk.gov.digital.ho.hocs.search.api.dto.*;
 import uk.gov.digital.ho.hocs.search.application.aws.SearchListener;
+import uk.gov.digital.ho.hocs.search.application.queue.CaseLaneDispatcher;
+import uk.gov.digital.ho.hocs.search.application.queue.CaseUpdateCoalescer;
+import uk.gov.digital.ho.hocs.search.application.queue.DataChangeDecoder;
 import uk.gov.digital.ho.hocs.search.application.queue.IndexDataChangeRequest;
 import uk.gov.digital.ho.hocs.search.application.queue.DataChangeType;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
 
@@ -37,6 +46,11 @@ public class SearchListenerTest {
     @Mock
     private CaseDataService caseDataService;
 
+    @Mock
+    private Acknowledgment acknowledgment;
+
+    private final CaseLaneDispatcher caseLaneDispatcher = new CaseLaneDispatcher(new SimpleMeterRegistry(), 1, false);
+
     private final LocalDate now = LocalDate.now();
 
     @Test
@@ -48,10 +62,10 @@ public class SearchListenerTest {
         IndexDataChangeRequest request = new IndexDataChangeRequest(caseUUID, data, DataChangeType.CASE_CREATED.value);
         String message = objectMapper.writeValueAsString(request);
 
-        SearchListener searchListener = new SearchListener(objectMapper, caseDataService);
-        searchListener.onDataChange(message);
+        SearchListener searchListener = new SearchListener(dataChangeDecoder(), caseDataService, caseUpdateCoalescer());
+        searchListener.onDataChange(message, null, acknowledgment);
 
-        verify(caseDataService).createCase(eq(caseUUID), eq(createCaseRequest));
+        verify(caseDataService).createCase(eq(caseUUID), eq(createCaseRequest), isNull());
         verifyNoMoreInteractions(caseDataService);
     }
 
@@ -65,10 +79,10 @@ public class SearchListenerTest {
         IndexDataChangeRequest request = new IndexDataChangeRequest(caseUUID, data, DataChangeType.CASE_UPDATED.value);
         String message = objectMapper.writeValueAsString(request);
 
-        SearchListener searchListener = new SearchListener(objectMapper, caseDataService);
-        searchListener.onDataChange(message);
+        SearchListener searchListener = new SearchListener(dataChangeDecoder(), caseDataService, caseUpdateCoalescer());
+        searchListener.onDataChange(message, null, acknowledgment);
 
-        verify(caseDataService).updateCase(eq(caseUUID), eq(updateCaseRequest));
+        verify(caseDataService).updateCase(eq(caseUUID), eq(updateCaseRequest), isNull());
         verifyNoMoreInteractions(caseDataService);
     }
 
@@ -81,10 +95,10 @@ public class SearchListenerTest {
         IndexDataChangeRequest request = new IndexDataChangeRequest(caseUUID, data, DataChangeType.CASE_DELETED.value);
         String message = objectMapper.writeValueAsString(request);
 
-        SearchListener searchListener = new SearchListener(objectMapper, caseDataService);
-        searchListener.onDataChange(message);
+        SearchListener searchListener = new SearchListener(dataChangeDecoder(), caseDataService, caseUpdateCoalescer());
+        searchListener.onDataChange(message, null, acknowledgment);
 
-        verify(caseDataService).deleteCase(eq(caseUUID), eq(deleteCaseRequest));
+        verify(caseDataService).deleteCase(eq(caseUUID), eq(deleteCaseRequest), isNull());
         verifyNoMoreInteractions(caseDataService);
     }
 
@@ -96,8 +110,8 @@ public class SearchListenerTest {
             DataChangeType.CASE_COMPLETED.value);
         String message = objectMapper.writeValueAsString(request);
 
-        SearchListener searchListener = new SearchListener(objectMapper, caseDataService);
-        searchListener.onDataChange(message);
+        SearchListener searchListener = new SearchListener(dataChangeDecoder(), caseDataService, caseUpdateCoalescer());
+        searchListener.onDataChange(message, null, acknowledgment);
 
         verify(caseDataService).completeCase(eq(caseUUID));
         verifyNoMoreInteractions(caseDataService);
@@ -114,10 +128,10 @@ public class SearchListenerTest {
             DataChangeType.CORRESPONDENT_CREATED.value);
         String message = objectMapper.writeValueAsString(request);
 
-        SearchListener searchListener = new SearchListener(objectMapper, caseDataService);
-        searchListener.onDataChange(message);
+        SearchListener searchListener = new SearchListener(dataChangeDecoder(), caseDataService, caseUpdateCoalescer());
+        searchListener.onDataChange(message, null, acknowledgment);
 
-        verify(caseDataService).createCorrespondent(eq(caseUUID), eq(correspondentDetailsDto));
+        verify(caseDataService).createCorrespondent(eq(caseUUID), eq(correspondentDetailsDto), isNull());
         verifyNoMoreInteractions(caseDataService);
     }
 
@@ -132,10 +146,10 @@ public class SearchListenerTest {
             DataChangeType.CORRESPONDENT_UPDATED.value);
         String message = objectMapper.writeValueAsString(request);
 
-        SearchListener searchListener = new SearchListener(objectMapper, caseDataService);
-        searchListener.onDataChange(message);
+        SearchListener searchListener = new SearchListener(dataChangeDecoder(), caseDataService, caseUpdateCoalescer());
+        searchListener.onDataChange(message, null, acknowledgment);
 
-        verify(caseDataService).updateCorrespondent(eq(caseUUID), eq(correspondentDetailsDto));
+        verify(caseDataService).updateCorrespondent(eq(caseUUID), eq(correspondentDetailsDto), isNull());
         verifyNoMoreInteractions(caseDataService);
     }
 
@@ -150,10 +164,10 @@ public class SearchListenerTest {
             DataChangeType.CORRESPONDENT_DELETED.value);
         String message = objectMapper.writeValueAsString(request);
 
-        SearchListener searchListener = new SearchListener(objectMapper, caseDataService);
-        searchListener.onDataChange(message);
+        SearchListener searchListener = new SearchListener(dataChangeDecoder(), caseDataService, caseUpdateCoalescer());
+        searchListener.onDataChange(message, null, acknowledgment);
 
-        verify(caseDataService).deleteCorrespondent(eq(caseUUID), eq(correspondentDetailsDto));
+        verify(caseDataService).deleteCorrespondent(eq(caseUUID), eq(correspondentDetailsDto), isNull());
         verifyNoMoreInteractions(caseDataService);
     }
 
@@ -167,10 +181,10 @@ public class SearchListenerTest {
             DataChangeType.CASE_TOPIC_CREATED.value);
         String message = objectMapper.writeValueAsString(request);
 
-        SearchListener searchListener = new SearchListener(objectMapper, caseDataService);
-        searchListener.onDataChange(message);
+        SearchListener searchListener = new SearchListener(dataChangeDecoder(), caseDataService, caseUpdateCoalescer());
+        searchListener.onDataChange(message, null, acknowledgment);
 
-        verify(caseDataService).createTopic(eq(caseUUID), eq(createTopicRequest));
+        verify(caseDataService).createTopic(eq(caseUUID), eq(createTopicRequest), isNull());
         verifyNoMoreInteractions(caseDataService);
     }
 
@@ -184,10 +198,10 @@ public class SearchListenerTest {
             DataChangeType.CASE_TOPIC_DELETED.value);
         String message = objectMapper.writeValueAsString(request);
 
-        SearchListener searchListener = new SearchListener(objectMapper, caseDataService);
-        searchListener.onDataChange(message);
+        SearchListener searchListener = new SearchListener(dataChangeDecoder(), caseDataService, caseUpdateCoalescer());
+        searchListener.onDataChange(message, null, acknowledgment);
 
-        verify(caseDataService).deleteTopic(eq(caseUUID), eq(deleteTopicRequest));
+        verify(caseDataService).deleteTopic(eq(caseUUID), eq(deleteTopicRequest), isNull());
         verifyNoMoreInteractions(caseDataService);
     }
 
@@ -201,10 +215,10 @@ public class SearchListenerTest {
             DataChangeType.SOMU_ITEM_CREATED.value);
         String message = objectMapper.writeValueAsString(request);
 
-        SearchListener searchListener = new SearchListener(objectMapper, caseDataService);
-        searchListener.onDataChange(message);
+        SearchListener searchListener = new SearchListener(dataChangeDecoder(), caseDataService, caseUpdateCoalescer());
+        searchListener.onDataChange(message, null, acknowledgment);
 
-        verify(caseDataService).createSomuItem(eq(caseUUID), eq(somuItemDto));
+        verify(caseDataService).createSomuItem(eq(caseUUID), eq(somuItemDto), isNull());
         verifyNoMoreInteractions(caseDataService);
     }
 
@@ -218,10 +232,10 @@ public class SearchListenerTest {
             DataChangeType.SOMU_ITEM_UPDATED.value);
         String message = objectMapper.writeValueAsString(request);
 
-        SearchListener searchListener = new SearchListener(objectMapper, caseDataService);
-        searchListener.onDataChange(message);
+        SearchListener searchListener = new SearchListener(dataChangeDecoder(), caseDataService, caseUpdateCoalescer());
+        searchListener.onDataChange(message, null, acknowledgment);
 
-        verify(caseDataService).updateSomuItem(eq(caseUUID), eq(somuItemDto));
+        verify(caseDataService).updateSomuItem(eq(caseUUID), eq(somuItemDto), isNull());
         verifyNoMoreInteractions(caseDataService);
     }
 
@@ -235,10 +249,35 @@ public class SearchListenerTest {
             DataChangeType.SOMU_ITEM_DELETED.value);
         String message = objectMapper.writeValueAsString(request);
 
-        SearchListener searchListener = new SearchListener(objectMapper, caseDataService);
-        searchListener.onDataChange(message);
+        SearchListener searchListener = new SearchListener(dataChangeDecoder(), caseDataService, caseUpdateCoalescer());
+        searchListener.onDataChange(message, null, acknowledgment);
+
+        verify(caseDataService).deleteSomuItem(eq(caseUUID), eq(somuItemDto), isNull());
+        verifyNoMoreInteractions(caseDataService);
+    }
 
-        verify(caseDataService).deleteSomuItem(eq(caseUUID), eq(somuItemDto));
+    @Test
+    public void mergesUpdateCaseMessagesForTheSameCaseWhileCoalescing() throws JsonProcessingException {
+        UUID caseUUID = UUID.randomUUID();
+        UpdateCaseRequest first = new UpdateCaseRequest(UUID.randomUUID(), LocalDateTime.now(), "CASE", "CASE/12345",
+            UUID.randomUUID(), UUID.randomUUID(), now.plusDays(1), now.minusDays(1), Map.of("a", "1"), null);
+        UpdateCaseRequest second = new UpdateCaseRequest(first.getUuid(), first.getCreated(), "CASE", "CASE/12345",
+            first.getPrimaryTopic(), first.getPrimaryCorrespondent(), now.plusDays(2), now.minusDays(1),
+            Map.of("b", "2"), null);
+        UpdateCaseRequest merged = new UpdateCaseRequest(first.getUuid(), first.getCreated(), "CASE", "CASE/12345",
+            first.getPrimaryTopic(), first.getPrimaryCorrespondent(), now.plusDays(2), now.minusDays(1),
+            Map.of("a", "1", "b", "2"), null);
+
+        CaseUpdateCoalescer coalescer = new CaseUpdateCoalescer(caseLaneDispatcher, caseDataService,
+            new SimpleMeterRegistry(), 60_000, 10);
+        SearchListener searchListener = new SearchListener(dataChangeDecoder(), caseDataService, coalescer);
+        searchListener.onDataChange(updateCaseMessage(caseUUID, first), null, acknowledgment);
+        searchListener.onDataChange(updateCaseMessage(caseUUID, second), null, acknowledgment);
+        verifyNoInteractions(acknowledgment);
+        coalescer.shutdown();
+
+        verify(acknowledgment, timeout(5_000).times(2)).acknowledge();
+        verify(caseDataService).updateCase(eq(caseUUID), eq(merged), isNull());
         verifyNoMoreInteractions(caseDataService);
     }
 
@@ -246,8 +285,8 @@ public class SearchListenerTest {
     public void callsAuditServiceWithValidTypeButNotInterested() throws JsonProcessingException {
         String incorrectMessage = "{\"caseUUID\":\"11111111-1111-1111-1111-111111111111\", \"type\":\"ANY_OTHER_MESSAGE_TYPE\"}";
 
-        SearchListener searchListener = new SearchListener(objectMapper, caseDataService);
-        searchListener.onDataChange(incorrectMessage);
+        SearchListener searchListener = new SearchListener(dataChangeDecoder(), caseDataService, caseUpdateCoalescer());
+        searchListener.onDataChange(incorrectMessage, null, acknowledgment);
 
         verifyNoMoreInteractions(caseDataService);
     }
@@ -256,8 +295,8 @@ public class SearchListenerTest {
     public void callsAuditServiceWithMissingType() throws JsonProcessingException {
         String incorrectMessage = "{\"caseUUID\":\"11111111-1111-1111-1111-111111111111\"}";
 
-        SearchListener searchListener = new SearchListener(objectMapper, caseDataService);
-        searchListener.onDataChange(incorrectMessage);
+        SearchListener searchListener = new SearchListener(dataChangeDecoder(), caseDataService, caseUpdateCoalescer());
+        searchListener.onDataChange(incorrectMessage, null, acknowledgment);
 
         verifyNoMoreInteractions(caseDataService);
     }
@@ -265,24 +304,39 @@ public class SearchListenerTest {
     @Test
     public void callsAuditServiceWithNullData() {
         String incorrectMessage = "{\"caseUUID\":\"11111111-1111-1111-1111-111111111111\", \"type\":\"CASE_CREATED\"}";
-        SearchListener searchListener = new SearchListener(objectMapper, caseDataService);
+        SearchListener searchListener = new SearchListener(dataChangeDecoder(), caseDataService, caseUpdateCoalescer());
 
-        assertThrows(IllegalArgumentException.class, () -> searchListener.onDataChange(incorrectMessage));
+        assertThrows(IllegalArgumentException.class, () -> searchListener.onDataChange(incorrectMessage, null, acknowledgment));
     }
 
     @Test
     public void callsAuditServiceWithNullMessage() {
-        SearchListener searchListener = new SearchListener(objectMapper, caseDataService);
+        SearchListener searchListener = new SearchListener(dataChangeDecoder(), caseDataService, caseUpdateCoalescer());
 
-        assertThrows(IllegalArgumentException.class, () -> searchListener.onDataChange(null));
+        assertThrows(IllegalArgumentException.class, () -> searchListener.onDataChange(null, null, acknowledgment));
     }
 
     @Test
     public void callsAuditServiceWithInvalidPayload() {
         String incorrectMessage = "{test:1}";
-        SearchListener searchListener = new SearchListener(objectMapper, caseDataService);
+        SearchListener searchListener = new SearchListener(dataChangeDecoder(), caseDataService, caseUpdateCoalescer());
+
+        assertThrows(JsonParseException.class, () -> searchListener.onDataChange(incorrectMessage, null, acknowledgment));
+    }
+
+    private String updateCaseMessage(UUID caseUUID, UpdateCaseRequest updateCaseRequest)
+        throws JsonProcessingException {
+        String data = objectMapper.writeValueAsString(updateCaseRequest);
+        return objectMapper.writeValueAsString(
+            new IndexDataChangeRequest(caseUUID, data, DataChangeType.CASE_UPDATED.value));
+    }
+
+    private DataChangeDecoder dataChangeDecoder() {
+        return new DataChangeDecoder(objectMapper);
+    }
 
-        assertThrows(JsonParseException.class, () -> searchListener.onDataChange(incorrectMessage));
+    private CaseUpdateCoalescer caseUpdateCoalescer() {
+        return new CaseUpdateCoalescer(caseLaneDispatcher, caseDataService, new SimpleMeterRegistry(), 0, 10);
     }
 
 }
@@ -0,0 +1,150 @@
+package uk.gov.digital.ho.hocs.search.client;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.digital.ho.hocs.search.api.dto.DateRangeDto;
+import uk.gov.digital.ho.hocs.search.api.dto.SearchRequest;
+import uk.gov.digital.ho.hocs.search.application.LogEvent;
+import uk.gov.digital.ho.hocs.search.domain.exceptions.ApplicationExceptions;
+import uk.gov.digital.ho.hocs.search.domain.repositories.FieldQueryTypeMappingRepository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static net.javacrumbs.jsonunit.assertj.JsonAssertions.assertThatJson;
+import static net.javacrumbs.jsonunit.core.Option.IGNORING_ARRAY_ORDER;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CaseQueryTemplatesTest {
+
+    @Mock
+    private FieldQueryTypeMappingRepository fieldQueryTypeMappingRepository;
+
+    @Mock
+    private OpenSearchClient openSearchClient;
+
+    private CaseQueryFactory caseQueryFactory;
+
+    private CaseQueryTemplates caseQueryTemplates;
+
+    @BeforeEach
+    public void setup() {
+        lenient().when(fieldQueryTypeMappingRepository.getQueryTypeByFieldLabel("Wildcard")).thenReturn("wildcard");
+        caseQueryFactory = spy(new CaseQueryFactory(fieldQueryTypeMappingRepository, true, false, true));
+        caseQueryTemplates = new CaseQueryTemplates(caseQueryFactory, openSearchClient, 10, false);
+    }
+
+    @Test
+    void shouldRenderSameQueryAsBuilder() {
+        var request = new SearchRequest("MIN/01\"23", List.of("MIN", "TRO"), new DateRangeDto("2020-01-01", ""),
+            "1 Street", null, "Name", " ", "AB1 2CD", "CR", null, "Topic", "TEAM",
+            Map.of("Wildcard", "w\\ild", "Field", "value", "Empty", ""), true);
+
+        assertRendersAsBuilt(request, "MIN");
+        assertRendersAsBuilt(request, "COMP");
+    }
+
+    @Test
+    void shouldReuseTemplateForRequestsOfSameShape() {
+        assertRendersAsBuilt(searchRequest("REF/1", "Topic 1"), "MIN");
+        assertRendersAsBuilt(searchRequest("REF/2", "Topic 2"), "MIN");
+
+        verify(caseQueryFactory, times(1)).createCaseQuery(any(SearchRequest.class), any());
+    }
+
+    @Test
+    void shouldCompileSeparateTemplateForShortReference() {
+        assertRendersAsBuilt(searchRequest("REF/1", "Topic"), "MIN");
+        assertRendersAsBuilt(searchRequest("RE", "Topic"), "MIN");
+
+        assertThat(caseQueryTemplates.query(searchRequest("RE", "Topic"), "MIN").toString()).contains("*RE*");
+    }
+
+    @Test
+    void shouldCompareStoredTemplateQueriesByTemplateWithoutRenderingThem() {
+        var query = new JsonQuery(() -> {
+            throw new AssertionError("Query should not be rendered");
+        }, "case-search-1", Map.of("p0", "REF"));
+        var sameTemplate = new JsonQuery(() -> {
+            throw new AssertionError("Query should not be rendered");
+        }, "case-search-1", Map.of("p0", "REF"));
+        var otherValues = new JsonQuery(() -> {
+            throw new AssertionError("Query should not be rendered");
+        }, "case-search-1", Map.of("p0", "OTHER"));
+
+        assertThat(query).isEqualTo(sameTemplate).hasSameHashCodeAs(sameTemplate).isNotEqualTo(otherValues);
+    }
+
+    @Test
+    void shouldReturnNullWithoutClauses() {
+        assertThat(caseQueryTemplates.query(searchRequest(null, ""), "MIN")).isNull();
+        assertThat(caseQueryTemplates.query(searchRequest(null, ""), "MIN")).isNull();
+    }
+
+    @Test
+    void shouldStoreTemplateAndSendItsValuesOnceStored() {
+        caseQueryTemplates = new CaseQueryTemplates(caseQueryFactory, openSearchClient, 10, true);
+        var stored = new CompletableFuture<Void>();
+        when(openSearchClient.putSearchTemplateAsync(anyString(), anyString())).thenReturn(stored);
+
+        var first = (JsonQuery) caseQueryTemplates.query(searchRequest("REF/\"1", "Topic"), "MIN");
+        var beforeStored = (JsonQuery) caseQueryTemplates.query(searchRequest("REF/2", "Topic"), "MIN");
+        stored.complete(null);
+        var query = (JsonQuery) caseQueryTemplates.query(searchRequest("REF/\"1", "Topic"), "MIN");
+
+        assertThat(first.getTemplateName()).isNull();
+        assertThat(beforeStored.getTemplateName()).isNull();
+        verify(openSearchClient).putSearchTemplateAsync(eq(query.getTemplateName()),
+            argThat(source -> source.contains("\"{{p0}}\"") && source.contains("\"{{p1}}\"")));
+        assertThat(query.getTemplateName()).startsWith("case-search-");
+        assertThat(query.getTemplateParams()).containsOnly(entry("p0", "REF/\"1"), entry("p1", "Topic"));
+        assertRendersAsBuilt(searchRequest("REF/\"1", "Topic"), "MIN");
+    }
+
+    @Test
+    void shouldSendQueryAndStoreTemplateAgainWhenNotStored() {
+        caseQueryTemplates = new CaseQueryTemplates(caseQueryFactory, openSearchClient, 10, true);
+        when(openSearchClient.putSearchTemplateAsync(anyString(), anyString())).thenReturn(
+            CompletableFuture.failedFuture(new ApplicationExceptions.ResourceServerException("Unable to store script",
+                LogEvent.SCRIPT_STORE_FAILED)), CompletableFuture.completedFuture(null));
+
+        var query = (JsonQuery) caseQueryTemplates.query(searchRequest("REF/1", "Topic"), "MIN");
+        var retried = (JsonQuery) caseQueryTemplates.query(searchRequest("REF/1", "Topic"), "MIN");
+        var stored = (JsonQuery) caseQueryTemplates.query(searchRequest("REF/1", "Topic"), "MIN");
+
+        assertThat(query.getTemplateName()).isNull();
+        assertThat(retried.getTemplateName()).isNull();
+        assertThat(stored.getTemplateName()).isNotNull();
+        verify(openSearchClient, times(2)).putSearchTemplateAsync(anyString(), anyString());
+    }
+
+    private void assertRendersAsBuilt(SearchRequest request, String caseType) {
+        String built = new CaseQueryFactory(fieldQueryTypeMappingRepository, true, false, true)
+            .createCaseQuery(request, caseType).build().toString();
+
+        assertThatJson(caseQueryTemplates.query(request, caseType).toString())
+            .when(IGNORING_ARRAY_ORDER)
+            .isEqualTo(built);
+    }
+
+    private static SearchRequest searchRequest(String reference, String topic) {
+        return new SearchRequest(reference, null, null, null, null, null, null, null, null, null, topic, null, null,
+            null);
+    }
+
+}
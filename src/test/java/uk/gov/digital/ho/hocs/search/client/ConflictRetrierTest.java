@@ -0,0 +1,70 @@
+package uk.gov.digital.ho.hocs.search.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.digital.ho.hocs.search.domain.exceptions.ApplicationExceptions;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static uk.gov.digital.ho.hocs.search.application.LogEvent.CASE_UPDATE_CONFLICT;
+
+class ConflictRetrierTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ConflictRetrier conflictRetrier;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        conflictRetrier = new ConflictRetrier(meterRegistry, 2, 1);
+    }
+
+    @Test
+    void shouldRetryUntilWriteSucceeds() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        conflictRetrier.run(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new ApplicationExceptions.VersionConflictException("conflict", CASE_UPDATE_CONFLICT);
+            }
+        });
+
+        assertThat(attempts).hasValue(3);
+        assertThat(conflicts("retried")).isEqualTo(2);
+        assertThat(conflicts("exhausted")).isZero();
+    }
+
+    @Test
+    void shouldThrowWhenRetriesExhausted() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> conflictRetrier.run(() -> {
+            attempts.incrementAndGet();
+            throw new ApplicationExceptions.VersionConflictException("conflict", CASE_UPDATE_CONFLICT);
+        })).isInstanceOf(ApplicationExceptions.VersionConflictException.class);
+
+        assertThat(attempts).hasValue(3);
+        assertThat(conflicts("exhausted")).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotRetryOtherFailures() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> conflictRetrier.run(() -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException();
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(attempts).hasValue(1);
+    }
+
+    private double conflicts(String outcome) {
+        return meterRegistry.get("search.consumer.update.conflicts").tag("outcome", outcome).counter().count();
+    }
+
+}
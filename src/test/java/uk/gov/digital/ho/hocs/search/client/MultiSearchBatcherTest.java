@@ -0,0 +1,115 @@
+package uk.gov.digital.ho.hocs.search.client;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.opensearch.action.ActionListener;
+import org.opensearch.action.search.MultiSearchRequest;
+import org.opensearch.action.search.MultiSearchResponse;
+import org.opensearch.action.search.SearchRequest;
+import org.opensearch.action.search.SearchResponse;
+import org.opensearch.client.RestHighLevelClient;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class MultiSearchBatcherTest {
+
+    @Mock
+    private RestHighLevelClient restHighLevelClient;
+
+    private final WireFormat wireFormat = new WireFormat("json");
+
+    private MultiSearchBatcher multiSearchBatcher;
+
+    @AfterEach
+    public void teardown() {
+        multiSearchBatcher.shutdown();
+    }
+
+    @Test
+    void shouldSendSearchesOfConcurrentCallersAsOneMultiSearch() {
+        multiSearchBatcher = new MultiSearchBatcher(restHighLevelClient, wireFormat, 60_000, 3);
+        var responses = IntStream.range(0, 3).mapToObj(i -> mock(SearchResponse.class)).toList();
+        ArgumentCaptor<MultiSearchRequest> requestCaptor = ArgumentCaptor.forClass(MultiSearchRequest.class);
+        doAnswer(invocation -> {
+            invocation.<ActionListener<MultiSearchResponse>>getArgument(2).onResponse(new MultiSearchResponse(
+                responses.stream().map(response -> new MultiSearchResponse.Item(response, null))
+                    .toArray(MultiSearchResponse.Item[]::new), 1L));
+            return null;
+        }).when(restHighLevelClient).msearchAsync(requestCaptor.capture(), any(), any());
+
+        var first = new CompletableFuture<MultiSearchResponse>();
+        multiSearchBatcher.msearchAsync(multiSearchRequest("min"), ActionListener.wrap(first::complete,
+            first::completeExceptionally));
+        var second = new CompletableFuture<MultiSearchResponse>();
+        multiSearchBatcher.msearchAsync(multiSearchRequest("tro", "dten"), ActionListener.wrap(second::complete,
+            second::completeExceptionally));
+
+        assertThat(requestCaptor.getValue().requests()).extracting(request -> request.indices()[0])
+            .containsExactly("min", "tro", "dten");
+        assertThat(first.join().getResponses()).extracting(MultiSearchResponse.Item::getResponse)
+            .containsExactly(responses.get(0));
+        assertThat(second.join().getResponses()).extracting(MultiSearchResponse.Item::getResponse)
+            .containsExactly(responses.get(1), responses.get(2));
+    }
+
+    @Test
+    void shouldSendSearchesOnceWindowHasPassed() {
+        multiSearchBatcher = new MultiSearchBatcher(restHighLevelClient, wireFormat, 5, 100);
+        doAnswer(invocation -> {
+            invocation.<ActionListener<MultiSearchResponse>>getArgument(2).onResponse(new MultiSearchResponse(
+                new MultiSearchResponse.Item[] { new MultiSearchResponse.Item(mock(SearchResponse.class), null) },
+                1L));
+            return null;
+        }).when(restHighLevelClient).msearchAsync(any(), any(), any());
+
+        var response = CompletableFuture.supplyAsync(() -> {
+            try {
+                return multiSearchBatcher.msearch(multiSearchRequest("min"));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        await().until(response::isDone);
+        assertThat(response.join().getResponses()).hasSize(1);
+        verify(restHighLevelClient, times(1)).msearchAsync(any(), any(), any());
+    }
+
+    @Test
+    void shouldFailEveryCallerWithFailureOfMultiSearch() {
+        multiSearchBatcher = new MultiSearchBatcher(restHighLevelClient, wireFormat, 60_000, 1);
+        doAnswer(invocation -> {
+            invocation.<ActionListener<MultiSearchResponse>>getArgument(2).onFailure(new IOException("timeout"));
+            return null;
+        }).when(restHighLevelClient).msearchAsync(any(), any(), any());
+
+        assertThatThrownBy(() -> multiSearchBatcher.msearch(multiSearchRequest("min")))
+            .isInstanceOf(IOException.class)
+            .hasMessage("timeout");
+    }
+
+    private static MultiSearchRequest multiSearchRequest(String... indices) {
+        var multiSearchRequest = new MultiSearchRequest();
+        for (String index : indices) {
+            multiSearchRequest.add(new SearchRequest(index));
+        }
+        return multiSearchRequest;
+    }
+
+}
@@ -28,7 +28,7 @@ public class OpenSearchCaseQueryBuilderTest {
 
     @BeforeEach
     public void setup() {
-        this.caseQueryFactory = new CaseQueryFactory(fieldQueryTypeMappingRepository);
+        this.caseQueryFactory = new CaseQueryFactory(fieldQueryTypeMappingRepository, false, false, false);
         this.baseQuery = caseQueryFactory.createCaseQuery().build();
     }
 
@@ -44,6 +44,48 @@ public class OpenSearchCaseQueryBuilderTest {
         assertThat(query.toString()).contains("*reference123*");
     }
 
+    @Test
+    public void shouldMatchReferenceNgramsWhenEnabled() {
+        BoolQueryBuilder query =
+            new CaseQueryFactory(fieldQueryTypeMappingRepository, true, false, false).createCaseQuery()
+                .reference("reference123", "comp").build();
+
+        assertThatJson(query.toString()).inPath("$.bool.must[0].bool.should[0].match_phrase")
+            .isObject().containsKey("reference.ngram");
+        assertThat(query.toString()).doesNotContain("wildcard");
+    }
+
+    @Test
+    public void shouldUseWildcardForReferenceShorterThanGramWhenNgramsEnabled() {
+        BoolQueryBuilder query =
+            new CaseQueryFactory(fieldQueryTypeMappingRepository, true, false, false).createCaseQuery()
+                .reference("12", "TYPE").build();
+
+        assertThat(query.toString()).contains("*12*").doesNotContain("reference.ngram");
+    }
+
+    @Test
+    public void shouldPutExactClausesInFilterContextWhenEnabled() {
+        Mockito.when(fieldQueryTypeMappingRepository.getQueryTypeByFieldLabel("Field")).thenReturn(null);
+
+        BoolQueryBuilder query =
+            new CaseQueryFactory(fieldQueryTypeMappingRepository, false, false, true).createCaseQuery()
+                .reference("REF", "MIN")
+                .caseTypes(List.of("MIN"))
+                .dateRange(new DateRangeDto("2020-01-01", null))
+                .correspondentName("Name")
+                .privateOfficeTeam(UUID.randomUUID().toString())
+                .dataFields(Map.of("Field", "Value"))
+                .activeOnlyFlag(true)
+                .build();
+
+        assertThat(query.must()).hasSize(2);
+        assertThat(query.filter()).hasSize(6);
+        assertThatJson(query.toString()).inPath("$.bool.must[0].wildcard").isObject().containsKey("reference");
+        assertThatJson(query.toString()).inPath("$.bool.must[1].nested.path").isString()
+            .isEqualTo("currentCorrespondents");
+    }
+
     @Test
     public void shouldNotAddBlankReference() {
         BoolQueryBuilder query =
@@ -248,6 +290,17 @@ public class OpenSearchCaseQueryBuilderTest {
         assertThat(query.toString()).contains(correspondentReference);
     }
 
+    @Test
+    public void shouldMatchCorrespondentReferenceNgramsWhenEnabled() {
+        BoolQueryBuilder query =
+            new CaseQueryFactory(fieldQueryTypeMappingRepository, true, false, false).createCaseQuery()
+                .correspondentReference("MYReference").build();
+
+        assertThatJson(query.toString()).inPath("$.bool.must[0].nested.query.match_phrase")
+            .isObject().containsKey("currentCorrespondents.reference.ngram");
+        assertThat(query.toString()).doesNotContain("wildcard");
+    }
+
     @Test
     public void shouldNotAddNoCorrespondentReference() {
         BoolQueryBuilder query =
@@ -509,6 +562,19 @@ public class OpenSearchCaseQueryBuilderTest {
         }
     }
 
+    @Test
+    public void shouldFilterOnEffectivePrivateOfficeTeamWhenEnabled() {
+        final String privateOfficeTeamUuid = UUID.randomUUID().toString();
+
+        BoolQueryBuilder query =
+            new CaseQueryFactory(fieldQueryTypeMappingRepository, false, true, false).createCaseQuery()
+                .privateOfficeTeam(privateOfficeTeamUuid).build();
+
+        assertThat(query.must()).hasSize(1);
+        assertThatJson(query.toString()).inPath("$.bool.filter[0].term.effectivePOTeamUUID.value")
+            .isString().isEqualTo(privateOfficeTeamUuid);
+    }
+
     @Test
     public void shouldNotAddEmptyPrivateOfficeTeam() {
         BoolQueryBuilder query =
@@ -2,6 +2,7 @@ package uk.gov.digital.ho.hocs.search.client;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.lucene.search.TotalHits;
 import org.assertj.core.api.AssertionsForClassTypes;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,28 +11,70 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.opensearch.action.get.GetRequest;
-import org.opensearch.action.get.GetResponse;
+import org.opensearch.OpenSearchStatusException;
+import org.opensearch.action.ActionListener;
+import org.opensearch.action.DocWriteRequest;
+import org.opensearch.action.DocWriteResponse;
+import org.opensearch.action.bulk.BulkItemResponse;
+import org.opensearch.action.bulk.BulkRequest;
+import org.opensearch.action.bulk.BulkResponse;
 import org.opensearch.action.search.MultiSearchRequest;
+import org.opensearch.action.search.MultiSearchResponse;
+import org.opensearch.action.search.SearchResponse;
+import org.opensearch.action.support.master.AcknowledgedResponse;
 import org.opensearch.action.update.UpdateRequest;
+import org.opensearch.action.update.UpdateResponse;
 import org.opensearch.client.RestHighLevelClient;
+import org.opensearch.client.json.jackson.JacksonJsonpMapper;
+import org.opensearch.client.opensearch.OpenSearchAsyncClient;
+import org.opensearch.client.opensearch.core.GetRequest;
+import org.opensearch.client.opensearch.core.GetResponse;
+import org.opensearch.client.transport.OpenSearchTransport;
+import org.opensearch.client.tasks.TaskSubmissionResponse;
+import org.opensearch.common.bytes.BytesReference;
+import org.opensearch.common.xcontent.ToXContent;
+import org.opensearch.common.xcontent.XContentFactory;
+import org.opensearch.common.xcontent.XContentHelper;
+import org.opensearch.common.xcontent.XContentType;
 import org.opensearch.index.query.BoolQueryBuilder;
+import org.opensearch.index.query.WrapperQueryBuilder;
+import org.opensearch.index.reindex.UpdateByQueryRequest;
+import org.opensearch.index.seqno.SequenceNumbers;
+import org.opensearch.rest.RestStatus;
+import org.opensearch.script.ScriptType;
+import org.opensearch.script.mustache.MultiSearchTemplateRequest;
+import org.opensearch.script.mustache.MultiSearchTemplateResponse;
+import org.opensearch.script.mustache.SearchTemplateRequest;
+import org.opensearch.script.mustache.SearchTemplateResponse;
+import org.opensearch.search.SearchHit;
+import org.opensearch.search.SearchHits;
 import uk.gov.digital.ho.hocs.search.api.dto.AddressDto;
 import uk.gov.digital.ho.hocs.search.api.dto.CorrespondentDetailsDto;
 import uk.gov.digital.ho.hocs.search.api.dto.CreateCaseRequest;
 import uk.gov.digital.ho.hocs.search.api.helpers.ObjectMapperConverterHelper;
+import uk.gov.digital.ho.hocs.search.domain.exceptions.ApplicationExceptions;
 import uk.gov.digital.ho.hocs.search.domain.model.CaseData;
 import uk.gov.digital.ho.hocs.search.domain.model.CorrespondentCaseData;
+import uk.gov.digital.ho.hocs.search.domain.model.TopicCaseData;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
+import static net.javacrumbs.jsonunit.assertj.JsonAssertions.assertThatJson;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -42,6 +85,9 @@ class OpenSearchClientTest {
     @Mock
     private RestHighLevelClient restHighLevelClient;
 
+    @Mock
+    private OpenSearchAsyncClient openSearchAsyncClient;
+
     @Captor
     private ArgumentCaptor<GetRequest> getRequestArgumentCaptor;
 
@@ -51,6 +97,9 @@ class OpenSearchClientTest {
     @Captor
     private ArgumentCaptor<MultiSearchRequest> multiSearchRequestArgumentCaptor;
 
+    @Captor
+    private ArgumentCaptor<BulkRequest> bulkRequestArgumentCaptor;
+
     private OpenSearchClient openSearchClient;
 
     private ObjectMapper objectMapper;
@@ -66,7 +115,9 @@ class OpenSearchClientTest {
             .setDateFormat(new SimpleDateFormat("yyyy-MM-dd"))
             .registerModule(new JavaTimeModule());
 
-        openSearchClient = new OpenSearchClient(restHighLevelClient, "test", 10);
+        var wireFormat = new WireFormat("json");
+        openSearchClient = new OpenSearchClient(restHighLevelClient, openSearchAsyncClient,
+            new MultiSearchBatcher(restHighLevelClient, wireFormat, 0, 0), wireFormat, "test", 10, 3);
     }
 
     @Test
@@ -84,15 +135,52 @@ class OpenSearchClientTest {
 
     @Test
     void shouldReadFromCorrectAlias() throws IOException {
-        GetResponse getResponse = mock(GetResponse.class);
+        when(openSearchAsyncClient.get(getRequestArgumentCaptor.capture(), eq(Map.class))).thenReturn(
+            CompletableFuture.completedFuture(GetResponse.of(get -> get.index("test-min").id("id").found(true)
+                .source(Map.of("reference", "REF")))));
 
-        when(restHighLevelClient.get(getRequestArgumentCaptor.capture(), any())).thenReturn(getResponse);
-
-        openSearchClient.findById("MIN", UUID.randomUUID());
+        assertThat(openSearchClient.findById("MIN", UUID.randomUUID())).containsEntry("reference", "REF");
 
         assertThat(getRequestArgumentCaptor.getValue().index()).isEqualTo("test-min-read");
     }
 
+    @Test
+    void shouldReadDocumentAsTypeWithItsVersion() throws IOException {
+        var topicCaseData = new TopicCaseData();
+        when(openSearchAsyncClient.get(any(GetRequest.class), eq(TopicCaseData.class))).thenReturn(
+            CompletableFuture.completedFuture(GetResponse.of(get -> get.index("test-min").id("id").found(true)
+                .source(topicCaseData).seqNo(7L).primaryTerm(2L))));
+
+        var document = openSearchClient.findDocument("MIN", UUID.randomUUID(), TopicCaseData.class);
+
+        assertThat(document.getSource()).isSameAs(topicCaseData);
+        assertThat(document.getSeqNo()).isEqualTo(7);
+        assertThat(document.getPrimaryTerm()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldReadMissingDocumentAsEmpty() throws IOException {
+        var transport = mock(OpenSearchTransport.class);
+        when(transport.jsonpMapper()).thenReturn(new JacksonJsonpMapper());
+        when(openSearchAsyncClient._transport()).thenReturn(transport);
+        when(openSearchAsyncClient.get(any(GetRequest.class), eq(TopicCaseData.class))).thenReturn(
+            CompletableFuture.completedFuture(GetResponse.of(get -> get.index("test-min").id("id").found(false))));
+
+        var document = openSearchClient.findDocument("MIN", UUID.randomUUID(), TopicCaseData.class);
+
+        assertThat(document.getSource()).isEqualTo(new TopicCaseData());
+        assertThat(document.getSeqNo()).isEqualTo(SequenceNumbers.UNASSIGNED_SEQ_NO);
+    }
+
+    @Test
+    void shouldThrowNotFoundWhenReadFails() throws IOException {
+        when(openSearchAsyncClient.get(any(GetRequest.class), eq(TopicCaseData.class))).thenReturn(
+            CompletableFuture.failedFuture(new IOException("timeout")));
+
+        assertThatThrownBy(() -> openSearchClient.findDocument("MIN", UUID.randomUUID(), TopicCaseData.class))
+            .isInstanceOf(ApplicationExceptions.EntityNotFoundException.class);
+    }
+
     @Test
     void shouldOnlyUpdatePartialFields() throws IOException {
         CorrespondentCaseData correspondentCaseData = new CorrespondentCaseData();
@@ -110,10 +198,139 @@ class OpenSearchClientTest {
         AssertionsForClassTypes.assertThat(sourceMap).isEqualTo(obj);
     }
 
+    @Test
+    void shouldUpdateCollectionsWithStoredScript() throws IOException {
+        UUID correspondentUuid = UUID.randomUUID();
+        var collectionUpdate = new CollectionUpdate()
+            .remove(correspondentUuid, "currentCorrespondents")
+            .add(Map.of("uuid", correspondentUuid.toString()), "currentCorrespondents", "allCorrespondents");
+
+        when(restHighLevelClient.update(updateRequestArgumentCaptor.capture(), any())).thenReturn(null);
+
+        openSearchClient.update(new DocumentUpdate("TEST", UUID.randomUUID(), collectionUpdate));
+
+        UpdateRequest updateRequest = updateRequestArgumentCaptor.getValue();
+        assertThat(updateRequest.doc()).isNull();
+        assertThat(updateRequest.scriptedUpsert()).isTrue();
+        assertThat(updateRequest.retryOnConflict()).isEqualTo(3);
+        assertThat(updateRequest.script().getType()).isEqualTo(ScriptType.STORED);
+        assertThat(updateRequest.script().getIdOrCode()).isEqualTo("test-update-collections");
+        assertThat(updateRequest.script().getParams())
+            .containsEntry("uuid", correspondentUuid.toString())
+            .containsEntry("remove", List.of("currentCorrespondents"))
+            .containsEntry("add", List.of("currentCorrespondents", "allCorrespondents"));
+    }
+
+
+    @Test
+    void shouldWriteConditionallyWithoutUpsertWhenVersionKnown() throws IOException {
+        when(restHighLevelClient.update(updateRequestArgumentCaptor.capture(), any())).thenReturn(null);
+
+        openSearchClient.update(new DocumentUpdate("TEST", UUID.randomUUID(), Map.of("allTopics", List.of()), 7, 2));
+
+        UpdateRequest updateRequest = updateRequestArgumentCaptor.getValue();
+        assertThat(updateRequest.ifSeqNo()).isEqualTo(7);
+        assertThat(updateRequest.ifPrimaryTerm()).isEqualTo(2);
+        assertThat(updateRequest.docAsUpsert()).isFalse();
+        assertThat(updateRequest.retryOnConflict()).isZero();
+        assertThat(updateRequest.validate()).isNull();
+    }
+
+    @Test
+    void shouldThrowVersionConflictWhenDocumentChanged() throws IOException {
+        when(restHighLevelClient.update(any(), any())).thenThrow(
+            new OpenSearchStatusException("version conflict", RestStatus.CONFLICT));
+
+        var update = new DocumentUpdate("TEST", UUID.randomUUID(), Map.of("allTopics", List.of()), 7, 2);
+
+        assertThatThrownBy(() -> openSearchClient.update(update)).isInstanceOf(
+            ApplicationExceptions.VersionConflictException.class);
+    }
+
+    @Test
+    void shouldThrowResourceServerExceptionWhenUpdateFails() throws IOException {
+        when(restHighLevelClient.update(any(), any())).thenThrow(new IOException("timeout"));
+
+        var update = new DocumentUpdate("TEST", UUID.randomUUID(), Map.of("allTopics", List.of()));
+
+        assertThatThrownBy(() -> openSearchClient.update(update)).isInstanceOf(
+            ApplicationExceptions.ResourceServerException.class);
+    }
+
+    @Test
+    void shouldWriteSerialisedDocumentAsIs() throws IOException {
+        when(restHighLevelClient.update(updateRequestArgumentCaptor.capture(), any())).thenReturn(null);
+
+        byte[] source = "{\"reference\":\"REF\"}".getBytes(StandardCharsets.UTF_8);
+        openSearchClient.update(new DocumentUpdate("TEST", UUID.randomUUID(), new JsonDocument(source)));
+
+        UpdateRequest updateRequest = updateRequestArgumentCaptor.getValue();
+        assertThat(updateRequest.doc().source().utf8ToString()).isEqualTo("{\"reference\":\"REF\"}");
+        assertThat(updateRequest.doc().getContentType()).isEqualTo(XContentType.JSON);
+        assertThat(updateRequest.docAsUpsert()).isTrue();
+    }
+
+    @Test
+    void shouldEmbedSerialisedDocumentInVersionedScript() throws IOException {
+        when(restHighLevelClient.update(updateRequestArgumentCaptor.capture(), any())).thenReturn(null);
+
+        byte[] source = "{\"reference\":\"REF\",\"eventTime\":1}".getBytes(StandardCharsets.UTF_8);
+        openSearchClient.update(
+            new DocumentUpdate("TEST", UUID.randomUUID(), new JsonDocument(source)).versionedBy("eventTime"));
+
+        var body = BytesReference.bytes(
+            updateRequestArgumentCaptor.getValue().toXContent(XContentFactory.jsonBuilder(), ToXContent.EMPTY_PARAMS));
+        assertThat(body.utf8ToString()).contains("\"doc\":{\"reference\":\"REF\",\"eventTime\":1}");
+    }
+
+    @Test
+    void shouldApplyVersionedUpdateWithStoredScript() throws IOException {
+        when(restHighLevelClient.update(updateRequestArgumentCaptor.capture(), any())).thenReturn(null);
+
+        Map<String, Object> data = Map.of("reference", "REF", "eventTime", 1_700_000_000_000L);
+        openSearchClient.update(new DocumentUpdate("TEST", UUID.randomUUID(), data).versionedBy("eventTime"));
+
+        UpdateRequest updateRequest = updateRequestArgumentCaptor.getValue();
+        assertThat(updateRequest.doc()).isNull();
+        assertThat(updateRequest.scriptedUpsert()).isTrue();
+        assertThat(updateRequest.script().getIdOrCode()).isEqualTo("test-versioned-update");
+        assertThat(updateRequest.script().getParams())
+            .containsEntry("doc", data)
+            .containsEntry("field", "eventTime");
+    }
+
+    @Test
+    void shouldWorkOutEffectivePOTeamWithStoredScript() throws IOException {
+        when(restHighLevelClient.update(updateRequestArgumentCaptor.capture(), any())).thenReturn(null);
+
+        Map<String, Object> data = Map.of("data", Map.of("OverridePOTeamUUID", ""));
+        openSearchClient.update(new DocumentUpdate("TEST", UUID.randomUUID(), data).derivingEffectivePOTeam());
+
+        UpdateRequest updateRequest = updateRequestArgumentCaptor.getValue();
+        assertThat(updateRequest.doc()).isNull();
+        assertThat(updateRequest.script().getIdOrCode()).isEqualTo("test-versioned-update");
+        assertThat(updateRequest.script().getParams())
+            .containsEntry("doc", data)
+            .containsEntry("field", null)
+            .containsEntry("poTeamFields", CaseData.PO_TEAM_FIELDS);
+    }
+
+    @Test
+    void shouldReportSkippedVersionedUpdate() throws IOException {
+        UpdateResponse updateResponse = mock(UpdateResponse.class);
+        when(updateResponse.getResult()).thenReturn(DocWriteResponse.Result.NOOP);
+        when(restHighLevelClient.update(any(), any())).thenReturn(updateResponse);
+
+        boolean applied = openSearchClient.update(
+            new DocumentUpdate("TEST", UUID.randomUUID(), Map.of("eventTime", 1L)).versionedBy("eventTime"));
+
+        assertThat(applied).isFalse();
+    }
 
     @Test
     void shouldOnlySearchSpecifiedIndexes() throws IOException {
-        Map<String, BoolQueryBuilder> searches = Map.of("TEST", new BoolQueryBuilder(), "TEST2", new BoolQueryBuilder());
+        Map<String, SearchQuery> searches = Map.of("TEST", SearchQuery.of(new BoolQueryBuilder()), "TEST2",
+            SearchQuery.of(new BoolQueryBuilder()));
 
         openSearchClient.search(searches);
 
@@ -122,4 +339,231 @@ class OpenSearchClientTest {
         assertThat(multiSearchRequestArgumentCaptor.getValue().requests()).hasSize(2);
     }
 
+    @Test
+    void shouldSearchIdsWithoutFetchingSource() throws IOException {
+        UUID caseUuid = UUID.randomUUID();
+        SearchResponse searchResponse = mock(SearchResponse.class);
+        when(searchResponse.getHits()).thenReturn(new SearchHits(
+            new SearchHit[] { new SearchHit(1, caseUuid.toString(), Map.of(), Map.of()) },
+            new TotalHits(1, TotalHits.Relation.EQUAL_TO), 1));
+        when(restHighLevelClient.msearch(multiSearchRequestArgumentCaptor.capture(), any())).thenReturn(
+            new MultiSearchResponse(new MultiSearchResponse.Item[] { new MultiSearchResponse.Item(searchResponse, null) },
+                1L));
+
+        List<UUID> results = openSearchClient.searchIds(Map.of("TEST", SearchQuery.of(new BoolQueryBuilder())));
+
+        assertThat(results).containsExactly(caseUuid);
+        assertThat(multiSearchRequestArgumentCaptor.getValue().requests().get(0).source().fetchSource().fetchSource())
+            .isFalse();
+    }
+
+    @Test
+    void shouldWriteJsonQueryIntoSearchRequestAsItIs() throws IOException {
+        String json = "{\"term\":{\"type\":\"MIN\"}}";
+
+        openSearchClient.searchIds(Map.of("TEST", new JsonQuery(json.getBytes(StandardCharsets.UTF_8))));
+
+        verify(restHighLevelClient).msearch(multiSearchRequestArgumentCaptor.capture(), any());
+        var source = multiSearchRequestArgumentCaptor.getValue().requests().get(0).source();
+        assertThat(source.query()).isInstanceOf(WrapperQueryBuilder.class);
+        assertThatJson(source.toString()).node("query").isEqualTo(json);
+    }
+
+    @Test
+    void shouldSplitBatchedSearchResultsPerSearch() throws IOException {
+        UUID firstUuid = UUID.randomUUID();
+        UUID secondUuid = UUID.randomUUID();
+        SearchResponse firstResponse = mock(SearchResponse.class);
+        when(firstResponse.getHits()).thenReturn(new SearchHits(
+            new SearchHit[] { new SearchHit(1, firstUuid.toString(), Map.of(), Map.of()) },
+            new TotalHits(1, TotalHits.Relation.EQUAL_TO), 1));
+        SearchResponse secondResponse = mock(SearchResponse.class);
+        when(secondResponse.getHits()).thenReturn(new SearchHits(
+            new SearchHit[] { new SearchHit(2, secondUuid.toString(), Map.of(), Map.of()) },
+            new TotalHits(1, TotalHits.Relation.EQUAL_TO), 1));
+        when(restHighLevelClient.msearch(multiSearchRequestArgumentCaptor.capture(), any())).thenReturn(
+            new MultiSearchResponse(new MultiSearchResponse.Item[] {
+                new MultiSearchResponse.Item(firstResponse, null),
+                new MultiSearchResponse.Item(secondResponse, null),
+                new MultiSearchResponse.Item(null, new IllegalStateException("shard failure")) }, 1L));
+
+        List<List<UUID>> results = openSearchClient.batchSearchIds(List.of(
+            Map.of("TEST", SearchQuery.of(new BoolQueryBuilder()), "TEST2", SearchQuery.of(new BoolQueryBuilder())),
+            Map.of(),
+            Map.of("TEST", SearchQuery.of(new BoolQueryBuilder()))));
+
+        assertThat(results).containsExactly(List.of(firstUuid, secondUuid), List.of(), List.of());
+        assertThat(multiSearchRequestArgumentCaptor.getValue().requests()).hasSize(3);
+    }
+
+    @Test
+    void shouldSearchIdsAsync() throws IOException {
+        UUID caseUuid = UUID.randomUUID();
+        SearchResponse searchResponse = mock(SearchResponse.class);
+        when(searchResponse.getHits()).thenReturn(new SearchHits(
+            new SearchHit[] { new SearchHit(1, caseUuid.toString(), Map.of(), Map.of()) },
+            new TotalHits(1, TotalHits.Relation.EQUAL_TO), 1));
+        doAnswer(invocation -> {
+            invocation.<ActionListener<MultiSearchResponse>>getArgument(2).onResponse(new MultiSearchResponse(
+                new MultiSearchResponse.Item[] { new MultiSearchResponse.Item(searchResponse, null) }, 1L));
+            return null;
+        }).when(restHighLevelClient).msearchAsync(multiSearchRequestArgumentCaptor.capture(), any(), any());
+
+        var results = openSearchClient.searchIdsAsync(Map.of("TEST", SearchQuery.of(new BoolQueryBuilder())));
+
+        assertThat(results).isCompletedWithValue(List.of(caseUuid));
+        assertThat(multiSearchRequestArgumentCaptor.getValue().requests().get(0).indices())
+            .containsExactly("test-test-read");
+    }
+
+    @Test
+    void shouldCompleteAsyncSearchWithoutResultsWhenUnavailable() throws IOException {
+        doAnswer(invocation -> {
+            invocation.<ActionListener<MultiSearchResponse>>getArgument(2).onFailure(new IOException("timeout"));
+            return null;
+        }).when(restHighLevelClient).msearchAsync(any(), any(), any());
+
+        var results = openSearchClient.searchIdsAsync(Map.of("TEST", SearchQuery.of(new BoolQueryBuilder())));
+
+        assertThat(results).isCompletedWithValue(List.of());
+    }
+
+    @Test
+    void shouldStoreSearchTemplateAsync() {
+        doAnswer(invocation -> {
+            invocation.<ActionListener<AcknowledgedResponse>>getArgument(2).onResponse(new AcknowledgedResponse(true));
+            return null;
+        }).when(restHighLevelClient).putScriptAsync(any(), any(), any());
+
+        var stored = openSearchClient.putSearchTemplateAsync("case-search-1", "{\"match_all\":{}}");
+
+        assertThat(stored).isCompleted();
+    }
+
+    @Test
+    void shouldFailStoringSearchTemplateAsyncWhenUnavailable() {
+        doAnswer(invocation -> {
+            invocation.<ActionListener<AcknowledgedResponse>>getArgument(2).onFailure(new IOException("timeout"));
+            return null;
+        }).when(restHighLevelClient).putScriptAsync(any(), any(), any());
+
+        var stored = openSearchClient.putSearchTemplateAsync("case-search-1", "{\"match_all\":{}}");
+
+        assertThat(stored).failsWithin(Duration.ZERO).withThrowableOfType(ExecutionException.class)
+            .withCauseInstanceOf(ApplicationExceptions.ResourceServerException.class);
+    }
+
+    @Test
+    void shouldSearchIdsThroughStoredTemplates() throws IOException {
+        UUID caseUuid = UUID.randomUUID();
+        SearchResponse searchResponse = mock(SearchResponse.class);
+        when(searchResponse.getHits()).thenReturn(new SearchHits(
+            new SearchHit[] { new SearchHit(1, caseUuid.toString(), Map.of(), Map.of()) },
+            new TotalHits(1, TotalHits.Relation.EQUAL_TO), 1));
+        SearchTemplateResponse searchTemplateResponse = mock(SearchTemplateResponse.class);
+        when(searchTemplateResponse.getResponse()).thenReturn(searchResponse);
+        MultiSearchTemplateResponse multiSearchTemplateResponse = mock(MultiSearchTemplateResponse.class);
+        when(multiSearchTemplateResponse.getResponses()).thenReturn(new MultiSearchTemplateResponse.Item[] {
+            new MultiSearchTemplateResponse.Item(searchTemplateResponse, null) });
+        ArgumentCaptor<MultiSearchTemplateRequest> requestCaptor = ArgumentCaptor.forClass(
+            MultiSearchTemplateRequest.class);
+        when(restHighLevelClient.msearchTemplate(requestCaptor.capture(), any())).thenReturn(
+            multiSearchTemplateResponse);
+
+        var query = new JsonQuery(() -> {
+            throw new AssertionError("Query should not be rendered");
+        }, "case-search-1", Map.of("p0", "REF"));
+        List<UUID> results = openSearchClient.searchIds(Map.of("TEST", query));
+
+        assertThat(results).containsExactly(caseUuid);
+        SearchTemplateRequest templateRequest = requestCaptor.getValue().requests().get(0);
+        assertThat(templateRequest.getRequest().indices()).containsExactly("test-test-read");
+        assertThat(templateRequest.getScriptType()).isEqualTo(ScriptType.STORED);
+        assertThat(templateRequest.getScript()).isEqualTo("test-case-search-1");
+        assertThat(templateRequest.getScriptParams())
+            .containsEntry("p0", "REF")
+            .containsEntry("size", 10)
+            .containsEntry("fetch_source", false);
+    }
+
+    @Test
+    void shouldRunStoredScriptByQueryAsTask() throws IOException {
+        TaskSubmissionResponse taskSubmissionResponse = mock(TaskSubmissionResponse.class);
+        when(taskSubmissionResponse.getTask()).thenReturn("node:1");
+        ArgumentCaptor<UpdateByQueryRequest> updateByQueryRequestArgumentCaptor =
+            ArgumentCaptor.forClass(UpdateByQueryRequest.class);
+        when(restHighLevelClient.submitUpdateByQueryTask(updateByQueryRequestArgumentCaptor.capture(), any()))
+            .thenReturn(taskSubmissionResponse);
+
+        String task = openSearchClient.updateByQuery("MIN", new BoolQueryBuilder(), "script", Map.of("a", 1));
+
+        assertThat(task).isEqualTo("node:1");
+        UpdateByQueryRequest request = updateByQueryRequestArgumentCaptor.getValue();
+        assertThat(request.indices()).containsExactly("test-min-write");
+        assertThat(request.getScript().getIdOrCode()).isEqualTo("test-script");
+        assertThat(request.getScript().getType()).isEqualTo(ScriptType.STORED);
+        assertThat(request.isAbortOnVersionConflict()).isFalse();
+    }
+
+    @Test
+    void shouldReturnResultPerBulkItem() throws IOException {
+        var first = new DocumentUpdate("MIN", UUID.randomUUID(), Map.of("completed", true));
+        var second = new DocumentUpdate("TRO", UUID.randomUUID(), Map.of("completed", true));
+
+        BulkItemResponse succeeded = mock(BulkItemResponse.class);
+        BulkItemResponse failed = mock(BulkItemResponse.class);
+        when(failed.isFailed()).thenReturn(true);
+
+        when(restHighLevelClient.bulk(bulkRequestArgumentCaptor.capture(), any())).thenReturn(
+            new BulkResponse(new BulkItemResponse[] { succeeded, failed }, 1L));
+
+        List<Boolean> results = openSearchClient.bulkUpdate(List.of(first, second));
+
+        assertThat(results).containsExactly(true, false);
+        assertThat(bulkRequestArgumentCaptor.getValue().requests()).extracting(DocWriteRequest::index)
+            .containsExactly("test-min-write", "test-tro-write");
+    }
+
+    @Test
+    void shouldWriteBulkUpdatesInBinaryWireFormat() throws IOException {
+        var smileClient = smileClient();
+        byte[] source = "{\"reference\":\"REF\",\"eventTime\":1}".getBytes(StandardCharsets.UTF_8);
+        var serialised = new DocumentUpdate("MIN", UUID.randomUUID(), new JsonDocument(source));
+        var partial = new DocumentUpdate("MIN", UUID.randomUUID(), Map.of("completed", true));
+        var versioned = new DocumentUpdate("MIN", UUID.randomUUID(), new JsonDocument(source)).versionedBy("eventTime");
+
+        when(restHighLevelClient.bulk(bulkRequestArgumentCaptor.capture(), any())).thenReturn(
+            new BulkResponse(new BulkItemResponse[0], 1L));
+
+        smileClient.bulkUpdate(List.of(serialised, partial, versioned));
+
+        var requests = bulkRequestArgumentCaptor.getValue().requests().stream()
+            .map(UpdateRequest.class::cast).toList();
+        assertThat(requests.get(0).doc().getContentType()).isEqualTo(XContentType.SMILE);
+        assertThat(XContentHelper.convertToMap(requests.get(0).doc().source(), false, XContentType.SMILE).v2())
+            .isEqualTo(Map.of("reference", "REF", "eventTime", 1));
+        assertThat(requests.get(1).doc().getContentType()).isEqualTo(XContentType.SMILE);
+        assertThat(requests.get(2).upsertRequest().getContentType()).isEqualTo(XContentType.SMILE);
+    }
+
+    @Test
+    void shouldFallBackToJsonWhenBinaryWireFormatRefused() throws IOException {
+        var smileClient = smileClient();
+        when(restHighLevelClient.update(updateRequestArgumentCaptor.capture(), any()))
+            .thenThrow(new OpenSearchStatusException("Content-Type not supported", RestStatus.NOT_ACCEPTABLE))
+            .thenReturn(null);
+
+        byte[] source = "{\"reference\":\"REF\"}".getBytes(StandardCharsets.UTF_8);
+        smileClient.update(new DocumentUpdate("TEST", UUID.randomUUID(), new JsonDocument(source)));
+
+        assertThat(updateRequestArgumentCaptor.getAllValues()).extracting(request -> request.doc().getContentType())
+            .containsExactly(XContentType.SMILE, XContentType.JSON);
+    }
+
+    private OpenSearchClient smileClient() {
+        var wireFormat = new WireFormat("smile");
+        return new OpenSearchClient(restHighLevelClient, openSearchAsyncClient,
+            new MultiSearchBatcher(restHighLevelClient, wireFormat, 0, 0), wireFormat, "test", 10, 3);
+    }
+
 }
@@ -0,0 +1,56 @@
+package uk.gov.digital.ho.hocs.search.client;
+
+import org.opensearch.common.settings.Settings;
+import org.opensearch.painless.PainlessScriptEngine;
+import org.opensearch.painless.spi.Whitelist;
+import org.opensearch.script.UpdateScript;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compiles the stored update scripts in the painless engine, so they can be run against documents held in memory.
+ */
+public final class PainlessScripts {
+
+    private static final PainlessScriptEngine ENGINE = new PainlessScriptEngine(Settings.EMPTY,
+        Map.of(UpdateScript.CONTEXT, Whitelist.BASE_WHITELISTS));
+
+    private PainlessScripts() {
+    }
+
+    static UpdateScript.Factory compile(String name) {
+        try (InputStream in = PainlessScripts.class.getClassLoader().getResourceAsStream(
+            String.format("scripts/%s.painless", name))) {
+            return ENGINE.compile(name, new String(in.readAllBytes(), StandardCharsets.UTF_8), UpdateScript.CONTEXT,
+                Map.of());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Runs the update collections script for the update against the source.
+     *
+     * @return the op the script left the update with
+     */
+    public static String run(CollectionUpdate update, Map<String, Object> source) {
+        return run(compile(OpenSearchClient.UPDATE_COLLECTIONS_SCRIPT), update.toParams(), source);
+    }
+
+    /**
+     * @return the op the script left the update with
+     */
+    static String run(UpdateScript.Factory factory, Map<String, Object> params, Map<String, Object> source) {
+        Map<String, Object> ctx = new HashMap<>();
+        ctx.put("_source", source);
+        ctx.put("op", "index");
+        factory.newInstance(params, ctx).execute();
+        return (String) ctx.get("op");
+    }
+
+}
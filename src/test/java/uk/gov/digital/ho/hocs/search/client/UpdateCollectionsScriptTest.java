@@ -0,0 +1,149 @@
+package uk.gov.digital.ho.hocs.search.client;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opensearch.script.UpdateScript;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UpdateCollectionsScriptTest {
+
+    private static final String CURRENT = "currentCorrespondents";
+
+    private static final String ALL = "allCorrespondents";
+
+    private static final UUID ITEM_UUID = UUID.randomUUID();
+
+    private static UpdateScript.Factory factory;
+
+    private Map<String, Object> source;
+
+    private String op;
+
+    @BeforeAll
+    static void compile() {
+        factory = PainlessScripts.compile(OpenSearchClient.UPDATE_COLLECTIONS_SCRIPT);
+    }
+
+    @BeforeEach
+    void setup() {
+        source = new HashMap<>();
+    }
+
+    @Test
+    void shouldAddItemToEachField() {
+        run(new CollectionUpdate().add(item(1L), CURRENT, ALL).at(1L));
+
+        assertThat(source.get(CURRENT)).isEqualTo(List.of(item(1L)));
+        assertThat(source.get(ALL)).isEqualTo(List.of(item(1L)));
+    }
+
+    @Test
+    void shouldAddItemOnceWhenRedelivered() {
+        run(new CollectionUpdate().add(item(1L), CURRENT, ALL).at(1L));
+        run(new CollectionUpdate().add(item(1L), CURRENT, ALL).at(1L));
+
+        assertThat(source.get(CURRENT)).isEqualTo(List.of(item(1L)));
+        assertThat(source.get(ALL)).isEqualTo(List.of(item(1L)));
+    }
+
+    @Test
+    void shouldNotAddItemBackWhenCreateArrivesAfterLaterDelete() {
+        run(new CollectionUpdate().add(item(1L), CURRENT, ALL).at(1L));
+        run(new CollectionUpdate().remove(ITEM_UUID, CURRENT).at(3L));
+
+        run(new CollectionUpdate().add(item(2L), CURRENT, ALL).at(2L));
+
+        assertThat(source.get(CURRENT)).isEqualTo(List.of());
+        assertThat(source.get(ALL)).isEqualTo(List.of(item(1L)));
+    }
+
+    @Test
+    void shouldNotAddItemWhenCreateArrivesAfterLaterDeleteOfMissingItem() {
+        run(new CollectionUpdate().remove(ITEM_UUID, CURRENT).at(2L));
+
+        run(new CollectionUpdate().add(item(1L), CURRENT, ALL).at(1L));
+
+        assertThat(source.get(CURRENT)).isNull();
+        assertThat(source.get(ALL)).isEqualTo(List.of(item(1L)));
+    }
+
+    @Test
+    void shouldNotAddItemBackWhenUpdateArrivesAfterLaterDelete() {
+        run(new CollectionUpdate().add(item(1L), CURRENT, ALL).at(1L));
+        run(new CollectionUpdate().remove(ITEM_UUID, CURRENT).at(3L));
+
+        run(new CollectionUpdate().remove(ITEM_UUID, CURRENT).add(item(2L), CURRENT).at(2L));
+
+        assertThat(source.get(CURRENT)).isEqualTo(List.of());
+    }
+
+    @Test
+    void shouldAddItemBackWhenCreatedAfterDelete() {
+        run(new CollectionUpdate().add(item(1L), CURRENT, ALL).at(1L));
+        run(new CollectionUpdate().remove(ITEM_UUID, CURRENT).at(2L));
+
+        run(new CollectionUpdate().add(item(3L), CURRENT, ALL).at(3L));
+
+        assertThat(source.get(CURRENT)).isEqualTo(List.of(item(3L)));
+        assertThat(source.get(ALL)).isEqualTo(List.of(item(1L)));
+    }
+
+    @Test
+    void shouldReplaceItemWhenUpdated() {
+        run(new CollectionUpdate().add(item(1L), CURRENT, ALL).at(1L));
+
+        run(new CollectionUpdate().remove(ITEM_UUID, CURRENT).add(item(2L), CURRENT).at(2L));
+
+        assertThat(source.get(CURRENT)).isEqualTo(List.of(item(2L)));
+        assertThat(source).doesNotContainKey("removedItems");
+    }
+
+    @Test
+    void shouldKeepEachVersionOfUpdatedItemInVersionedField() {
+        run(new CollectionUpdate().add(item(1L), CURRENT, ALL).keepingVersions(ALL).at(1L));
+
+        run(new CollectionUpdate().remove(ITEM_UUID, CURRENT).add(item(2L), CURRENT, ALL).keepingVersions(ALL).at(2L));
+
+        assertThat(source.get(CURRENT)).isEqualTo(List.of(item(2L)));
+        assertThat(source.get(ALL)).isEqualTo(List.of(item(1L), item(2L)));
+    }
+
+    @Test
+    void shouldNotAddSameVersionAgainFromLaterEvent() {
+        run(new CollectionUpdate().add(item(1L), CURRENT, ALL).keepingVersions(ALL).at(1L));
+
+        var sameValues = new HashMap<>(item(1L));
+        sameValues.put("eventTime", 2L);
+        run(new CollectionUpdate().remove(ITEM_UUID, CURRENT).add(sameValues, CURRENT, ALL).keepingVersions(ALL)
+            .at(2L));
+
+        assertThat(source.get(CURRENT)).isEqualTo(List.of(sameValues));
+        assertThat(source.get(ALL)).isEqualTo(List.of(item(1L)));
+    }
+
+    @Test
+    void shouldSkipUpdateOlderThanItem() {
+        run(new CollectionUpdate().add(item(2L), CURRENT, ALL).at(2L));
+
+        run(new CollectionUpdate().remove(ITEM_UUID, CURRENT).add(item(1L), CURRENT).at(1L));
+
+        assertThat(op).isEqualTo("none");
+        assertThat(source.get(CURRENT)).isEqualTo(List.of(item(2L)));
+    }
+
+    private void run(CollectionUpdate update) {
+        op = PainlessScripts.run(factory, update.toParams(), source);
+    }
+
+    private static Map<String, Object> item(Long eventTime) {
+        return Map.of("uuid", ITEM_UUID.toString(), "fullname", "Name " + eventTime, "eventTime", eventTime);
+    }
+
+}
@@ -0,0 +1,93 @@
+package uk.gov.digital.ho.hocs.search.client;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opensearch.script.UpdateScript;
+import uk.gov.digital.ho.hocs.search.domain.model.CaseData;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VersionedUpdateScriptTest {
+
+    private static UpdateScript.Factory factory;
+
+    @BeforeAll
+    static void compile() {
+        factory = PainlessScripts.compile(OpenSearchClient.VERSIONED_UPDATE_SCRIPT);
+    }
+
+    @Test
+    void shouldMergeDocumentFromLaterEvent() {
+        Map<String, Object> source = document(Map.of("a", "1"), 1L);
+
+        String op = PainlessScripts.run(factory, params(Map.of("data", Map.of("b", "2"), "eventTime", 2L), "eventTime",
+            false), source);
+
+        assertThat(op).isEqualTo("index");
+        assertThat(source).containsEntry("data", Map.of("a", "1", "b", "2")).containsEntry("eventTime", 2L);
+    }
+
+    @Test
+    void shouldSkipDocumentFromEarlierEvent() {
+        Map<String, Object> source = document(Map.of("a", "1"), 2L);
+
+        String op = PainlessScripts.run(factory, params(Map.of("data", Map.of("a", "0"), "eventTime", 1L), "eventTime",
+            false), source);
+
+        assertThat(op).isEqualTo("none");
+        assertThat(source).containsEntry("data", Map.of("a", "1"));
+    }
+
+    @Test
+    void shouldFallBackToNextPrivateOfficeTeamWhenOverrideCleared() {
+        Map<String, Object> source = document(Map.of("OverridePOTeamUUID", "OVERRIDE", "POTeamUUID", "TEAM"), 1L);
+        source.put("effectivePOTeamUUID", "OVERRIDE");
+
+        PainlessScripts.run(factory, params(Map.of("data", Map.of("OverridePOTeamUUID", ""), "eventTime", 2L),
+            "eventTime", true), source);
+
+        assertThat(source).containsEntry("effectivePOTeamUUID", "TEAM");
+    }
+
+    @Test
+    void shouldKeepOverrideWhenOnlyTeamChanges() {
+        Map<String, Object> source = document(Map.of("OverridePOTeamUUID", "OVERRIDE", "POTeamUUID", "TEAM"), 1L);
+        source.put("effectivePOTeamUUID", "OVERRIDE");
+
+        PainlessScripts.run(factory, params(Map.of("data", Map.of("POTeamUUID", "NEW"), "effectivePOTeamUUID", "NEW"),
+            null, true), source);
+
+        assertThat(source).containsEntry("effectivePOTeamUUID", "OVERRIDE");
+    }
+
+    @Test
+    void shouldRemoveEffectiveTeamWhenEveryTeamCleared() {
+        Map<String, Object> source = document(Map.of("POTeamUUID", "TEAM"), 1L);
+        source.put("effectivePOTeamUUID", "TEAM");
+
+        PainlessScripts.run(factory, params(Map.of("data", Map.of("POTeamUUID", "")), null, true), source);
+
+        assertThat(source).doesNotContainKey("effectivePOTeamUUID");
+    }
+
+    private static Map<String, Object> params(Map<String, Object> doc, String field, boolean derivingEffectivePOTeam) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("doc", doc);
+        params.put("field", field);
+        if (derivingEffectivePOTeam) {
+            params.put("poTeamFields", CaseData.PO_TEAM_FIELDS);
+        }
+        return params;
+    }
+
+    private static Map<String, Object> document(Map<String, Object> data, Long eventTime) {
+        Map<String, Object> source = new HashMap<>();
+        source.put("data", new HashMap<>(data));
+        source.put("eventTime", eventTime);
+        return source;
+    }
+
+}
@@ -13,6 +13,7 @@ import uk.gov.digital.ho.hocs.search.api.CaseDataService;
 import uk.gov.digital.ho.hocs.search.api.dto.CreateCaseRequest;
 import uk.gov.digital.ho.hocs.search.client.CaseQueryFactory;
 import uk.gov.digital.ho.hocs.search.client.OpenSearchClient;
+import uk.gov.digital.ho.hocs.search.client.SearchQuery;
 import uk.gov.digital.ho.hocs.search.helpers.CaseTypeUuidHelper;
 
 import java.time.Duration;
@@ -49,12 +50,13 @@ class MultiSearchTest {
         for (Map.Entry<String, String> caseType : types.entrySet()) {
             var caseUuid = CaseTypeUuidHelper.generateCaseTypeUuid(caseType.getKey());
             caseDataService.createCase(caseUuid,
-                new CreateCaseRequest(caseUuid, LocalDateTime.now(), caseType.getValue(), String.format("%s/0000000/1", caseType.getValue()), null, null, null, Map.of()));
+                new CreateCaseRequest(caseUuid, LocalDateTime.now(), caseType.getValue(), String.format("%s/0000000/1", caseType.getValue()), null, null, null, Map.of()), null);
 
         }
 
         BoolQueryBuilder timestampQuery = generateTimestampQuery(beforeInsert);
-        Map<String, BoolQueryBuilder> caseTypeQueries = Map.of("MIN", timestampQuery, "TRO", timestampQuery);
+        Map<String, SearchQuery> caseTypeQueries = Map.of("MIN", SearchQuery.of(timestampQuery), "TRO",
+            SearchQuery.of(timestampQuery));
 
         // search for all cases
         await().pollDelay(Duration.ofSeconds(1)).until(() -> openSearchClient.search(caseTypeQueries).size() == 2);
@@ -69,13 +71,13 @@ class MultiSearchTest {
             caseDataService.createCase(caseUuid,
                 new CreateCaseRequest(caseUuid, LocalDateTime.now(), caseType.getValue(), String.format("%s/0000000/1",
                     caseType.getValue()),
-                    "TEST_MIG_REF", null, null, Map.of()));
+                    "TEST_MIG_REF", null, null, Map.of()), null);
         }
 
-        Map<String, BoolQueryBuilder> caseTypeQueries = new HashMap<>();
+        Map<String, SearchQuery> caseTypeQueries = new HashMap<>();
         for (String caseType : types.values()) {
             BoolQueryBuilder referenceQuery = generateMigratedReferenceQuery("TEST_MIG_REF", caseType, beforeInsert);
-            caseTypeQueries.put(caseType, referenceQuery);
+            caseTypeQueries.put(caseType, SearchQuery.of(referenceQuery));
         }
 
         // search for all cases
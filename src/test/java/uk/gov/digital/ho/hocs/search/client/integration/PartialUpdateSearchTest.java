@@ -12,20 +12,20 @@ import uk.gov.digital.ho.hocs.search.api.dto.AddressDto;
 import uk.gov.digital.ho.hocs.search.api.dto.CorrespondentDetailsDto;
 import uk.gov.digital.ho.hocs.search.api.dto.CreateTopicRequest;
 import uk.gov.digital.ho.hocs.search.api.dto.SomuItemDto;
+import uk.gov.digital.ho.hocs.search.client.DocumentUpdate;
 import uk.gov.digital.ho.hocs.search.client.OpenSearchClient;
 import uk.gov.digital.ho.hocs.search.domain.model.CorrespondentCaseData;
 import uk.gov.digital.ho.hocs.search.domain.model.SomuCaseData;
 import uk.gov.digital.ho.hocs.search.domain.model.TopicCaseData;
-import uk.gov.digital.ho.hocs.search.helpers.AllMapKeyMatcher;
 import uk.gov.digital.ho.hocs.search.helpers.CaseTypeUuidHelper;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.awaitility.Awaitility.await;
-import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.verify;
 import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
@@ -52,7 +52,7 @@ class PartialUpdateSearchTest {
             LocalDateTime.now(), "LAW", "FULLNAME",
             new AddressDto("postcode", "address1", "address2", "address3", "country"), "0", "e", "REF", "ExtKey");
 
-        caseDataService.createCorrespondent(caseUuid, correspondentDetailsDto);
+        caseDataService.createCorrespondent(caseUuid, correspondentDetailsDto, null);
 
         await().until(() -> openSearchClient.findById("min", caseUuid) != null);
 
@@ -61,8 +61,8 @@ class PartialUpdateSearchTest {
         assertThat(correspondents.getAllCorrespondents()).hasSize(1);
         assertThat(correspondents.getCurrentCorrespondents()).hasSize(1);
 
-        verify(openSearchClient).update(any(), any(),
-            argThat(new AllMapKeyMatcher("currentCorrespondents", "allCorrespondents")));
+        verify(openSearchClient).update(argThat((DocumentUpdate update) -> update.getCollectionUpdate().getAddTo()
+            .equals(List.of("currentCorrespondents", "allCorrespondents"))));
     }
 
     @Test
@@ -71,7 +71,7 @@ class PartialUpdateSearchTest {
 
         CreateTopicRequest createTopicRequest = new CreateTopicRequest(UUID.randomUUID(), "TOPIC");
 
-        caseDataService.createTopic(caseUuid, createTopicRequest);
+        caseDataService.createTopic(caseUuid, createTopicRequest, null);
 
         await().until(() -> openSearchClient.findById("min", caseUuid) != null);
 
@@ -79,7 +79,8 @@ class PartialUpdateSearchTest {
         assertThat(topics.getAllTopics()).hasSize(1);
         assertThat(topics.getCurrentTopics()).hasSize(1);
 
-        verify(openSearchClient).update(any(), any(), argThat(new AllMapKeyMatcher("allTopics", "currentTopics")));
+        verify(openSearchClient).update(argThat((DocumentUpdate update) -> update.getCollectionUpdate().getAddTo()
+            .equals(List.of("currentTopics", "allTopics"))));
     }
 
     @Test
@@ -88,14 +89,15 @@ class PartialUpdateSearchTest {
 
         SomuItemDto somuItemDto = new SomuItemDto(UUID.randomUUID(), UUID.randomUUID(), Map.of("field", "value"));
 
-        caseDataService.createSomuItem(caseUuid, somuItemDto);
+        caseDataService.createSomuItem(caseUuid, somuItemDto, null);
 
         await().until(() -> openSearchClient.findById("min", caseUuid) != null);
 
         var somuItems = objectMapper.convertValue(openSearchClient.findById("min", caseUuid), SomuCaseData.class);
         assertThat(somuItems.getAllSomuItems()).hasSize(1);
 
-        verify(openSearchClient).update(any(), any(), argThat(new AllMapKeyMatcher("allSomuItems")));
+        verify(openSearchClient).update(argThat((DocumentUpdate update) -> update.getCollectionUpdate().getAddTo()
+            .equals(List.of("allSomuItems"))));
     }
 
 }